@@ -0,0 +1,141 @@
+package cn.zzzmh.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * MySQL异步执行器
+ * 为MySqlUtils的异步方法提供有界执行：同时执行的任务数不超过parallelism，
+ * 排队任务数不超过queueCapacity，超出时立即返回以RejectedExecutionException失败的Future（背压）
+ *
+ * 运行在Java 21及以上且开启虚拟线程时，每个任务使用一个虚拟线程，并发数仍受parallelism限制。
+ *
+ * @author zzzmh
+ * @since 1.0.3
+ */
+final class MySqlAsyncExecutor {
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final ExecutorService executor;
+    private final Semaphore pending;
+    private final Semaphore running;
+    private final int capacity;
+    private final boolean virtualThreads;
+
+    /**
+     * 创建异步执行器
+     *
+     * @param parallelism 最大并发执行数（一般与连接池最大连接数一致）
+     * @param queueCapacity 最大排队任务数
+     * @param preferVirtualThreads 是否优先使用虚拟线程（不支持时使用普通线程）
+     */
+    MySqlAsyncExecutor(int parallelism, int queueCapacity, boolean preferVirtualThreads) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Async parallelism must be greater than 0");
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("Async queue capacity cannot be negative");
+        }
+        this.capacity = parallelism + queueCapacity;
+        this.pending = new Semaphore(capacity);
+        ExecutorService virtualExecutor = preferVirtualThreads ? newVirtualThreadExecutor() : null;
+        if (virtualExecutor != null) {
+            this.executor = virtualExecutor;
+            this.running = new Semaphore(parallelism);
+            this.virtualThreads = true;
+        } else {
+            ThreadPoolExecutor threadPool = new ThreadPoolExecutor(parallelism, parallelism, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), r -> {
+                        Thread thread = new Thread(r, "mysql-async-" + THREAD_COUNTER.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            threadPool.allowCoreThreadTimeOut(true);
+            this.executor = threadPool;
+            this.running = null;
+            this.virtualThreads = false;
+        }
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param task 任务
+     * @param <T> 结果类型
+     * @return 任务结果Future，队列已满时立即以RejectedExecutionException失败
+     */
+    <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (!pending.tryAcquire()) {
+            future.completeExceptionally(new RejectedExecutionException(
+                    "MySQL async queue is full (" + capacity + " tasks pending)"));
+            return future;
+        }
+        try {
+            executor.execute(() -> run(task, future));
+        } catch (RejectedExecutionException e) {
+            pending.release();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private <T> void run(Supplier<T> task, CompletableFuture<T> future) {
+        try {
+            if (running != null) {
+                running.acquire();
+            }
+            try {
+                future.complete(task.get());
+            } finally {
+                if (running != null) {
+                    running.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        } finally {
+            pending.release();
+        }
+    }
+
+    /**
+     * 排队及执行中的任务数
+     */
+    int getPendingCount() {
+        return capacity - pending.availablePermits();
+    }
+
+    boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 通过反射创建虚拟线程执行器（Java 21+），不支持时返回null
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package cn.zzzmh.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JavaBean行映射器
+ * 按列名（支持下划线转驼峰、忽略大小写）把结果行直接映射为JavaBean，不经过JSONObject
+ *
+ * MySqlUtils.query按结果集解析一次列与setter的对应关系（bind），直接调用mapRow时按列名和类型缓存解析结果；
+ * 映射器不保存结果集状态，可作为常量在多个线程间共享。
+ * 基本类型属性使用getLong、getInt等方法读取，避免装箱。支持public setter及public字段，Bean需要有无参构造函数。
+ *
+ * @param <T> Bean类型
+ * @author zzzmh
+ * @since 1.0.3
+ */
+public class MySqlBeanRowMapper<T> implements MySqlUtils.RowMapper<T> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final ConcurrentHashMap<Class<?>, Map<String, MethodHandle>> PROPERTY_CACHE = new ConcurrentHashMap<>();
+    private static final int MAX_CACHED_LAYOUTS = 64;
+
+    private final Class<T> type;
+    private final Constructor<T> constructor;
+    // 列布局（列名和类型）到绑定的缓存，供直接调用mapRow时使用
+    private final ConcurrentHashMap<String, ColumnBinding[]> layoutBindings = new ConcurrentHashMap<>();
+
+    /**
+     * 创建Bean行映射器
+     *
+     * @param type Bean类型
+     */
+    public MySqlBeanRowMapper(Class<T> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Bean type cannot be null");
+        }
+        this.type = type;
+        try {
+            this.constructor = type.getDeclaredConstructor();
+            this.constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Bean type must have a no-arg constructor: " + type.getName(), e);
+        }
+    }
+
+    @Override
+    public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        String layout = layoutOf(metaData);
+        ColumnBinding[] bindings = layoutBindings.get(layout);
+        if (bindings == null) {
+            bindings = resolveBindings(metaData);
+            if (layoutBindings.size() >= MAX_CACHED_LAYOUTS) {
+                layoutBindings.clear();
+            }
+            layoutBindings.put(layout, bindings);
+        }
+        return map(rs, bindings);
+    }
+
+    /**
+     * 按结果集解析一次列绑定，返回只用于该结果集的映射器
+     *
+     * @param metaData 结果集元数据
+     * @return 行映射器
+     * @throws SQLException 读取元数据失败
+     */
+    MySqlUtils.RowMapper<T> bind(ResultSetMetaData metaData) throws SQLException {
+        ColumnBinding[] bindings = resolveBindings(metaData);
+        return (rs, rowNum) -> map(rs, bindings);
+    }
+
+    private T map(ResultSet rs, ColumnBinding[] bindings) throws SQLException {
+        T bean;
+        try {
+            bean = constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Failed to instantiate " + type.getName(), e);
+        }
+        for (ColumnBinding binding : bindings) {
+            try {
+                binding.apply(rs, bean);
+            } catch (SQLException | RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException("Failed to set property for column " + binding.column + " of " + type.getName(), e);
+            }
+        }
+        return bean;
+    }
+
+    // ========== 列绑定解析 ==========
+
+    private static String layoutOf(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        StringBuilder sb = new StringBuilder(columnCount * 16);
+        for (int i = 1; i <= columnCount; i++) {
+            sb.append(metaData.getColumnLabel(i)).append(':').append(metaData.getColumnType(i)).append(',');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 解析结果集列与Bean属性的对应关系（每个结果集一次）
+     */
+    private ColumnBinding[] resolveBindings(ResultSetMetaData metaData) throws SQLException {
+        Map<String, MethodHandle> properties = PROPERTY_CACHE.computeIfAbsent(type, MySqlBeanRowMapper::introspect);
+        int columnCount = metaData.getColumnCount();
+        ColumnBinding[] resolved = new ColumnBinding[columnCount];
+        int size = 0;
+        for (int i = 1; i <= columnCount; i++) {
+            MethodHandle setter = properties.get(normalize(metaData.getColumnLabel(i)));
+            if (setter != null) {
+                Class<?> propertyType = setter.type().parameterType(1);
+                resolved[size++] = new ColumnBinding(i, propertyType, isTemporal(metaData.getColumnType(i)), setter);
+            }
+        }
+        ColumnBinding[] bindings = new ColumnBinding[size];
+        System.arraycopy(resolved, 0, bindings, 0, size);
+        return bindings;
+    }
+
+    /**
+     * 读取Bean的可写属性：public setter优先，其次public字段
+     */
+    private static Map<String, MethodHandle> introspect(Class<?> type) {
+        Map<String, MethodHandle> properties = new HashMap<>();
+        try {
+            for (Field field : type.getFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)) {
+                    field.setAccessible(true);
+                    properties.put(normalize(field.getName()), adapt(LOOKUP.unreflectSetter(field), field.getType()));
+                }
+            }
+            for (Method method : type.getMethods()) {
+                String name = method.getName();
+                if (name.length() > 3 && name.startsWith("set") && method.getParameterCount() == 1
+                        && !Modifier.isStatic(method.getModifiers())) {
+                    method.setAccessible(true);
+                    Class<?> parameterType = method.getParameterTypes()[0];
+                    properties.put(normalize(name.substring(3)), adapt(LOOKUP.unreflect(method), parameterType));
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Failed to introspect bean type " + type.getName(), e);
+        }
+        return properties;
+    }
+
+    /**
+     * 统一setter签名为(Object, 属性类型)void，便于invokeExact且不装箱
+     */
+    private static MethodHandle adapt(MethodHandle setter, Class<?> propertyType) {
+        return setter.asType(MethodType.methodType(void.class, Object.class, propertyType));
+    }
+
+    /**
+     * 列名/属性名归一化：去掉下划线并转小写（user_name、userName、USERNAME视为同一属性）
+     */
+    private static String normalize(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c != '_') {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isTemporal(int sqlType) {
+        return sqlType == Types.TIMESTAMP || sqlType == Types.DATE || sqlType == Types.TIME
+                || sqlType == Types.TIMESTAMP_WITH_TIMEZONE || sqlType == Types.TIME_WITH_TIMEZONE;
+    }
+
+    /**
+     * 按目标类型读取单列值（包装类型、字符串、时间等）
+     *
+     * @param rs 结果集
+     * @param column 列序号（从1开始）
+     * @param targetType 目标类型
+     * @param temporalColumn 是否时间类型列（时间列转Long时使用时间戳）
+     * @return 列值，数据库NULL返回null
+     * @throws SQLException 读取失败
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object readValue(ResultSet rs, int column, Class<?> targetType, boolean temporalColumn) throws SQLException {
+        Object value;
+        if (targetType == String.class) {
+            value = rs.getString(column);
+        } else if (temporalColumn && (targetType == Long.class || targetType == long.class)) {
+            Timestamp timestamp = rs.getTimestamp(column);
+            value = timestamp == null ? null : timestamp.getTime();
+        } else if (targetType == Long.class || targetType == long.class) {
+            value = rs.getLong(column);
+        } else if (targetType == Integer.class || targetType == int.class) {
+            value = rs.getInt(column);
+        } else if (targetType == Double.class || targetType == double.class) {
+            value = rs.getDouble(column);
+        } else if (targetType == Float.class || targetType == float.class) {
+            value = rs.getFloat(column);
+        } else if (targetType == Short.class || targetType == short.class) {
+            value = rs.getShort(column);
+        } else if (targetType == Byte.class || targetType == byte.class) {
+            value = rs.getByte(column);
+        } else if (targetType == Boolean.class || targetType == boolean.class) {
+            value = rs.getBoolean(column);
+        } else if (targetType == BigDecimal.class) {
+            value = rs.getBigDecimal(column);
+        } else if (targetType == BigInteger.class) {
+            BigDecimal decimal = rs.getBigDecimal(column);
+            value = decimal == null ? null : decimal.toBigInteger();
+        } else if (targetType == byte[].class) {
+            value = rs.getBytes(column);
+        } else if (targetType == java.util.Date.class || targetType == Timestamp.class) {
+            value = rs.getTimestamp(column);
+        } else if (targetType == java.sql.Date.class) {
+            value = rs.getDate(column);
+        } else if (targetType == java.sql.Time.class) {
+            value = rs.getTime(column);
+        } else if (targetType == LocalDateTime.class || targetType == LocalDate.class || targetType == LocalTime.class) {
+            value = rs.getObject(column, targetType);
+        } else if (targetType.isEnum()) {
+            String name = rs.getString(column);
+            value = name == null ? null : Enum.valueOf((Class<? extends Enum>) targetType, name);
+        } else {
+            value = rs.getObject(column);
+        }
+        return rs.wasNull() ? null : value;
+    }
+
+    /**
+     * 单列到属性的绑定
+     */
+    private static final class ColumnBinding {
+        private final int column;
+        private final Class<?> propertyType;
+        private final boolean temporalColumn;
+        private final MethodHandle setter;
+
+        ColumnBinding(int column, Class<?> propertyType, boolean temporalColumn, MethodHandle setter) {
+            this.column = column;
+            this.propertyType = propertyType;
+            this.temporalColumn = temporalColumn;
+            this.setter = setter;
+        }
+
+        /**
+         * 读取列值并写入Bean，基本类型走原始类型getter，数据库NULL时保留默认值
+         */
+        void apply(ResultSet rs, Object bean) throws Throwable {
+            if (propertyType == long.class && !temporalColumn) {
+                long value = rs.getLong(column);
+                if (!rs.wasNull()) {
+                    setter.invokeExact(bean, value);
+                }
+            } else if (propertyType == int.class) {
+                int value = rs.getInt(column);
+                if (!rs.wasNull()) {
+                    setter.invokeExact(bean, value);
+                }
+            } else if (propertyType == double.class) {
+                double value = rs.getDouble(column);
+                if (!rs.wasNull()) {
+                    setter.invokeExact(bean, value);
+                }
+            } else if (propertyType == boolean.class) {
+                boolean value = rs.getBoolean(column);
+                if (!rs.wasNull()) {
+                    setter.invokeExact(bean, value);
+                }
+            } else if (propertyType.isPrimitive()) {
+                // float、short、byte、时间列转long等少见情况
+                Object value = readValue(rs, column, propertyType, temporalColumn);
+                if (value != null) {
+                    setter.invoke(bean, value);
+                }
+            } else {
+                Object value = readValue(rs, column, propertyType, temporalColumn);
+                setter.invoke(bean, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package cn.zzzmh.util;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import com.mysql.cj.jdbc.JdbcStatement;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LOAD DATA LOCAL INFILE批量导入
+ * 把JSONObject行在读取时编码为制表符分隔的文本流，通过驱动的setLocalInfileInputStream直接发送，不写临时文件
+ *
+ * 连接需要开启allowLoadLocalInfile=true，服务端需要开启local_infile。
+ *
+ * @author zzzmh
+ * @since 1.0.3
+ */
+final class MySqlBulkLoader {
+
+    private MySqlBulkLoader() {
+    }
+
+    /**
+     * 生成制表符分隔格式的LOAD DATA语句
+     *
+     * @param tableName 表名
+     * @param columns 列名
+     * @return SQL语句
+     */
+    static String tsvSql(String tableName, List<String> columns) {
+        return "LOAD DATA LOCAL INFILE 'stream' INTO TABLE " + tableName + " CHARACTER SET utf8mb4"
+                + " FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n'"
+                + " (" + String.join(",", columns) + ")";
+    }
+
+    /**
+     * 生成CSV格式（RFC 4180，双引号包裹，LF换行）的LOAD DATA语句
+     *
+     * @param tableName 表名
+     * @param columns 列名（为空时按表的列顺序）
+     * @param hasHeader 首行是否为标题行
+     * @return SQL语句
+     */
+    static String csvSql(String tableName, List<String> columns, boolean hasHeader) {
+        return "LOAD DATA LOCAL INFILE 'stream' INTO TABLE " + tableName + " CHARACTER SET utf8mb4"
+                + " FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY ''"
+                + " LINES TERMINATED BY '\\n'"
+                + (hasHeader ? " IGNORE 1 LINES" : "")
+                + (columns == null || columns.isEmpty() ? "" : " (" + String.join(",", columns) + ")");
+    }
+
+    /**
+     * 以指定输入流作为本地文件执行LOAD DATA
+     *
+     * @param connection 数据库连接（需开启allowLoadLocalInfile）
+     * @param sql LOAD DATA语句
+     * @param input 文件内容
+     * @return 导入行数
+     * @throws SQLException 执行失败
+     */
+    static long execute(Connection connection, String sql, InputStream input) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.unwrap(JdbcStatement.class).setLocalInfileInputStream(input);
+            return stmt.executeLargeUpdate(sql);
+        }
+    }
+
+    /**
+     * 按需把行编码为LOAD DATA文本格式的输入流
+     */
+    static final class RowInputStream extends InputStream {
+
+        private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+        private final Iterator<JSONObject> rows;
+        private final List<String> columns;
+        private byte[] buffer = new byte[FLUSH_THRESHOLD + 1024];
+        private int position;
+        private int limit;
+        private long rowCount;
+
+        RowInputStream(Iterator<JSONObject> rows, List<String> columns) {
+            this.rows = rows;
+            this.columns = columns;
+        }
+
+        /**
+         * 已编码（发送）的行数
+         */
+        long getRowCount() {
+            return rowCount;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position >= limit && !fill()) {
+                return -1;
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= limit && !fill()) {
+                return -1;
+            }
+            int n = Math.min(len, limit - position);
+            System.arraycopy(buffer, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        /**
+         * 编码下一批行到缓冲区
+         */
+        private boolean fill() {
+            position = 0;
+            limit = 0;
+            while (limit < FLUSH_THRESHOLD && rows.hasNext()) {
+                JSONObject row = rows.next();
+                if (row == null) {
+                    continue; // 跳过空数据
+                }
+                for (int i = 0; i < columns.size(); i++) {
+                    if (i > 0) {
+                        append((byte) '\t');
+                    }
+                    appendValue(row.get(columns.get(i)));
+                }
+                append((byte) '\n');
+                rowCount++;
+            }
+            return limit > 0;
+        }
+
+        private void appendValue(Object value) {
+            if (value == null) {
+                append((byte) '\\');
+                append((byte) 'N');
+            } else if (value instanceof Boolean) {
+                append((byte) (((Boolean) value) ? '1' : '0'));
+            } else if (value instanceof byte[]) {
+                appendEscaped((byte[]) value);
+            } else if (value instanceof BigDecimal) {
+                appendEscaped(((BigDecimal) value).toPlainString());
+            } else if (value instanceof Timestamp || value instanceof java.sql.Date || value instanceof java.sql.Time) {
+                appendEscaped(value.toString());
+            } else if (value instanceof java.util.Date) {
+                appendEscaped(new Timestamp(((java.util.Date) value).getTime()).toString());
+            } else if (value instanceof LocalDateTime) {
+                appendEscaped(value.toString().replace('T', ' '));
+            } else if (value instanceof Map || value instanceof Collection) {
+                appendEscaped(JSON.toJSONString(value));
+            } else {
+                appendEscaped(value.toString());
+            }
+        }
+
+        private void appendEscaped(String value) {
+            appendEscaped(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * 转义反斜杠、制表符、换行及NUL（UTF-8多字节序列中不会出现这些字节）
+         */
+        private void appendEscaped(byte[] bytes) {
+            for (byte b : bytes) {
+                switch (b) {
+                    case '\\':
+                        append((byte) '\\');
+                        append((byte) '\\');
+                        break;
+                    case '\t':
+                        append((byte) '\\');
+                        append((byte) 't');
+                        break;
+                    case '\n':
+                        append((byte) '\\');
+                        append((byte) 'n');
+                        break;
+                    case '\r':
+                        append((byte) '\\');
+                        append((byte) 'r');
+                        break;
+                    case 0:
+                        append((byte) '\\');
+                        append((byte) '0');
+                        break;
+                    default:
+                        append(b);
+                }
+            }
+        }
+
+        private void append(byte b) {
+            if (limit == buffer.length) {
+                byte[] grown = new byte[buffer.length * 2];
+                System.arraycopy(buffer, 0, grown, 0, limit);
+                buffer = grown;
+            }
+            buffer[limit++] = b;
+        }
+    }
+}
@@ -0,0 +1,517 @@
+package cn.zzzmh.util;
+
+import com.alibaba.fastjson2.JSONObject;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列式查询结果
+ * 直接从ResultSet按列存储：整数和时间列为long[]，浮点和定点数列为double[]，字符串列字典编码，
+ * 每列带空值位图，适合返回大量数值行的统计报表查询
+ *
+ * 时间列与JSON结果一致，存储为毫秒时间戳；DECIMAL/NUMERIC按double存储，可能损失精度。
+ *
+ * @author zzzmh
+ * @since 1.0.3
+ */
+public class MySqlColumnarResult {
+
+    /**
+     * 列存储类型
+     */
+    public enum ColumnType {
+        /** 整数、布尔及时间戳，long[]存储 */
+        LONG,
+        /** 浮点及定点数，double[]存储 */
+        DOUBLE,
+        /** 字符串，字典编码存储 */
+        STRING,
+        /** 其他类型，Object[]存储 */
+        OBJECT
+    }
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final String[] columnNames;
+    private final Map<String, Integer> columnIndexes;
+    private final Column[] columns;
+    private int rowCount;
+
+    private MySqlColumnarResult(String[] columnNames, Column[] columns) {
+        this.columnNames = columnNames;
+        this.columns = columns;
+        this.columnIndexes = new HashMap<>(columnNames.length * 2);
+        for (int i = 0; i < columnNames.length; i++) {
+            columnIndexes.putIfAbsent(columnNames[i], i);
+        }
+    }
+
+    /**
+     * 读取整个结果集为列式结果
+     *
+     * @param rs 结果集
+     * @return 列式结果
+     * @throws SQLException 读取失败
+     */
+    static MySqlColumnarResult from(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        String[] names = new String[columnCount];
+        Column[] columns = new Column[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            names[i] = metaData.getColumnLabel(i + 1);
+            columns[i] = createColumn(metaData, i + 1);
+        }
+
+        MySqlColumnarResult result = new MySqlColumnarResult(names, columns);
+        int capacity = INITIAL_CAPACITY;
+        for (Column column : columns) {
+            column.grow(capacity);
+        }
+        int row = 0;
+        while (rs.next()) {
+            if (row == capacity) {
+                capacity = capacity << 1;
+                for (Column column : columns) {
+                    column.grow(capacity);
+                }
+            }
+            for (int i = 0; i < columnCount; i++) {
+                columns[i].read(rs, i + 1, row);
+            }
+            row++;
+        }
+        result.rowCount = row;
+        return result;
+    }
+
+    /**
+     * 按列元数据选择存储方式
+     */
+    private static Column createColumn(ResultSetMetaData metaData, int index) throws SQLException {
+        switch (metaData.getColumnType(index)) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BOOLEAN:
+                return new LongColumn(false);
+            case Types.BIGINT:
+                // BIGINT UNSIGNED可能超出long范围
+                return metaData.isSigned(index) ? new LongColumn(false) : new ObjectColumn();
+            case Types.BIT:
+                return metaData.getPrecision(index) <= 1 ? new LongColumn(false) : new ObjectColumn();
+            case Types.DATE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+                return new LongColumn(true);
+            case Types.FLOAT:
+            case Types.REAL:
+            case Types.DOUBLE:
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return new DoubleColumn();
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return new StringColumn();
+            default:
+                return new ObjectColumn();
+        }
+    }
+
+    // ========== 结构信息 ==========
+
+    /**
+     * 获取行数
+     *
+     * @return 行数
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 获取列数
+     *
+     * @return 列数
+     */
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * 获取列名
+     *
+     * @param column 列下标（从0开始）
+     * @return 列名
+     */
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    /**
+     * 获取列下标
+     *
+     * @param name 列名
+     * @return 列下标（从0开始）
+     */
+    public int getColumnIndex(String name) {
+        Integer index = columnIndexes.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException("Column not found: " + name);
+        }
+        return index;
+    }
+
+    /**
+     * 获取列存储类型
+     *
+     * @param column 列下标（从0开始）
+     * @return 列存储类型
+     */
+    public ColumnType getColumnType(int column) {
+        return columns[column].type();
+    }
+
+    // ========== 单值访问 ==========
+
+    /**
+     * 判断值是否为NULL
+     *
+     * @param column 列下标（从0开始）
+     * @param row 行下标（从0开始）
+     * @return 是否为NULL
+     */
+    public boolean isNull(int column, int row) {
+        checkRow(row);
+        return columns[column].isNull(row);
+    }
+
+    /**
+     * 获取long值（LONG列直接返回，DOUBLE列截断，NULL返回0）
+     *
+     * @param column 列下标（从0开始）
+     * @param row 行下标（从0开始）
+     * @return long值
+     */
+    public long getLong(int column, int row) {
+        checkRow(row);
+        Column col = columns[column];
+        if (col instanceof LongColumn) {
+            return ((LongColumn) col).values[row];
+        }
+        if (col instanceof DoubleColumn) {
+            return (long) ((DoubleColumn) col).values[row];
+        }
+        Object value = col.get(row);
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    /**
+     * 获取double值（NULL返回0）
+     *
+     * @param column 列下标（从0开始）
+     * @param row 行下标（从0开始）
+     * @return double值
+     */
+    public double getDouble(int column, int row) {
+        checkRow(row);
+        Column col = columns[column];
+        if (col instanceof DoubleColumn) {
+            return ((DoubleColumn) col).values[row];
+        }
+        if (col instanceof LongColumn) {
+            return ((LongColumn) col).values[row];
+        }
+        Object value = col.get(row);
+        return value instanceof Number ? ((Number) value).doubleValue() : 0D;
+    }
+
+    /**
+     * 获取字符串值
+     *
+     * @param column 列下标（从0开始）
+     * @param row 行下标（从0开始）
+     * @return 字符串值，NULL返回null
+     */
+    public String getString(int column, int row) {
+        checkRow(row);
+        Object value = columns[column].get(row);
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * 获取对象值（会装箱，仅用于少量访问）
+     *
+     * @param column 列下标（从0开始）
+     * @param row 行下标（从0开始）
+     * @return 对象值，NULL返回null
+     */
+    public Object getObject(int column, int row) {
+        checkRow(row);
+        return columns[column].get(row);
+    }
+
+    /**
+     * 获取整行为JSONObject
+     * 列名与executeQuery一致，值为列式存储的类型：整数、布尔（TINYINT(1)/BIT(1)）列为Long，
+     * 浮点和DECIMAL列为Double，时间列为毫秒时间戳Long，与executeQuery返回的Integer、Boolean、BigDecimal不同
+     *
+     * @param row 行下标（从0开始）
+     * @return 行数据
+     */
+    public JSONObject getRow(int row) {
+        checkRow(row);
+        JSONObject json = new JSONObject(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            json.put(columnNames[i], columns[i].get(row));
+        }
+        return json;
+    }
+
+    // ========== 整列访问 ==========
+
+    /**
+     * 获取LONG列数据（副本，NULL位置为0，配合isNull判断）
+     *
+     * @param name 列名
+     * @return long数组
+     */
+    public long[] getLongColumn(String name) {
+        Column column = columns[getColumnIndex(name)];
+        if (!(column instanceof LongColumn)) {
+            throw new IllegalArgumentException("Column " + name + " is " + column.type() + ", not LONG");
+        }
+        return Arrays.copyOf(((LongColumn) column).values, rowCount);
+    }
+
+    /**
+     * 获取DOUBLE列数据（副本，NULL位置为0，配合isNull判断）
+     *
+     * @param name 列名
+     * @return double数组
+     */
+    public double[] getDoubleColumn(String name) {
+        Column column = columns[getColumnIndex(name)];
+        if (!(column instanceof DoubleColumn)) {
+            throw new IllegalArgumentException("Column " + name + " is " + column.type() + ", not DOUBLE");
+        }
+        return Arrays.copyOf(((DoubleColumn) column).values, rowCount);
+    }
+
+    /**
+     * 获取STRING列的字典编码（副本，NULL位置为-1）
+     *
+     * @param name 列名
+     * @return 每行对应的字典下标
+     */
+    public int[] getDictionaryCodes(String name) {
+        return Arrays.copyOf(stringColumn(name).codes, rowCount);
+    }
+
+    /**
+     * 获取STRING列的字典
+     *
+     * @param name 列名
+     * @return 字典（下标即编码）
+     */
+    public List<String> getDictionary(String name) {
+        return new ArrayList<>(stringColumn(name).dictionary);
+    }
+
+    private StringColumn stringColumn(String name) {
+        Column column = columns[getColumnIndex(name)];
+        if (!(column instanceof StringColumn)) {
+            throw new IllegalArgumentException("Column " + name + " is " + column.type() + ", not STRING");
+        }
+        return (StringColumn) column;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range [0, " + rowCount + ")");
+        }
+    }
+
+    // ========== 列存储实现 ==========
+
+    /**
+     * 列存储基类，维护空值位图
+     */
+    private abstract static class Column {
+        private long[] nullBits = new long[0];
+
+        abstract ColumnType type();
+
+        abstract void read(ResultSet rs, int index, int row) throws SQLException;
+
+        abstract Object get(int row);
+
+        void grow(int capacity) {
+            nullBits = Arrays.copyOf(nullBits, (capacity + 63) >>> 6);
+        }
+
+        void markNull(int row) {
+            nullBits[row >>> 6] |= 1L << row;
+        }
+
+        boolean isNull(int row) {
+            return (nullBits[row >>> 6] & (1L << row)) != 0;
+        }
+    }
+
+    private static final class LongColumn extends Column {
+        private final boolean temporal;
+        private long[] values = new long[0];
+
+        LongColumn(boolean temporal) {
+            this.temporal = temporal;
+        }
+
+        @Override
+        ColumnType type() {
+            return ColumnType.LONG;
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            if (temporal) {
+                Timestamp timestamp = rs.getTimestamp(index);
+                if (timestamp == null) {
+                    markNull(row);
+                } else {
+                    values[row] = timestamp.getTime();
+                }
+                return;
+            }
+            long value = rs.getLong(index);
+            if (rs.wasNull()) {
+                markNull(row);
+            } else {
+                values[row] = value;
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return isNull(row) ? null : values[row];
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+        private double[] values = new double[0];
+
+        @Override
+        ColumnType type() {
+            return ColumnType.DOUBLE;
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            double value = rs.getDouble(index);
+            if (rs.wasNull()) {
+                markNull(row);
+            } else {
+                values[row] = value;
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return isNull(row) ? null : values[row];
+        }
+    }
+
+    private static final class StringColumn extends Column {
+        private final Map<String, Integer> lookup = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private int[] codes = new int[0];
+
+        @Override
+        ColumnType type() {
+            return ColumnType.STRING;
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            codes = Arrays.copyOf(codes, capacity);
+        }
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            String value = rs.getString(index);
+            if (value == null) {
+                markNull(row);
+                codes[row] = -1;
+                return;
+            }
+            Integer code = lookup.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(value);
+                lookup.put(value, code);
+            }
+            codes[row] = code;
+        }
+
+        @Override
+        Object get(int row) {
+            return isNull(row) ? null : dictionary.get(codes[row]);
+        }
+    }
+
+    private static final class ObjectColumn extends Column {
+        private Object[] values = new Object[0];
+
+        @Override
+        ColumnType type() {
+            return ColumnType.OBJECT;
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            Object value = rs.getObject(index);
+            if (value == null) {
+                markNull(row);
+            } else {
+                values[row] = value;
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+    }
+}
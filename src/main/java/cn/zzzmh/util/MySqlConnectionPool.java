@@ -0,0 +1,602 @@
+package cn.zzzmh.util;
+
+import com.alibaba.fastjson2.JSONObject;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * MySQL连接池
+ * 为MySqlUtils提供有界、轻锁的JDBC连接复用
+ *
+ * 借出的连接调用close()即归还连接池，不会关闭物理连接；
+ * 空闲超过校验间隔的连接在借出前才做一次有效性校验，不会每次借出都校验；
+ * 每个物理连接带有一个预编译语句LRU缓存，供MySqlUtils生成的SQL复用。
+ *
+ * @author zzzmh
+ * @since 1.0.3
+ */
+public class MySqlConnectionPool implements AutoCloseable {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 3;
+    private static final int DEFAULT_STATEMENT_CACHE_SIZE = 256;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int maxTotal;
+    private final int minIdle;
+    private final long maxWaitMillis;
+    private final long idleTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final int statementCacheSize;
+
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final MySqlLatencyHistogram waitTime = new MySqlLatencyHistogram();
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<PooledEntry> idleEntries = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger totalCount = new AtomicInteger();
+    private final ReentrantLock entryLock = new ReentrantLock();
+    private final Condition entryAvailable = entryLock.newCondition();
+    private final AtomicInteger entryWaiters = new AtomicInteger();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    /**
+     * 创建连接池
+     *
+     * @param url 数据库连接URL
+     * @param username 用户名
+     * @param password 密码
+     * @param maxTotal 最大连接数
+     * @param minIdle 最小空闲连接数
+     * @param maxWaitMillis 借出连接最大等待时间（毫秒）
+     * @param idleTimeoutMillis 空闲连接回收时间（毫秒）
+     * @param validationIntervalMillis 空闲多久后借出前需要校验（毫秒）
+     */
+    public MySqlConnectionPool(String url, String username, String password,
+                               int maxTotal, int minIdle, long maxWaitMillis,
+                               long idleTimeoutMillis, long validationIntervalMillis) {
+        this(url, username, password, maxTotal, minIdle, maxWaitMillis,
+                idleTimeoutMillis, validationIntervalMillis, DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * 创建连接池（自定义预编译语句缓存大小）
+     *
+     * @param url 数据库连接URL
+     * @param username 用户名
+     * @param password 密码
+     * @param maxTotal 最大连接数
+     * @param minIdle 最小空闲连接数
+     * @param maxWaitMillis 借出连接最大等待时间（毫秒）
+     * @param idleTimeoutMillis 空闲连接回收时间（毫秒）
+     * @param validationIntervalMillis 空闲多久后借出前需要校验（毫秒）
+     * @param statementCacheSize 每个连接缓存的预编译语句数量，0表示不缓存
+     */
+    public MySqlConnectionPool(String url, String username, String password,
+                               int maxTotal, int minIdle, long maxWaitMillis,
+                               long idleTimeoutMillis, long validationIntervalMillis,
+                               int statementCacheSize) {
+        if (url == null) {
+            throw new IllegalArgumentException("Database url cannot be null");
+        }
+        if (maxTotal <= 0) {
+            throw new IllegalArgumentException("Pool maxTotal must be greater than 0");
+        }
+        if (minIdle < 0 || minIdle > maxTotal) {
+            throw new IllegalArgumentException("Pool minIdle must be between 0 and maxTotal");
+        }
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("Statement cache size cannot be negative");
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxTotal = maxTotal;
+        this.minIdle = minIdle;
+        this.maxWaitMillis = maxWaitMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxTotal, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "mysql-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000L, Math.min(30000L, idleTimeoutMillis / 2));
+        evictor.scheduleWithFixedDelay(this::evictAndFill, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 从连接池借出连接，调用close()归还
+     *
+     * @return 数据库连接
+     */
+    public Connection getConnection() {
+        if (closed) {
+            throw new IllegalStateException("Connection pool has been closed");
+        }
+        long waitStart = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("Timed out after " + maxWaitMillis
+                        + "ms waiting for a database connection (pool maxTotal=" + maxTotal + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a database connection", e);
+        }
+        waitTime.record((System.nanoTime() - waitStart) / 1000);
+
+        try {
+            for (;;) {
+                PooledEntry entry = idleEntries.pollFirst();
+                if (entry != null) {
+                    if (validateIfIdle(entry)) {
+                        return lease(entry);
+                    }
+                    discard(entry);
+                    continue;
+                }
+                int count = totalCount.get();
+                if (count < maxTotal && totalCount.compareAndSet(count, count + 1)) {
+                    return lease(createEntry());
+                }
+                // 物理连接数已满但持有许可，说明回收线程正在校验、关闭或补充连接，等它放回或释放名额
+                awaitEntry(waitStart + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis));
+            }
+        } catch (RuntimeException | Error e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 获取借出连接的等待时间统计（只统计等待许可的时间，不含新建连接）
+     *
+     * @return count、mean、p50、p90、p99、p999、max（毫秒）
+     */
+    public JSONObject getWaitTimeSnapshot() {
+        return waitTime.snapshot(1000.0);
+    }
+
+    /**
+     * 获取连接池最大连接数
+     *
+     * @return 最大连接数
+     */
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    /**
+     * 获取当前物理连接总数
+     *
+     * @return 物理连接总数
+     */
+    public int getTotalCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * 获取当前空闲连接数
+     *
+     * @return 空闲连接数
+     */
+    public int getIdleCount() {
+        return idleEntries.size();
+    }
+
+    /**
+     * 获取当前借出中的连接数
+     *
+     * @return 借出中的连接数
+     */
+    public int getActiveCount() {
+        return maxTotal - permits.availablePermits();
+    }
+
+    /**
+     * 获取正在等待连接的线程数（估算值）
+     *
+     * @return 等待线程数
+     */
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * 获取预编译语句缓存命中次数
+     *
+     * @return 命中次数
+     */
+    public long getStatementCacheHits() {
+        return statementCacheHits.sum();
+    }
+
+    /**
+     * 获取预编译语句缓存未命中次数
+     *
+     * @return 未命中次数
+     */
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.sum();
+    }
+
+    /**
+     * 连接池是否已关闭
+     *
+     * @return 是否已关闭
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 关闭连接池（静默关闭空闲连接，借出中的连接在归还时关闭）
+     */
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledEntry entry;
+        while ((entry = idleEntries.pollFirst()) != null) {
+            discard(entry);
+        }
+    }
+
+    // ========== 内部实现 ==========
+
+    /**
+     * 创建物理连接（调用前已占用totalCount名额）
+     */
+    private PooledEntry createEntry() {
+        try {
+            Connection connection = DriverManager.getConnection(url, username, password);
+            MySqlStatementCache statementCache = statementCacheSize > 0
+                    ? new MySqlStatementCache(statementCacheSize, statementCacheHits, statementCacheMisses)
+                    : null;
+            try {
+                return new PooledEntry(connection, statementCache);
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+        } catch (SQLException e) {
+            totalCount.decrementAndGet();
+            signalEntryAvailable();
+            throw new RuntimeException("Failed to create database connection: " + e.getMessage(), e);
+        } catch (RuntimeException | Error e) {
+            totalCount.decrementAndGet();
+            signalEntryAvailable();
+            throw e;
+        }
+    }
+
+    /**
+     * 等待空闲连接被放回或物理连接名额被释放
+     */
+    private void awaitEntry(long deadlineNanos) {
+        entryLock.lock();
+        entryWaiters.incrementAndGet();
+        try {
+            // 先登记等待再检查，之后的放回或释放一定会唤醒本线程
+            if (idleEntries.isEmpty() && totalCount.get() >= maxTotal) {
+                long remaining = deadlineNanos - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new RuntimeException("Timed out after " + maxWaitMillis
+                            + "ms waiting for a database connection (pool maxTotal=" + maxTotal + ")");
+                }
+                entryAvailable.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a database connection", e);
+        } finally {
+            entryWaiters.decrementAndGet();
+            entryLock.unlock();
+        }
+    }
+
+    /**
+     * 空闲连接被放回或物理连接名额被释放后唤醒等待的线程（没有等待线程时不加锁）
+     */
+    private void signalEntryAvailable() {
+        if (entryWaiters.get() == 0) {
+            return;
+        }
+        entryLock.lock();
+        try {
+            entryAvailable.signalAll();
+        } finally {
+            entryLock.unlock();
+        }
+    }
+
+    /**
+     * 空闲超过校验间隔时才校验连接有效性
+     */
+    private boolean validateIfIdle(PooledEntry entry) {
+        if (System.currentTimeMillis() - entry.lastUsedMillis < validationIntervalMillis) {
+            return true;
+        }
+        try {
+            return entry.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection lease(PooledEntry entry) {
+        return (Connection) Proxy.newProxyInstance(
+                MySqlConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new PooledConnectionHandler(this, entry));
+    }
+
+    /**
+     * 归还连接：回滚未提交事务并恢复自动提交，借出期间修改过隔离级别、只读或数据库时恢复为创建时的值，
+     * 异常或已损坏的连接直接丢弃
+     */
+    private void release(PooledEntry entry) {
+        try {
+            if (closed || entry.broken || entry.connection.isClosed()) {
+                discard(entry);
+                return;
+            }
+            if (!entry.connection.getAutoCommit()) {
+                entry.connection.rollback();
+                entry.connection.setAutoCommit(true);
+            }
+            if (entry.sessionStateChanged) {
+                entry.resetSessionState();
+            }
+            entry.lastUsedMillis = System.currentTimeMillis();
+            idleEntries.offerFirst(entry);
+            signalEntryAvailable();
+        } catch (SQLException e) {
+            discard(entry);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 关闭物理连接（静默关闭，不抛出异常）
+     */
+    private void discard(PooledEntry entry) {
+        totalCount.decrementAndGet();
+        signalEntryAvailable();
+        if (entry.statementCache != null) {
+            entry.statementCache.clear();
+        }
+        try {
+            entry.connection.close();
+        } catch (Exception e) {
+            // 静默处理关闭异常
+        }
+    }
+
+    /**
+     * 回收超时空闲连接，并补足最小空闲连接
+     */
+    private void evictAndFill() {
+        if (closed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Iterator<PooledEntry> iterator = idleEntries.descendingIterator();
+        while (iterator.hasNext() && totalCount.get() > minIdle) {
+            PooledEntry entry = iterator.next();
+            // remove成功才说明该连接没有被并发借出
+            if (now - entry.lastUsedMillis > idleTimeoutMillis && idleEntries.remove(entry)) {
+                discard(entry);
+            }
+        }
+        while (!closed && idleEntries.size() < minIdle) {
+            int count = totalCount.get();
+            if (count >= maxTotal || !totalCount.compareAndSet(count, count + 1)) {
+                break;
+            }
+            try {
+                idleEntries.offerLast(createEntry());
+                signalEntryAvailable();
+            } catch (RuntimeException e) {
+                // 数据库暂不可用时下次再补充
+                break;
+            }
+        }
+    }
+
+    /**
+     * 获取连接池借出连接的预编译语句缓存
+     *
+     * @param connection 数据库连接
+     * @return 语句缓存，非连接池连接或未开启缓存返回null
+     */
+    static MySqlStatementCache statementCacheOf(Connection connection) {
+        if (connection != null && Proxy.isProxyClass(connection.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(connection);
+            if (handler instanceof TransactionBoundHandler) {
+                return statementCacheOf(((TransactionBoundHandler) handler).target);
+            }
+            if (handler instanceof PooledConnectionHandler) {
+                return ((PooledConnectionHandler) handler).entry.statementCache;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 包装事务中的连接：close()不归还连接池，提交、回滚和开启自动提交由事务管理方负责
+     *
+     * @param connection 开启了事务的连接
+     * @return 连接视图
+     */
+    static Connection transactionBound(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                MySqlConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new TransactionBoundHandler(connection));
+    }
+
+    /**
+     * 判断异常是否意味着物理连接已不可用
+     */
+    private static boolean isFatal(SQLException e) {
+        String state = e.getSQLState();
+        return e instanceof SQLNonTransientConnectionException || (state != null && state.startsWith("08"));
+    }
+
+    /**
+     * 池中的物理连接
+     */
+    static final class PooledEntry {
+        final Connection connection;
+        final MySqlStatementCache statementCache;
+        private final int defaultIsolation;
+        private final boolean defaultReadOnly;
+        private final String defaultCatalog;
+        volatile long lastUsedMillis = System.currentTimeMillis();
+        volatile boolean broken;
+        volatile boolean sessionStateChanged;
+
+        PooledEntry(Connection connection, MySqlStatementCache statementCache) throws SQLException {
+            this.connection = connection;
+            this.statementCache = statementCache;
+            this.defaultIsolation = connection.getTransactionIsolation();
+            this.defaultReadOnly = connection.isReadOnly();
+            this.defaultCatalog = connection.getCatalog();
+        }
+
+        /**
+         * 恢复创建时的隔离级别、只读状态和当前数据库
+         */
+        void resetSessionState() throws SQLException {
+            if (connection.getTransactionIsolation() != defaultIsolation) {
+                connection.setTransactionIsolation(defaultIsolation);
+            }
+            if (connection.isReadOnly() != defaultReadOnly) {
+                connection.setReadOnly(defaultReadOnly);
+            }
+            if (defaultCatalog != null && !defaultCatalog.equals(connection.getCatalog())) {
+                connection.setCatalog(defaultCatalog);
+            }
+            sessionStateChanged = false;
+        }
+    }
+
+    /**
+     * 借出连接的代理，close()归还而不是关闭物理连接
+     */
+    static final class PooledConnectionHandler implements InvocationHandler {
+        private final MySqlConnectionPool pool;
+        final PooledEntry entry;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        PooledConnectionHandler(MySqlConnectionPool pool, PooledEntry entry) {
+            this.pool = pool;
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            int argCount = args == null ? 0 : args.length;
+            if ("close".equals(name) && argCount == 0) {
+                if (released.compareAndSet(false, true)) {
+                    pool.release(entry);
+                }
+                return null;
+            }
+            if ("isClosed".equals(name) && argCount == 0) {
+                return released.get() || entry.connection.isClosed();
+            }
+            if ("equals".equals(name) && argCount == 1) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name) && argCount == 0) {
+                return System.identityHashCode(proxy);
+            }
+            if ("toString".equals(name) && argCount == 0) {
+                return "PooledConnection[" + entry.connection + "]";
+            }
+            if ("setTransactionIsolation".equals(name) || "setReadOnly".equals(name)
+                    || "setCatalog".equals(name) || "setSchema".equals(name)) {
+                entry.sessionStateChanged = true; // 归还时恢复
+            }
+            if (released.get()) {
+                throw new SQLException("Connection has already been returned to the pool", "08003");
+            }
+            try {
+                return method.invoke(entry.connection, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException && isFatal((SQLException) cause)) {
+                    entry.broken = true;
+                }
+                throw cause;
+            }
+        }
+    }
+
+    /**
+     * 事务连接视图的代理，防止事务内的调用提前归还连接或提交事务
+     */
+    static final class TransactionBoundHandler implements InvocationHandler {
+        final Connection target;
+
+        TransactionBoundHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            int argCount = args == null ? 0 : args.length;
+            if ("close".equals(name) && argCount == 0) {
+                return null; // 事务结束时统一归还
+            }
+            if (("commit".equals(name) || "rollback".equals(name)) && argCount == 0
+                    || "setAutoCommit".equals(name) && Boolean.TRUE.equals(args[0])) {
+                throw new SQLException("Connection is bound to a transaction, " + name
+                        + "() is managed by MySqlUtils.executeInTransaction", "25000");
+            }
+            if ("equals".equals(name) && argCount == 1) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name) && argCount == 0) {
+                return System.identityHashCode(proxy);
+            }
+            if ("toString".equals(name) && argCount == 0) {
+                return "TransactionBoundConnection[" + target + "]";
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
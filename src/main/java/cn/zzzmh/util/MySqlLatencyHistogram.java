@@ -0,0 +1,125 @@
+package cn.zzzmh.util;
+
+import com.alibaba.fastjson2.JSONObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对数线性分桶直方图（HDR风格）
+ * 每个2的幂区间分为16个子桶，相对误差约6%；记录时只做原子自增，不分配对象
+ *
+ * @author zzzmh
+ * @since 1.0.3
+ */
+final class MySqlLatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT >> 1;
+    // 最大可记录值约为2^44（微秒约200天），超出按最大值记录
+    private static final int MAX_SHIFT = 40;
+    private static final long MAX_VALUE = ((long) SUB_BUCKET_COUNT << MAX_SHIFT) - 1;
+
+    private final AtomicLongArray buckets = new AtomicLongArray((MAX_SHIFT + 2) * SUB_BUCKET_HALF);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一个值
+     *
+     * @param value 值（小于0按0记录）
+     */
+    void record(long value) {
+        long v = value < 0 ? 0 : Math.min(value, MAX_VALUE);
+        buckets.incrementAndGet(indexOf(v));
+        count.increment();
+        sum.add(v);
+        long current;
+        while (v > (current = max.get()) && !max.compareAndSet(current, v)) {
+            // 重试直到更新成功或已有更大值
+        }
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 估算分位数
+     *
+     * @param quantile 分位（0~1）
+     * @return 该分位所在桶的上界，没有数据时返回0
+     */
+    long percentile(double quantile) {
+        long total = 0;
+        int length = buckets.length();
+        long[] snapshot = new long[length];
+        for (int i = 0; i < length; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * 统计快照
+     *
+     * @param unitDivisor 输出单位换算（例如记录微秒、输出毫秒时为1000）
+     * @return count、mean、p50、p90、p99、p999、max
+     */
+    JSONObject snapshot(double unitDivisor) {
+        JSONObject snapshot = new JSONObject();
+        long n = count.sum();
+        snapshot.put("count", n);
+        snapshot.put("mean", n == 0 ? 0 : sum.sum() / (double) n / unitDivisor);
+        snapshot.put("p50", percentile(0.50) / unitDivisor);
+        snapshot.put("p90", percentile(0.90) / unitDivisor);
+        snapshot.put("p99", percentile(0.99) / unitDivisor);
+        snapshot.put("p999", percentile(0.999) / unitDivisor);
+        snapshot.put("max", max.get() / unitDivisor);
+        return snapshot;
+    }
+
+    void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    /**
+     * 小于32的值一一对应，之后每个2的幂区间16个桶
+     */
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return (shift << (SUB_BUCKET_BITS - 1)) + (int) (value >>> shift);
+    }
+
+    private static long upperBoundOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index >> (SUB_BUCKET_BITS - 1)) - 1;
+        long mantissa = index - ((long) shift << (SUB_BUCKET_BITS - 1));
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
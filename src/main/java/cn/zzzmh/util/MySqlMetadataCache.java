@@ -0,0 +1,119 @@
+package cn.zzzmh.util;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 表结构元数据缓存
+ * 缓存每张表的主键列和列类型，避免每次CRUD都查询DatabaseMetaData
+ *
+ * @author zzzmh
+ * @since 1.0.3
+ */
+final class MySqlMetadataCache {
+
+    private final ConcurrentHashMap<String, TableMetadata> tables = new ConcurrentHashMap<>();
+    private volatile long ttlMillis;
+
+    /**
+     * 获取表元数据，未缓存或已过期时从数据库加载
+     *
+     * @param connection 数据库连接
+     * @param catalog 数据库名（为空时使用连接当前数据库）
+     * @param tableName 表名
+     * @return 表元数据
+     * @throws SQLException 查询元数据失败
+     */
+    TableMetadata get(Connection connection, String catalog, String tableName) throws SQLException {
+        if (catalog == null || catalog.isEmpty()) {
+            catalog = connection.getCatalog();
+        }
+        String key = cacheKey(catalog, tableName);
+        TableMetadata metadata = tables.get(key);
+        long ttl = ttlMillis;
+        if (metadata != null && (ttl <= 0 || System.currentTimeMillis() - metadata.loadedMillis < ttl)) {
+            return metadata;
+        }
+        // 并发加载同一张表时结果一致，直接覆盖即可
+        metadata = load(connection, catalog, tableName);
+        tables.put(key, metadata);
+        return metadata;
+    }
+
+    /**
+     * 使指定表的缓存失效（所有数据库）
+     *
+     * @param tableName 表名
+     */
+    void invalidate(String tableName) {
+        String suffix = "." + tableName;
+        tables.keySet().removeIf(key -> key.endsWith(suffix));
+    }
+
+    /**
+     * 清空所有缓存
+     */
+    void clear() {
+        tables.clear();
+    }
+
+    /**
+     * 设置缓存有效期
+     *
+     * @param ttlMillis 有效期（毫秒），小于等于0表示永不过期
+     */
+    void setTtlMillis(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    private static String cacheKey(String catalog, String tableName) {
+        return (catalog == null ? "" : catalog) + "." + tableName;
+    }
+
+    private static TableMetadata load(Connection connection, String catalog, String tableName) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        List<String> primaryKeys = new ArrayList<>();
+        try (ResultSet rs = metaData.getPrimaryKeys(catalog, null, tableName)) {
+            // 按KEY_SEQ排序，保证联合主键顺序
+            List<Object[]> keys = new ArrayList<>();
+            while (rs.next()) {
+                keys.add(new Object[]{rs.getShort("KEY_SEQ"), rs.getString("COLUMN_NAME")});
+            }
+            keys.sort((a, b) -> Short.compare((Short) a[0], (Short) b[0]));
+            for (Object[] key : keys) {
+                primaryKeys.add((String) key[1]);
+            }
+        }
+        Map<String, Integer> columnTypes = new LinkedHashMap<>();
+        try (ResultSet rs = metaData.getColumns(catalog, null, tableName, null)) {
+            while (rs.next()) {
+                columnTypes.put(rs.getString("COLUMN_NAME"), rs.getInt("DATA_TYPE"));
+            }
+        }
+        return new TableMetadata(Collections.unmodifiableList(primaryKeys),
+                Collections.unmodifiableMap(columnTypes), System.currentTimeMillis());
+    }
+
+    /**
+     * 单张表的元数据（不可变）
+     */
+    static final class TableMetadata {
+        final List<String> primaryKeys;
+        final Map<String, Integer> columnTypes;
+        final long loadedMillis;
+
+        TableMetadata(List<String> primaryKeys, Map<String, Integer> columnTypes, long loadedMillis) {
+            this.primaryKeys = primaryKeys;
+            this.columnTypes = columnTypes;
+            this.loadedMillis = loadedMillis;
+        }
+    }
+}
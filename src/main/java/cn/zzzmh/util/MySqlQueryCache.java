@@ -0,0 +1,289 @@
+package cn.zzzmh.util;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import redis.clients.jedis.Jedis;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 查询结果缓存
+ * 为selectById/selectByCondition提供读穿透缓存，键为表名+规范化SQL+参数，
+ * 对同一张表的写操作会使该表的全部缓存失效
+ *
+ * 本地模式使用进程内LRU；Redis模式把每张表的缓存存放在一个Redis Hash中，多个节点共享且失效同步，
+ * 另用一个有序集合按写入时间索引各字段，写入时删除过期字段并把字段数限制在maxEntries以内。
+ *
+ * @author zzzmh
+ * @since 1.0.3
+ */
+final class MySqlQueryCache {
+
+    private static final String REDIS_KEY_PREFIX = "mysql:query-cache:";
+    private static final String INDEX_KEY_SUFFIX = ":index";
+    private static final String GENERATION_FIELD = "__gen";
+    private static final long REDIS_HASH_EXPIRE_FACTOR = 10;
+
+    // 仅当表的版本号未变化时才写入，避免查询期间发生的写操作被旧结果覆盖；
+    // 同时删除写入时间早于ARGV[6]的字段，以及超出ARGV[7]条的最早写入的字段
+    private static final RedisScript REDIS_PUT_SCRIPT = new RedisScript(
+            "if (redis.call('hget', KEYS[1], '" + GENERATION_FIELD + "') or '0') ~= ARGV[1] then return 0 end; " +
+            "redis.call('hset', KEYS[1], ARGV[2], ARGV[3]); " +
+            "redis.call('zadd', KEYS[2], ARGV[5], ARGV[2]); " +
+            "local expired = redis.call('zrangebyscore', KEYS[2], '-inf', '(' .. ARGV[6]); " +
+            "for i = 1, #expired do redis.call('hdel', KEYS[1], expired[i]) end; " +
+            "if #expired > 0 then redis.call('zremrangebyscore', KEYS[2], '-inf', '(' .. ARGV[6]) end; " +
+            "local excess = redis.call('zcard', KEYS[2]) - tonumber(ARGV[7]); " +
+            "if excess > 0 then " +
+            "local oldest = redis.call('zrange', KEYS[2], 0, excess - 1); " +
+            "for i = 1, #oldest do redis.call('hdel', KEYS[1], oldest[i]) end; " +
+            "redis.call('zremrangebyrank', KEYS[2], 0, excess - 1); end; " +
+            "redis.call('pexpire', KEYS[1], ARGV[4]); redis.call('pexpire', KEYS[2], ARGV[4]); return 1");
+
+    // 版本号加一并清空该表的缓存及索引
+    private static final RedisScript REDIS_INVALIDATE_SCRIPT = new RedisScript(
+            "local g = redis.call('hincrby', KEYS[1], '" + GENERATION_FIELD + "', 1); " +
+            "redis.call('del', KEYS[1], KEYS[2]); redis.call('hset', KEYS[1], '" + GENERATION_FIELD + "', g); " +
+            "redis.call('pexpire', KEYS[1], ARGV[1]); return g");
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final boolean redisBacked;
+    private final Map<String, CacheEntry> entries;
+    private final ConcurrentHashMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder redisErrors = new LongAdder();
+    private volatile String lastRedisError;
+
+    MySqlQueryCache(int maxEntries, long ttlMillis, boolean redisBacked) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Query cache max entries must be greater than 0");
+        }
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("Query cache ttl must be greater than 0");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.redisBacked = redisBacked;
+        this.entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > MySqlQueryCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 读取缓存，未命中时调用loader查询并写入缓存
+     *
+     * @param tableName 表名
+     * @param sql SQL语句
+     * @param params 参数
+     * @param loader 查询数据库
+     * @param <T> JSONObject或JSONArray
+     * @return 查询结果副本
+     */
+    <T> T get(String tableName, String sql, Object[] params, Supplier<T> loader) {
+        String key = normalize(sql) + '\u0001' + JSON.toJSONString(params);
+        return redisBacked ? RedisStore.get(this, tableName, key, loader) : getLocal(tableName, key, loader);
+    }
+
+    /**
+     * 使指定表的全部缓存失效
+     *
+     * @param tableName 表名
+     */
+    void invalidate(String tableName) {
+        generations.computeIfAbsent(tableName, t -> new AtomicLong()).incrementAndGet();
+        if (redisBacked) {
+            RedisStore.invalidate(this, tableName);
+        }
+    }
+
+    /**
+     * 清空本地缓存（Redis模式下各表缓存随版本号失效或过期）
+     */
+    void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * 缓存统计
+     *
+     * @return 命中数、未命中数、当前条目数、Redis错误数及最近一次错误
+     */
+    JSONObject stats() {
+        JSONObject stats = new JSONObject();
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        synchronized (entries) {
+            stats.put("size", entries.size());
+        }
+        stats.put("redisBacked", redisBacked);
+        stats.put("redisErrors", redisErrors.sum());
+        stats.put("lastRedisError", lastRedisError);
+        return stats;
+    }
+
+    // ========== 本地缓存 ==========
+
+    @SuppressWarnings("unchecked")
+    private <T> T getLocal(String tableName, String key, Supplier<T> loader) {
+        String cacheKey = tableName + '\u0001' + key;
+        AtomicLong generation = generations.computeIfAbsent(tableName, t -> new AtomicLong());
+        long now = System.currentTimeMillis();
+        CacheEntry entry;
+        synchronized (entries) {
+            entry = entries.get(cacheKey);
+        }
+        if (entry != null && entry.generation == generation.get() && now - entry.createdMillis < ttlMillis) {
+            hits.increment();
+            return (T) copy(entry.value);
+        }
+
+        misses.increment();
+        // 先记录版本号再查询，查询期间发生写操作时该结果写入后即视为过期
+        long loadGeneration = generation.get();
+        T value = loader.get();
+        synchronized (entries) {
+            entries.put(cacheKey, new CacheEntry(value, loadGeneration, now));
+        }
+        return copy(value);
+    }
+
+    // ========== 辅助方法 ==========
+
+    /**
+     * 记录Redis错误（缓存不可用时直接查询数据库，不影响调用方）
+     */
+    private void recordRedisError(Exception e) {
+        redisErrors.increment();
+        lastRedisError = e.getMessage();
+    }
+
+    /**
+     * 规范化SQL：去掉首尾空白并合并连续空白
+     */
+    private static String normalize(String sql) {
+        StringBuilder sb = new StringBuilder(sql.length());
+        boolean whitespace = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                whitespace = sb.length() > 0;
+            } else {
+                if (whitespace) {
+                    sb.append(' ');
+                    whitespace = false;
+                }
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 复制缓存值，避免调用方修改结果影响缓存（行内的值均为不可变类型）
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T copy(T value) {
+        if (value instanceof JSONObject) {
+            return (T) new JSONObject((JSONObject) value);
+        }
+        if (value instanceof JSONArray) {
+            JSONArray source = (JSONArray) value;
+            JSONArray target = new JSONArray(source.size());
+            for (Object row : source) {
+                target.add(row instanceof JSONObject ? new JSONObject((JSONObject) row) : row);
+            }
+            return (T) target;
+        }
+        return value;
+    }
+
+    /**
+     * Redis存储（独立为内部类，本地模式下不加载Jedis）
+     */
+    private static final class RedisStore {
+
+        @SuppressWarnings("unchecked")
+        static <T> T get(MySqlQueryCache cache, String tableName, String key, Supplier<T> loader) {
+            String redisKey = REDIS_KEY_PREFIX + tableName;
+            String field = HashUtils.md5(key);
+            String generation;
+            try (Jedis jedis = RedisUtils.createConnection()) {
+                List<String> values = jedis.hmget(redisKey, field, GENERATION_FIELD);
+                String cached = values.get(0);
+                generation = values.get(1) == null ? "0" : values.get(1);
+                if (cached != null) {
+                    JSONObject wrapper = JSONObject.parseObject(cached);
+                    if (System.currentTimeMillis() - wrapper.getLongValue("t") < cache.ttlMillis) {
+                        cache.hits.increment();
+                        return (T) wrapper.get("v");
+                    }
+                }
+            } catch (Exception e) {
+                // Redis不可用时按未命中处理，不知道版本号也就不写回缓存
+                cache.recordRedisError(e);
+                cache.misses.increment();
+                return loader.get();
+            }
+
+            cache.misses.increment();
+            T value = loader.get();
+            long now = System.currentTimeMillis();
+            JSONObject wrapper = new JSONObject();
+            wrapper.put("t", now);
+            wrapper.put("v", value);
+            try (Jedis jedis = RedisUtils.createConnection()) {
+                REDIS_PUT_SCRIPT.eval(jedis, Arrays.asList(redisKey, redisKey + INDEX_KEY_SUFFIX), Arrays.asList(
+                        generation, field, wrapper.toJSONString(),
+                        String.valueOf(cache.ttlMillis * REDIS_HASH_EXPIRE_FACTOR), String.valueOf(now),
+                        String.valueOf(now - cache.ttlMillis), String.valueOf(cache.maxEntries)));
+            } catch (Exception e) {
+                // 写缓存失败不影响查询结果
+                cache.recordRedisError(e);
+            }
+            return value;
+        }
+
+        /**
+         * 失效该表的缓存；在写操作的finally中调用，失败时只记录不抛出，
+         * 避免已提交的写操作被报告为失败，或掩盖写操作本身的异常
+         */
+        static void invalidate(MySqlQueryCache cache, String tableName) {
+            String redisKey = REDIS_KEY_PREFIX + tableName;
+            try (Jedis jedis = RedisUtils.createConnection()) {
+                REDIS_INVALIDATE_SCRIPT.eval(jedis, Arrays.asList(redisKey, redisKey + INDEX_KEY_SUFFIX),
+                        Collections.singletonList(String.valueOf(cache.ttlMillis * REDIS_HASH_EXPIRE_FACTOR)));
+            } catch (Exception e) {
+                // 其他节点在缓存有效期内可能读到旧值，通过redisErrors可以发现
+                cache.recordRedisError(e);
+            }
+        }
+    }
+
+    private static final class CacheEntry {
+        final Object value;
+        final long generation;
+        final long createdMillis;
+
+        CacheEntry(Object value, long generation, long createdMillis) {
+            this.value = value;
+            this.generation = generation;
+            this.createdMillis = createdMillis;
+        }
+    }
+}
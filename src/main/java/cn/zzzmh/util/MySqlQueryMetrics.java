@@ -0,0 +1,398 @@
+package cn.zzzmh.util;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MySqlUtils语句执行统计
+ * 按操作类型记录耗时直方图、行数、批量大小，保留最近的慢查询（按比例采样参数），
+ * 可通过getSnapshot()导出JSONObject，或在JMX中查看（cn.zzzmh.util:type=MySqlUtils,name=QueryMetrics）
+ *
+ * @author zzzmh
+ * @since 1.0.3
+ */
+public final class MySqlQueryMetrics {
+
+    /**
+     * JMX对象名
+     */
+    public static final String OBJECT_NAME = "cn.zzzmh.util:type=MySqlUtils,name=QueryMetrics";
+
+    private static final int SLOW_LOG_SIZE = 128;
+    private static final int MAX_SQL_LENGTH = 2000;
+
+    /**
+     * 语句类型
+     */
+    public enum Operation {
+        /** 查询 */
+        QUERY,
+        /** 更新/删除 */
+        UPDATE,
+        /** 单条插入 */
+        INSERT,
+        /** 批量写入（批量插入、upsert、批量更新删除） */
+        BATCH,
+        /** 流式查询（耗时为打开结果集的时间） */
+        STREAM,
+        /** LOAD DATA批量导入 */
+        BULK_LOAD
+    }
+
+    /**
+     * 语句执行监听器（在执行语句的线程中同步调用，需要快速返回）
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onStatement(StatementEvent event);
+    }
+
+    /**
+     * JMX接口
+     */
+    public interface MBean {
+        long getTotalStatements();
+
+        long getTotalErrors();
+
+        long getSlowStatements();
+
+        double getQueryP99Millis();
+
+        double getUpdateP99Millis();
+
+        String getSnapshotJson();
+
+        void reset();
+    }
+
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicReferenceArray<JSONObject> slowLog = new AtomicReferenceArray<>(SLOW_LOG_SIZE);
+    private final AtomicLong slowCount = new AtomicLong();
+    private final long slowThresholdNanos;
+    private final double paramSampleRate;
+    private ObjectName registeredName;
+
+    /**
+     * 创建统计器
+     *
+     * @param slowThresholdMillis 慢查询阈值（毫秒）
+     * @param paramSampleRate 慢查询参数采样比例（0~1，0表示不记录参数）
+     */
+    MySqlQueryMetrics(long slowThresholdMillis, double paramSampleRate) {
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+        this.slowThresholdNanos = slowThresholdMillis * 1_000_000L;
+        this.paramSampleRate = paramSampleRate;
+    }
+
+    /**
+     * 记录一次语句执行
+     *
+     * @param operation 语句类型
+     * @param sql SQL语句
+     * @param params 参数（可为null）
+     * @param elapsedNanos 耗时（纳秒）
+     * @param rows 返回或影响的行数，失败时为-1
+     * @param batchSize 批量行数（非批量为0）
+     * @param error 异常（成功为null）
+     */
+    void record(Operation operation, String sql, Object[] params, long elapsedNanos, long rows, int batchSize,
+                Throwable error) {
+        OperationStats operationStats = stats.get(operation);
+        operationStats.latency.record(elapsedNanos / 1000);
+        if (error != null) {
+            operationStats.errors.increment();
+        } else if (rows > 0) {
+            operationStats.rows.add(rows);
+        }
+        if (batchSize > 0) {
+            operationStats.batchSizes.record(batchSize);
+        }
+        if (elapsedNanos >= slowThresholdNanos) {
+            recordSlow(operation, sql, params, elapsedNanos, rows, error);
+        }
+        if (!listeners.isEmpty()) {
+            StatementEvent event = new StatementEvent(operation, sql, params, elapsedNanos, rows, batchSize, error);
+            for (Listener listener : listeners) {
+                try {
+                    listener.onStatement(event);
+                } catch (RuntimeException e) {
+                    // 监听器异常不影响语句执行
+                }
+            }
+        }
+    }
+
+    /**
+     * 写入慢查询环形缓冲区
+     */
+    private void recordSlow(Operation operation, String sql, Object[] params, long elapsedNanos, long rows,
+                            Throwable error) {
+        JSONObject entry = new JSONObject();
+        entry.put("time", System.currentTimeMillis());
+        entry.put("operation", operation.name());
+        entry.put("sql", sql != null && sql.length() > MAX_SQL_LENGTH ? sql.substring(0, MAX_SQL_LENGTH) + "..." : sql);
+        entry.put("elapsedMillis", elapsedNanos / 1_000_000.0);
+        entry.put("rows", rows);
+        if (error != null) {
+            entry.put("error", error.getMessage());
+        }
+        if (params != null && params.length > 0 && paramSampleRate > 0
+                && ThreadLocalRandom.current().nextDouble() < paramSampleRate) {
+            entry.put("params", JSON.toJSONString(params));
+        }
+        long index = slowCount.getAndIncrement();
+        slowLog.set((int) (index % SLOW_LOG_SIZE), entry);
+    }
+
+    /**
+     * 添加监听器
+     *
+     * @param listener 监听器
+     */
+    public void addListener(Listener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * 移除监听器
+     *
+     * @param listener 监听器
+     */
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 统计快照
+     *
+     * @return operations（各类型count、errors、rows、latencyMillis、batchSize）、slowQueries（最近的慢查询，新的在前）、
+     *         slowQueryCount、slowQueryThresholdMillis
+     */
+    public JSONObject getSnapshot() {
+        JSONObject snapshot = new JSONObject();
+        JSONObject operations = new JSONObject();
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            OperationStats operationStats = entry.getValue();
+            if (operationStats.latency.getCount() == 0) {
+                continue;
+            }
+            JSONObject item = new JSONObject();
+            item.put("count", operationStats.latency.getCount());
+            item.put("errors", operationStats.errors.sum());
+            item.put("rows", operationStats.rows.sum());
+            item.put("latencyMillis", operationStats.latency.snapshot(1000.0));
+            if (operationStats.batchSizes.getCount() > 0) {
+                item.put("batchSize", operationStats.batchSizes.snapshot(1.0));
+            }
+            operations.put(entry.getKey().name(), item);
+        }
+        snapshot.put("operations", operations);
+
+        JSONArray slowQueries = new JSONArray();
+        long end = slowCount.get();
+        for (long i = end - 1; i >= Math.max(0, end - SLOW_LOG_SIZE); i--) {
+            JSONObject entry = slowLog.get((int) (i % SLOW_LOG_SIZE));
+            if (entry != null) {
+                slowQueries.add(entry);
+            }
+        }
+        snapshot.put("slowQueries", slowQueries);
+        snapshot.put("slowQueryCount", end);
+        snapshot.put("slowQueryThresholdMillis", slowThresholdNanos / 1_000_000L);
+        return snapshot;
+    }
+
+    /**
+     * 清空统计
+     */
+    public void reset() {
+        for (OperationStats operationStats : stats.values()) {
+            operationStats.latency.reset();
+            operationStats.batchSizes.reset();
+            operationStats.errors.reset();
+            operationStats.rows.reset();
+        }
+        for (int i = 0; i < SLOW_LOG_SIZE; i++) {
+            slowLog.set(i, null);
+        }
+        slowCount.set(0);
+    }
+
+    /**
+     * 注册到平台MBeanServer（重复注册时替换旧对象）
+     */
+    synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(new StandardMBean(new JmxView(), MBean.class), name);
+            registeredName = name;
+        } catch (Exception e) {
+            // JMX不可用时不影响统计
+        }
+    }
+
+    /**
+     * 从平台MBeanServer注销
+     */
+    synchronized void unregisterMBean() {
+        if (registeredName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+        } catch (Exception e) {
+            // 静默处理注销异常
+        }
+        registeredName = null;
+    }
+
+    private double p99Millis(Operation operation) {
+        return stats.get(operation).latency.percentile(0.99) / 1000.0;
+    }
+
+    /**
+     * 单类语句统计
+     */
+    private static final class OperationStats {
+        final MySqlLatencyHistogram latency = new MySqlLatencyHistogram();
+        final MySqlLatencyHistogram batchSizes = new MySqlLatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        final LongAdder rows = new LongAdder();
+    }
+
+    /**
+     * JMX视图
+     */
+    private final class JmxView implements MBean {
+        @Override
+        public long getTotalStatements() {
+            long total = 0;
+            for (OperationStats operationStats : stats.values()) {
+                total += operationStats.latency.getCount();
+            }
+            return total;
+        }
+
+        @Override
+        public long getTotalErrors() {
+            long total = 0;
+            for (OperationStats operationStats : stats.values()) {
+                total += operationStats.errors.sum();
+            }
+            return total;
+        }
+
+        @Override
+        public long getSlowStatements() {
+            return slowCount.get();
+        }
+
+        @Override
+        public double getQueryP99Millis() {
+            return p99Millis(Operation.QUERY);
+        }
+
+        @Override
+        public double getUpdateP99Millis() {
+            return p99Millis(Operation.UPDATE);
+        }
+
+        @Override
+        public String getSnapshotJson() {
+            return MySqlUtils.getMetricsSnapshot().toJSONString();
+        }
+
+        @Override
+        public void reset() {
+            MySqlQueryMetrics.this.reset();
+        }
+    }
+
+    /**
+     * 语句执行事件
+     */
+    public static final class StatementEvent {
+        private final Operation operation;
+        private final String sql;
+        private final Object[] params;
+        private final long elapsedNanos;
+        private final long rows;
+        private final int batchSize;
+        private final Throwable error;
+
+        StatementEvent(Operation operation, String sql, Object[] params, long elapsedNanos, long rows, int batchSize,
+                       Throwable error) {
+            this.operation = operation;
+            this.sql = sql;
+            this.params = params;
+            this.elapsedNanos = elapsedNanos;
+            this.rows = rows;
+            this.batchSize = batchSize;
+            this.error = error;
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        /**
+         * 参数（批量语句为null）
+         */
+        public Object[] getParams() {
+            return params;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * 返回或影响的行数，失败时为-1
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * 批量行数，非批量语句为0
+         */
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        /**
+         * 异常，成功时为null
+         */
+        public Throwable getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package cn.zzzmh.util;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MySQL从库集合
+ * 为MySqlUtils的读操作挑选从库连接池，支持轮询、最少在途请求两种负载均衡方式
+ *
+ * 从库连接失败后标记为不可用，在重试间隔内不再分配读请求；间隔过后放行请求试探，
+ * 成功即恢复，失败则继续隔离。所有从库不可用时由调用方回退到主库。
+ *
+ * @author zzzmh
+ * @since 1.0.3
+ */
+final class MySqlReplicaSet implements AutoCloseable {
+
+    private final Replica[] replicas;
+    private final MySqlUtils.LoadBalance loadBalance;
+    private final long retryIntervalMillis;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * 创建从库集合
+     *
+     * @param urls 从库URL
+     * @param pools 与URL一一对应的从库连接池
+     * @param loadBalance 负载均衡方式
+     * @param retryIntervalMillis 从库不可用后的隔离时间（毫秒）
+     */
+    MySqlReplicaSet(List<String> urls, List<MySqlConnectionPool> pools, MySqlUtils.LoadBalance loadBalance,
+                    long retryIntervalMillis) {
+        if (pools.isEmpty()) {
+            throw new IllegalArgumentException("Replica list cannot be empty");
+        }
+        this.replicas = new Replica[pools.size()];
+        for (int i = 0; i < replicas.length; i++) {
+            replicas[i] = new Replica(urls.get(i), pools.get(i));
+        }
+        this.loadBalance = loadBalance == null ? MySqlUtils.LoadBalance.ROUND_ROBIN : loadBalance;
+        this.retryIntervalMillis = retryIntervalMillis;
+    }
+
+    /**
+     * 从库数量
+     */
+    int size() {
+        return replicas.length;
+    }
+
+    /**
+     * 挑选一个可用从库
+     *
+     * @param excluded 本次请求已失败的从库（可为null）
+     * @return 从库，没有可用从库时返回null
+     */
+    Replica select(Replica excluded) {
+        long now = System.currentTimeMillis();
+        int start = Math.floorMod(next.getAndIncrement(), replicas.length);
+        Replica selected = null;
+        int selectedActive = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.length; i++) {
+            Replica replica = replicas[(start + i) % replicas.length];
+            if (replica == excluded || replica.unavailableUntil > now) {
+                continue;
+            }
+            if (loadBalance == MySqlUtils.LoadBalance.ROUND_ROBIN) {
+                return replica;
+            }
+            int active = replica.pool.getActiveCount();
+            if (active < selectedActive) {
+                selected = replica;
+                selectedActive = active;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * 标记从库不可用
+     */
+    void markUnavailable(Replica replica) {
+        replica.unavailableUntil = System.currentTimeMillis() + retryIntervalMillis;
+        replica.failures.incrementAndGet();
+    }
+
+    /**
+     * 从库状态
+     *
+     * @return 每个从库的url、available、active、idle、failures
+     */
+    JSONArray status() {
+        long now = System.currentTimeMillis();
+        JSONArray status = new JSONArray(replicas.length);
+        for (Replica replica : replicas) {
+            JSONObject item = new JSONObject();
+            item.put("url", replica.url);
+            item.put("available", replica.unavailableUntil <= now);
+            item.put("active", replica.pool.getActiveCount());
+            item.put("idle", replica.pool.getIdleCount());
+            item.put("failures", replica.failures.get());
+            status.add(item);
+        }
+        return status;
+    }
+
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+    }
+
+    /**
+     * 单个从库
+     */
+    static final class Replica {
+        final String url;
+        final MySqlConnectionPool pool;
+        final AtomicInteger failures = new AtomicInteger();
+        volatile long unavailableUntil;
+
+        Replica(String url, MySqlConnectionPool pool) {
+            this.url = url;
+            this.pool = pool;
+        }
+    }
+}
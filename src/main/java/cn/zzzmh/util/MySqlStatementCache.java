@@ -0,0 +1,153 @@
+package cn.zzzmh.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 预编译语句缓存
+ * 每个连接池物理连接持有一个LRU缓存，按（SQL，是否返回主键）复用PreparedStatement
+ *
+ * 语句借出期间从缓存中移除，归还时再放回，同一连接被并发使用时也不会共用同一个语句。
+ *
+ * @author zzzmh
+ * @since 1.0.3
+ */
+final class MySqlStatementCache {
+
+    private final int maxSize;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+
+    MySqlStatementCache(int maxSize, LongAdder hits, LongAdder misses) {
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * 从连接的语句缓存获取预编译语句，未命中或连接不在连接池中时新建
+     *
+     * @param connection 数据库连接
+     * @param sql SQL语句
+     * @param returnKeys 是否返回自增主键
+     * @return 缓存语句，使用完毕后调用close()归还
+     * @throws SQLException 预编译失败
+     */
+    static CachedStatement prepare(Connection connection, String sql, boolean returnKeys) throws SQLException {
+        MySqlStatementCache cache = MySqlConnectionPool.statementCacheOf(connection);
+        String key = cacheKey(sql, returnKeys);
+        PreparedStatement stmt = cache != null ? cache.take(key) : null;
+        if (stmt == null) {
+            stmt = returnKeys
+                    ? connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                    : connection.prepareStatement(sql);
+        }
+        return new CachedStatement(cache, key, stmt);
+    }
+
+    private static String cacheKey(String sql, boolean returnKeys) {
+        return (returnKeys ? 'K' : 'N') + sql;
+    }
+
+    /**
+     * 取出缓存语句（借出期间不在缓存中）
+     */
+    private synchronized PreparedStatement take(String key) {
+        PreparedStatement stmt = statements.remove(key);
+        if (stmt != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return stmt;
+    }
+
+    /**
+     * 归还语句，缓存已满时关闭最久未使用的语句
+     *
+     * @return 是否已放回缓存
+     */
+    private boolean offer(String key, PreparedStatement stmt) {
+        try {
+            if (stmt.isClosed()) {
+                return false;
+            }
+            stmt.clearParameters();
+            stmt.clearBatch();
+        } catch (SQLException e) {
+            return false;
+        }
+        PreparedStatement eldest = null;
+        synchronized (this) {
+            if (statements.containsKey(key)) {
+                return false;
+            }
+            statements.put(key, stmt);
+            if (statements.size() > maxSize) {
+                Iterator<Map.Entry<String, PreparedStatement>> iterator = statements.entrySet().iterator();
+                eldest = iterator.next().getValue();
+                iterator.remove();
+            }
+        }
+        closeQuietly(eldest);
+        return true;
+    }
+
+    /**
+     * 关闭并清空所有缓存语句
+     */
+    void clear() {
+        PreparedStatement[] closing;
+        synchronized (this) {
+            closing = statements.values().toArray(new PreparedStatement[0]);
+            statements.clear();
+        }
+        for (PreparedStatement stmt : closing) {
+            closeQuietly(stmt);
+        }
+    }
+
+    private static void closeQuietly(Statement stmt) {
+        if (stmt != null) {
+            try {
+                stmt.close();
+            } catch (Exception e) {
+                // 静默处理关闭异常
+            }
+        }
+    }
+
+    /**
+     * 借出的缓存语句，close()归还缓存而不是关闭语句
+     */
+    static final class CachedStatement implements AutoCloseable {
+        private final MySqlStatementCache cache;
+        private final String key;
+        private final PreparedStatement statement;
+
+        private CachedStatement(MySqlStatementCache cache, String key, PreparedStatement statement) {
+            this.cache = cache;
+            this.key = key;
+            this.statement = statement;
+        }
+
+        PreparedStatement statement() {
+            return statement;
+        }
+
+        @Override
+        public void close() {
+            if (cache == null || !cache.offer(key, statement)) {
+                closeQuietly(statement);
+            }
+        }
+    }
+}
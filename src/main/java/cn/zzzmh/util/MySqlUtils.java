@@ -7,10 +7,37 @@ import java.sql.*;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.UUID;
 import java.util.Properties;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 /**
  * MySQL工具类
@@ -26,7 +53,57 @@ public class MySqlUtils {
     private static String username;
     private static String password;
     private static String database;
-    private static Connection globalConnection;
+    private static volatile MySqlConnectionPool connectionPool;
+
+    // 参数初始化时使用的URL模板（开启批量语句重写，executeBatch合并为多行INSERT）
+    private static final String URL_TEMPLATE =
+            "jdbc:mysql://%s:%d/%s?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true";
+
+    // 连接池默认配置
+    private static final int DEFAULT_POOL_MAX_TOTAL = 20;
+    private static final int DEFAULT_POOL_MIN_IDLE = 2;
+    private static final long DEFAULT_POOL_MAX_WAIT = 30000L;
+    private static final long DEFAULT_POOL_IDLE_TIMEOUT = 600000L;
+    private static final long DEFAULT_POOL_VALIDATION_INTERVAL = 30000L;
+    private static final int DEFAULT_STATEMENT_CACHE_SIZE = 256;
+
+    // 表结构元数据缓存
+    private static final MySqlMetadataCache metadataCache = new MySqlMetadataCache();
+
+    // 多行VALUES批量插入：单条语句占max_allowed_packet的比例上限，以及查询失败时的默认值
+    private static final double MULTI_VALUES_PACKET_RATIO = 0.75;
+    private static final long DEFAULT_MAX_ALLOWED_PACKET = 4L * 1024 * 1024;
+    private static volatile long maxAllowedPacket = -1;
+
+    // 单条预编译语句的占位符上限，以及批量删除IN列表的默认长度
+    private static final int MAX_PLACEHOLDERS = 65535;
+
+    // 并行插入分片重试的退避时间
+    private static final long RETRY_BASE_BACKOFF_MILLIS = 100L;
+    private static final long RETRY_MAX_BACKOFF_MILLIS = 2000L;
+    private static final int DEFAULT_IN_CHUNK_SIZE = 1000;
+
+    // 从库集合（未配置时读写都走主库）
+    private static volatile MySqlReplicaSet replicaSet;
+    private static final long DEFAULT_REPLICA_RETRY_INTERVAL = 30000L;
+
+    // 查询结果缓存（默认关闭），以及当前线程事务内写过的表（提交/回滚后再次失效）
+    private static volatile MySqlQueryCache queryCache;
+    private static final ThreadLocal<Set<String>> transactionWrittenTables = new ThreadLocal<>();
+
+    // 当前线程绑定的事务（事务中的静态方法复用事务连接）
+    private static final ThreadLocal<TransactionContext> currentTransaction = new ThreadLocal<>();
+
+    // 异步执行器（懒加载，默认并发数与连接池最大连接数一致）
+    private static final int DEFAULT_ASYNC_QUEUE_CAPACITY = 1000;
+    private static volatile MySqlAsyncExecutor asyncExecutor;
+
+    // 语句执行统计（默认关闭）
+    private static volatile MySqlQueryMetrics queryMetrics;
+
+    // 流式查询读取模式
+    private static volatile FetchMode streamFetchMode = FetchMode.STREAMING;
+    private static volatile int streamFetchSize = 1000;
     
     // 添加JVM关闭钩子，自动关闭连接
     static {
@@ -45,14 +122,20 @@ public class MySqlUtils {
     /**
      * 初始化数据库连接（从配置文件读取参数）
      * 配置文件：resources/config.properties
-     * 参数：url, username, password
+     * 参数：url, username, password, pool.*
      * 
      * Configuration file example:
      * url=jdbc:mysql://localhost:3306/your_database?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true
      * username=your_username
      * password=your_password
+     * pool.maxTotal=20
+     * pool.minIdle=2
+     * pool.maxWait=30000
+     * pool.idleTimeout=600000
+     * pool.validationInterval=30000
+     * pool.statementCacheSize=256
      * 
-     * @return 数据库连接
+     * @return 数据库连接（独立于连接池，由调用方关闭；不带连接参数的静态方法使用连接池）
      */
     public static Connection init() {
         try {
@@ -108,13 +191,34 @@ public class MySqlUtils {
                 );
             }
             
-            // 确保配置文件的连接成为globalConnection（优先级最高）
-            Connection connection = DriverManager.getConnection(url, username, password);
+            // 连接池参数默认值
+            int poolMaxTotal = parseInt(props.getProperty("pool.maxTotal"), DEFAULT_POOL_MAX_TOTAL);
+            int poolMinIdle = parseInt(props.getProperty("pool.minIdle"), DEFAULT_POOL_MIN_IDLE);
+            long poolMaxWait = parseLong(props.getProperty("pool.maxWait"), DEFAULT_POOL_MAX_WAIT);
+            long poolIdleTimeout = parseLong(props.getProperty("pool.idleTimeout"), DEFAULT_POOL_IDLE_TIMEOUT);
+            long poolValidationInterval = parseLong(props.getProperty("pool.validationInterval"), DEFAULT_POOL_VALIDATION_INTERVAL);
+            int statementCacheSize = parseInt(props.getProperty("pool.statementCacheSize"), DEFAULT_STATEMENT_CACHE_SIZE);
             
-            // 强制设置为全局连接，即使之前已经初始化过
-            parseUrlAndSetGlobalParams(url, username, password);
-            globalConnection = connection;
+            // 确保配置文件的连接成为全局连接池（优先级最高）
+            Connection connection = init(url, username, password, poolMaxTotal, poolMinIdle, poolMaxWait, poolIdleTimeout,
+                        poolValidationInterval, statementCacheSize);
             
+            // 可选的从库配置：replica.urls=url1,url2
+            String replicaUrls = props.getProperty("replica.urls");
+            if (replicaUrls != null && !replicaUrls.trim().isEmpty()) {
+                List<String> urls = new ArrayList<>();
+                for (String replicaUrl : replicaUrls.split(",")) {
+                    if (!replicaUrl.trim().isEmpty()) {
+                        urls.add(replicaUrl.trim());
+                    }
+                }
+                String loadBalance = props.getProperty("replica.loadBalance");
+                setReplicaSet(createReplicaSet(urls,
+                        props.getProperty("replica.username", username), props.getProperty("replica.password", password),
+                        loadBalance == null ? LoadBalance.ROUND_ROBIN : LoadBalance.valueOf(loadBalance.trim().toUpperCase()),
+                        poolMaxTotal, poolMinIdle, poolMaxWait, poolIdleTimeout, poolValidationInterval, statementCacheSize,
+                        parseLong(props.getProperty("replica.retryInterval"), DEFAULT_REPLICA_RETRY_INTERVAL)));
+            }
             return connection;
             
         } catch (IllegalArgumentException | IllegalStateException e) {
@@ -132,11 +236,10 @@ public class MySqlUtils {
      * @param username 用户名
      * @param password 密码
      * @param database 数据库名
-     * @return 数据库连接
+     * @return 数据库连接（独立于连接池，由调用方关闭；不带连接参数的静态方法使用连接池）
      */
     public static Connection init(String host, int port, String username, String password, String database) {
-        String url = String.format("jdbc:mysql://%s:%d/%s?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true", 
-                                 host, port, database);
+        String url = String.format(URL_TEMPLATE, host, port, database);
         return init(url, username, password);
     }
 
@@ -146,17 +249,78 @@ public class MySqlUtils {
      * @param url 数据库连接URL
      * @param username 用户名
      * @param password 密码
-     * @return 数据库连接
+     * @return 数据库连接（独立于连接池，由调用方关闭；不带连接参数的静态方法使用连接池）
      */
     public static Connection init(String url, String username, String password) {
         try {
             Connection connection = DriverManager.getConnection(url, username, password);
             
-            // 只在第一次init时设置全局连接和参数（从URL解析基础信息）
-            if (globalConnection == null) {
-                // 从URL中解析基础信息用于createConnection方法
+            // 只在第一次init时设置全局连接池和参数（从URL解析基础信息）
+            synchronized (MySqlUtils.class) {
+                if (connectionPool == null) {
+                    // 从URL中解析基础信息用于createConnection方法
+                    parseUrlAndSetGlobalParams(url, username, password);
+                    connectionPool = new MySqlConnectionPool(url, username, password,
+                            DEFAULT_POOL_MAX_TOTAL, DEFAULT_POOL_MIN_IDLE, DEFAULT_POOL_MAX_WAIT,
+                            DEFAULT_POOL_IDLE_TIMEOUT, DEFAULT_POOL_VALIDATION_INTERVAL);
+                }
+            }
+            
+            return connection;
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to initialize database connection. Please check your connection parameters: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 初始化数据库连接及连接池（强制替换已有的全局连接池）
+     * 
+     * @param url 数据库连接URL
+     * @param username 用户名
+     * @param password 密码
+     * @param maxTotal 连接池最大连接数
+     * @param minIdle 连接池最小空闲连接数
+     * @param maxWaitMillis 借出连接最大等待时间（毫秒）
+     * @param idleTimeoutMillis 空闲连接回收时间（毫秒）
+     * @param validationIntervalMillis 空闲超过该时间的连接借出前校验（毫秒）
+     * @return 数据库连接（独立于连接池，由调用方关闭；不带连接参数的静态方法使用连接池）
+     */
+    public static Connection init(String url, String username, String password,
+                                  int maxTotal, int minIdle, long maxWaitMillis,
+                                  long idleTimeoutMillis, long validationIntervalMillis) {
+        return init(url, username, password, maxTotal, minIdle, maxWaitMillis,
+                    idleTimeoutMillis, validationIntervalMillis, DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * 初始化数据库连接及连接池（强制替换已有的全局连接池，自定义预编译语句缓存）
+     * 
+     * @param url 数据库连接URL
+     * @param username 用户名
+     * @param password 密码
+     * @param maxTotal 连接池最大连接数
+     * @param minIdle 连接池最小空闲连接数
+     * @param maxWaitMillis 借出连接最大等待时间（毫秒）
+     * @param idleTimeoutMillis 空闲连接回收时间（毫秒）
+     * @param validationIntervalMillis 空闲超过该时间的连接借出前校验（毫秒）
+     * @param statementCacheSize 每个连接缓存的预编译语句数量，0表示不缓存
+     * @return 数据库连接（独立于连接池，由调用方关闭；不带连接参数的静态方法使用连接池）
+     */
+    public static Connection init(String url, String username, String password,
+                                  int maxTotal, int minIdle, long maxWaitMillis,
+                                  long idleTimeoutMillis, long validationIntervalMillis,
+                                  int statementCacheSize) {
+        try {
+            Connection connection = DriverManager.getConnection(url, username, password);
+            MySqlConnectionPool pool = new MySqlConnectionPool(url, username, password,
+                    maxTotal, minIdle, maxWaitMillis, idleTimeoutMillis, validationIntervalMillis,
+                    statementCacheSize);
+            
+            // 强制设置为全局连接池，即使之前已经初始化过
+            synchronized (MySqlUtils.class) {
+                closeGlobalConnection();
                 parseUrlAndSetGlobalParams(url, username, password);
-                globalConnection = connection;
+                connectionPool = pool;
             }
             
             return connection;
@@ -165,6 +329,211 @@ public class MySqlUtils {
         }
     }
 
+    /**
+     * 从全局连接池借出连接（使用完毕后调用close()归还连接池）
+     * 当前线程处于事务中时返回事务连接，close()不会归还连接池
+     * 
+     * @return 数据库连接
+     */
+    public static Connection getConnection() {
+        TransactionContext transaction = currentTransaction.get();
+        if (transaction != null) {
+            transaction.checkActive();
+            return transaction.boundConnection;
+        }
+        ensureInitialized();
+        return connectionPool.getConnection();
+    }
+
+    /**
+     * 获取全局连接池（可用于查看连接池状态）
+     * 
+     * @return 连接池，未初始化返回null
+     */
+    public static MySqlConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    // ========== 读写分离 ==========
+
+    /**
+     * 从库负载均衡方式
+     */
+    public enum LoadBalance {
+        /** 轮询 */
+        ROUND_ROBIN,
+        /** 最少在途请求（借出连接数最少的从库） */
+        LEAST_IN_FLIGHT
+    }
+
+    /**
+     * 配置从库（使用默认连接池参数），替换已有的从库配置
+     * 配置后executeQuery、select*、query*等读操作走从库，写操作和executeInTransaction始终走主库
+     * 
+     * @param replicaUrls 从库URL列表
+     * @param username 用户名
+     * @param password 密码
+     * @param loadBalance 负载均衡方式
+     */
+    public static void initReplicas(List<String> replicaUrls, String username, String password, LoadBalance loadBalance) {
+        initReplicas(replicaUrls, username, password, loadBalance, DEFAULT_POOL_MAX_TOTAL, DEFAULT_REPLICA_RETRY_INTERVAL);
+    }
+
+    /**
+     * 配置从库，替换已有的从库配置
+     * 
+     * @param replicaUrls 从库URL列表
+     * @param username 用户名
+     * @param password 密码
+     * @param loadBalance 负载均衡方式
+     * @param maxTotal 每个从库连接池的最大连接数
+     * @param retryIntervalMillis 从库连接失败后的隔离时间（毫秒），期间读请求不再分配给该从库
+     */
+    public static void initReplicas(List<String> replicaUrls, String username, String password, LoadBalance loadBalance,
+                                    int maxTotal, long retryIntervalMillis) {
+        setReplicaSet(createReplicaSet(replicaUrls, username, password, loadBalance,
+                maxTotal, Math.min(DEFAULT_POOL_MIN_IDLE, maxTotal), DEFAULT_POOL_MAX_WAIT, DEFAULT_POOL_IDLE_TIMEOUT,
+                DEFAULT_POOL_VALIDATION_INTERVAL, DEFAULT_STATEMENT_CACHE_SIZE, retryIntervalMillis));
+    }
+
+    /**
+     * 移除从库配置，之后读写都走主库
+     */
+    public static void closeReplicas() {
+        setReplicaSet(null);
+    }
+
+    /**
+     * 获取从库状态（可用于监控）
+     * 
+     * @return 每个从库的url、available、active、idle、failures，未配置从库时返回空数组
+     */
+    public static JSONArray getReplicaStatus() {
+        MySqlReplicaSet replicas = replicaSet;
+        return replicas == null ? new JSONArray() : replicas.status();
+    }
+
+    /**
+     * 借出读连接：优先从可用从库借出，没有可用从库时使用主库，当前线程处于事务中时使用事务连接
+     * 使用完毕后调用close()归还
+     * 
+     * @return 数据库连接
+     */
+    public static Connection getReadConnection() {
+        if (currentTransaction.get() != null) {
+            return getConnection();
+        }
+        ensureInitialized();
+        MySqlReplicaSet replicas = replicaSet;
+        if (replicas != null) {
+            MySqlReplicaSet.Replica failed = null;
+            for (int attempt = 0; attempt < replicas.size(); attempt++) {
+                MySqlReplicaSet.Replica replica = replicas.select(failed);
+                if (replica == null) {
+                    break;
+                }
+                try {
+                    return replica.pool.getConnection();
+                } catch (RuntimeException e) {
+                    if (isConnectionFailure(e)) {
+                        replicas.markUnavailable(replica);
+                    }
+                    failed = replica;
+                }
+            }
+        }
+        return connectionPool.getConnection();
+    }
+
+    /**
+     * 在读连接上执行只读操作，从库执行时发生连接故障则隔离该从库并换一个从库（最终回退主库）重试
+     */
+    private static <T> T executeRead(Function<Connection, T> action) throws SQLException {
+        if (currentTransaction.get() != null) {
+            return action.apply(getConnection());
+        }
+        ensureInitialized();
+        MySqlReplicaSet replicas = replicaSet;
+        if (replicas != null) {
+            MySqlReplicaSet.Replica failed = null;
+            for (int attempt = 0; attempt < replicas.size(); attempt++) {
+                MySqlReplicaSet.Replica replica = replicas.select(failed);
+                if (replica == null) {
+                    break;
+                }
+                try (Connection connection = replica.pool.getConnection()) {
+                    return action.apply(connection);
+                } catch (RuntimeException | SQLException e) {
+                    if (!isConnectionFailure(e)) {
+                        throw e;
+                    }
+                    replicas.markUnavailable(replica);
+                    failed = replica;
+                }
+            }
+        }
+        try (Connection connection = connectionPool.getConnection()) {
+            return action.apply(connection);
+        }
+    }
+
+    /**
+     * 在主库连接上执行（当前线程处于事务中时使用事务连接）
+     */
+    private static <T> T executeOnPrimary(Function<Connection, T> action) throws SQLException {
+        if (currentTransaction.get() != null) {
+            return action.apply(getConnection());
+        }
+        ensureInitialized();
+        try (Connection connection = connectionPool.getConnection()) {
+            return action.apply(connection);
+        }
+    }
+
+    /**
+     * 是否为连接层故障（连接失败、连接中断），业务SQL错误不算
+     */
+    private static boolean isConnectionFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLNonTransientConnectionException || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (cause instanceof SQLException) {
+                String sqlState = ((SQLException) cause).getSQLState();
+                if (sqlState != null && sqlState.startsWith("08")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static MySqlReplicaSet createReplicaSet(List<String> replicaUrls, String username, String password,
+                                                    LoadBalance loadBalance, int maxTotal, int minIdle, long maxWaitMillis,
+                                                    long idleTimeoutMillis, long validationIntervalMillis,
+                                                    int statementCacheSize, long retryIntervalMillis) {
+        if (replicaUrls == null || replicaUrls.isEmpty()) {
+            throw new IllegalArgumentException("Replica url list cannot be empty");
+        }
+        List<MySqlConnectionPool> pools = new ArrayList<>();
+        for (String replicaUrl : replicaUrls) {
+            pools.add(new MySqlConnectionPool(replicaUrl, username, password, maxTotal, minIdle, maxWaitMillis,
+                    idleTimeoutMillis, validationIntervalMillis, statementCacheSize));
+        }
+        return new MySqlReplicaSet(replicaUrls, pools, loadBalance, retryIntervalMillis);
+    }
+
+    private static void setReplicaSet(MySqlReplicaSet replicas) {
+        MySqlReplicaSet previous;
+        synchronized (MySqlUtils.class) {
+            previous = replicaSet;
+            replicaSet = replicas;
+        }
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
     /**
      * 创建新的数据库连接
      * 
@@ -181,8 +550,7 @@ public class MySqlUtils {
             );
         }
         try {
-            String url = String.format("jdbc:mysql://%s:%d/%s?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true", 
-                                     host, port, database);
+            String url = String.format(URL_TEMPLATE, host, port, database);
             return DriverManager.getConnection(url, username, password);
         } catch (SQLException e) {
             throw new RuntimeException("Failed to create database connection: " + e.getMessage(), e);
@@ -192,19 +560,22 @@ public class MySqlUtils {
     // ========== 自定义SQL操作 ==========
 
     /**
-     * 执行自定义查询SQL（使用全局连接）
+     * 执行自定义查询SQL（使用全局连接池）
      * 
      * @param sql 查询SQL语句
      * @param params 参数
      * @return 查询结果JSONArray
      */
     public static JSONArray executeQuery(String sql, Object... params) {
-        ensureInitialized();
-        return executeQuery(globalConnection, sql, params);
+        try {
+            return executeRead(connection -> executeQuery(connection, sql, params));
+        } catch (SQLException e) {
+            throw new RuntimeException("执行查询失败: " + sql, e);
+        }
     }
 
     /**
-     * 执行自定义查询SQL（使用全局连接，无参数）
+     * 执行自定义查询SQL（使用全局连接池，无参数）
      * 
      * @param sql 查询SQL语句
      * @return 查询结果JSONArray
@@ -223,14 +594,18 @@ public class MySqlUtils {
      * @return 查询结果JSONArray
      */
     public static JSONArray executeQuery(Connection connection, String sql, Object... params) {
+        long start = System.nanoTime();
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             for (int i = 0; i < params.length; i++) {
                 stmt.setObject(i + 1, params[i]);
             }
             try (ResultSet rs = stmt.executeQuery()) {
-                return resultSetToJSONArray(rs);
+                JSONArray result = resultSetToJSONArray(rs);
+                recordStatement(MySqlQueryMetrics.Operation.QUERY, sql, params, start, result.size(), 0, null);
+                return result;
             }
         } catch (SQLException e) {
+            recordStatement(MySqlQueryMetrics.Operation.QUERY, sql, params, start, -1, 0, e);
             throw new RuntimeException("执行查询失败: " + sql, e);
         }
     }
@@ -247,19 +622,63 @@ public class MySqlUtils {
     }
 
     /**
-     * 执行自定义更新SQL（使用全局连接）
+     * 执行查询并返回列式结果（使用全局连接池）
+     * 适合返回大量数值行的统计查询，内存占用远小于JSONArray
+     * 
+     * @param sql 查询SQL语句
+     * @param params 参数
+     * @return 列式查询结果
+     */
+    public static MySqlColumnarResult executeQueryColumnar(String sql, Object... params) {
+        try {
+            return executeRead(connection -> executeQueryColumnar(connection, sql, params));
+        } catch (SQLException e) {
+            throw new RuntimeException("执行查询失败: " + sql, e);
+        }
+    }
+
+    /**
+     * 执行查询并返回列式结果（使用指定连接）
+     * 
+     * @param connection 数据库连接
+     * @param sql 查询SQL语句
+     * @param params 参数
+     * @return 列式查询结果
+     */
+    public static MySqlColumnarResult executeQueryColumnar(Connection connection, String sql, Object... params) {
+        long start = System.nanoTime();
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                MySqlColumnarResult result = MySqlColumnarResult.from(rs);
+                recordStatement(MySqlQueryMetrics.Operation.QUERY, sql, params, start, result.getRowCount(), 0, null);
+                return result;
+            }
+        } catch (SQLException e) {
+            recordStatement(MySqlQueryMetrics.Operation.QUERY, sql, params, start, -1, 0, e);
+            throw new RuntimeException("执行查询失败: " + sql, e);
+        }
+    }
+
+    /**
+     * 执行自定义更新SQL（使用全局连接池）
      * 
      * @param sql 更新SQL语句
      * @param params 参数
      * @return 影响的行数
      */
     public static int executeUpdate(String sql, Object... params) {
-        ensureInitialized();
-        return executeUpdate(globalConnection, sql, params);
+        try (Connection connection = getConnection()) {
+            return executeUpdate(connection, sql, params);
+        } catch (SQLException e) {
+            throw new RuntimeException("执行更新失败: " + sql, e);
+        }
     }
 
     /**
-     * 执行自定义更新SQL（使用全局连接，无参数）
+     * 执行自定义更新SQL（使用全局连接池，无参数）
      * 
      * @param sql 更新SQL语句
      * @return 影响的行数
@@ -278,12 +697,16 @@ public class MySqlUtils {
      * @return 影响的行数
      */
     public static int executeUpdate(Connection connection, String sql, Object... params) {
+        long start = System.nanoTime();
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             for (int i = 0; i < params.length; i++) {
                 stmt.setObject(i + 1, params[i]);
             }
-            return stmt.executeUpdate();
+            int affectedRows = stmt.executeUpdate();
+            recordStatement(MySqlQueryMetrics.Operation.UPDATE, sql, params, start, affectedRows, 0, null);
+            return affectedRows;
         } catch (SQLException e) {
+            recordStatement(MySqlQueryMetrics.Operation.UPDATE, sql, params, start, -1, 0, e);
             throw new RuntimeException("执行更新失败: " + sql, e);
         }
     }
@@ -300,7 +723,7 @@ public class MySqlUtils {
     }
 
     /**
-     * 执行自定义插入SQL并返回主键（使用全局连接）
+     * 执行自定义插入SQL并返回主键（使用全局连接池）
      * 
      * @param sql 插入SQL语句
      * @param keyType 主键类型
@@ -309,12 +732,15 @@ public class MySqlUtils {
      * @return 生成的主键
      */
     public static <T> T executeInsert(String sql, Class<T> keyType, Object... params) {
-        ensureInitialized();
-        return executeInsert(globalConnection, sql, keyType, params);
+        try (Connection connection = getConnection()) {
+            return executeInsert(connection, sql, keyType, params);
+        } catch (SQLException e) {
+            throw new RuntimeException("执行插入失败: " + sql, e);
+        }
     }
 
     /**
-     * 执行自定义插入SQL并返回主键（使用全局连接，无参数）
+     * 执行自定义插入SQL并返回主键（使用全局连接池，无参数）
      * 
      * @param sql 插入SQL语句
      * @param keyType 主键类型
@@ -338,12 +764,14 @@ public class MySqlUtils {
      */
     @SuppressWarnings("unchecked")
     public static <T> T executeInsert(Connection connection, String sql, Class<T> keyType, Object... params) {
+        long start = System.nanoTime();
         try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             for (int i = 0; i < params.length; i++) {
                 stmt.setObject(i + 1, params[i]);
             }
             
             int affectedRows = stmt.executeUpdate();
+            recordStatement(MySqlQueryMetrics.Operation.INSERT, sql, params, start, affectedRows, 0, null);
             if (affectedRows > 0) {
                 try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
@@ -353,6 +781,7 @@ public class MySqlUtils {
                 }
             }
         } catch (SQLException e) {
+            recordStatement(MySqlQueryMetrics.Operation.INSERT, sql, params, start, -1, 0, e);
             throw new RuntimeException("执行插入失败: " + sql, e);
         }
         return null;
@@ -374,15 +803,32 @@ public class MySqlUtils {
     // ========== 标准查询操作 ==========
 
     /**
-     * 根据ID查询单条记录（使用全局连接）
+     * 根据ID查询单条记录（使用全局连接池）
      * 
      * @param tableName 表名
      * @param id 主键ID
      * @return 查询结果JSONObject
      */
     public static JSONObject selectById(String tableName, Object id) {
-        ensureInitialized();
-        return selectById(globalConnection, tableName, id);
+        MySqlQueryCache cache = queryCache;
+        // 事务内读取的是未提交的数据，不能读写共享缓存
+        if (cache != null && currentTransaction.get() == null) {
+            return cache.get(tableName, "SELECT * FROM " + tableName + " WHERE id = ?", new Object[]{id},
+                    () -> selectByIdUncached(tableName, id, true));
+        }
+        return selectByIdUncached(tableName, id, false);
+    }
+
+    /**
+     * 不经过缓存查询；加载缓存时从主库读取，避免延迟的从库返回的旧数据以新版本号缓存到过期
+     */
+    private static JSONObject selectByIdUncached(String tableName, Object id, boolean primary) {
+        try {
+            Function<Connection, JSONObject> action = connection -> selectById(connection, tableName, id);
+            return primary ? executeOnPrimary(action) : executeRead(action);
+        } catch (SQLException e) {
+            throw new RuntimeException("查询失败", e);
+        }
     }
 
     /**
@@ -395,28 +841,33 @@ public class MySqlUtils {
      */
     public static JSONObject selectById(Connection connection, String tableName, Object id) {
         String sql = "SELECT * FROM " + tableName + " WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        long start = System.nanoTime();
+        try (MySqlStatementCache.CachedStatement cached = MySqlStatementCache.prepare(connection, sql, false)) {
+            PreparedStatement stmt = cached.statement();
             stmt.setObject(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return resultSetToJSONObject(rs);
-                }
+                JSONObject result = rs.next() ? resultSetToJSONObject(rs) : null;
+                recordStatement(MySqlQueryMetrics.Operation.QUERY, sql, new Object[]{id}, start, result == null ? 0 : 1, 0, null);
+                return result;
             }
         } catch (SQLException e) {
+            recordStatement(MySqlQueryMetrics.Operation.QUERY, sql, new Object[]{id}, start, -1, 0, e);
             throw new RuntimeException("查询失败", e);
         }
-        return null;
     }
 
     /**
-     * 查询所有记录（使用全局连接）
+     * 查询所有记录（使用全局连接池）
      * 
      * @param tableName 表名
      * @return 查询结果JSONArray
      */
     public static JSONArray selectAll(String tableName) {
-        ensureInitialized();
-        return selectAll(globalConnection, tableName);
+        try {
+            return executeRead(connection -> selectAll(connection, tableName));
+        } catch (SQLException e) {
+            throw new RuntimeException("查询失败", e);
+        }
     }
 
     /**
@@ -428,16 +879,20 @@ public class MySqlUtils {
      */
     public static JSONArray selectAll(Connection connection, String tableName) {
         String sql = "SELECT * FROM " + tableName;
+        long start = System.nanoTime();
         try (PreparedStatement stmt = connection.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
-            return resultSetToJSONArray(rs);
+            JSONArray result = resultSetToJSONArray(rs);
+            recordStatement(MySqlQueryMetrics.Operation.QUERY, sql, null, start, result.size(), 0, null);
+            return result;
         } catch (SQLException e) {
+            recordStatement(MySqlQueryMetrics.Operation.QUERY, sql, null, start, -1, 0, e);
             throw new RuntimeException("查询失败", e);
         }
     }
 
     /**
-     * 条件查询（使用全局连接）
+     * 条件查询（使用全局连接池）
      * 
      * @param tableName 表名
      * @param whereClause WHERE条件（不包含WHERE关键字）
@@ -445,12 +900,28 @@ public class MySqlUtils {
      * @return 查询结果JSONArray
      */
     public static JSONArray selectByCondition(String tableName, String whereClause, Object... params) {
-        ensureInitialized();
-        return selectByCondition(globalConnection, tableName, whereClause, params);
+        MySqlQueryCache cache = queryCache;
+        // 事务内读取的是未提交的数据，不能读写共享缓存
+        if (cache != null && currentTransaction.get() == null) {
+            return cache.get(tableName, "SELECT * FROM " + tableName + " WHERE " + whereClause, params,
+                    () -> selectByConditionUncached(tableName, whereClause, params, true));
+        }
+        return selectByConditionUncached(tableName, whereClause, params, false);
+    }
+
+    private static JSONArray selectByConditionUncached(String tableName, String whereClause, Object[] params,
+                                                       boolean primary) {
+        try {
+            Function<Connection, JSONArray> action =
+                    connection -> selectByCondition(connection, tableName, whereClause, params);
+            return primary ? executeOnPrimary(action) : executeRead(action);
+        } catch (SQLException e) {
+            throw new RuntimeException("查询失败", e);
+        }
     }
 
     /**
-     * 条件查询（使用全局连接，无参数）
+     * 条件查询（使用全局连接池，无参数）
      * 
      * @param tableName 表名
      * @param whereClause WHERE条件（不包含WHERE关键字）
@@ -472,14 +943,18 @@ public class MySqlUtils {
      */
     public static JSONArray selectByCondition(Connection connection, String tableName, String whereClause, Object... params) {
         String sql = "SELECT * FROM " + tableName + " WHERE " + whereClause;
+        long start = System.nanoTime();
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             for (int i = 0; i < params.length; i++) {
                 stmt.setObject(i + 1, params[i]);
             }
             try (ResultSet rs = stmt.executeQuery()) {
-                return resultSetToJSONArray(rs);
+                JSONArray result = resultSetToJSONArray(rs);
+                recordStatement(MySqlQueryMetrics.Operation.QUERY, sql, params, start, result.size(), 0, null);
+                return result;
             }
         } catch (SQLException e) {
+            recordStatement(MySqlQueryMetrics.Operation.QUERY, sql, params, start, -1, 0, e);
             throw new RuntimeException("查询失败", e);
         }
     }
@@ -496,420 +971,2583 @@ public class MySqlUtils {
         return selectByCondition(connection, tableName, whereClause, new Object[0]);
     }
 
-    // ========== 泛型插入操作 ==========
+    // ========== 流式查询操作 ==========
 
     /**
-     * 插入数据（使用全局连接）
-     * 
-     * @param tableName 表名
-     * @param data 数据JSONObject
-     * @param keyType 主键类型
-     * @param <T> 主键类型泛型
-     * @return 生成的主键
+     * 流式查询读取模式
      */
-    public static <T> T insert(String tableName, JSONObject data, Class<T> keyType) {
-        ensureInitialized();
-        return insert(globalConnection, tableName, data, keyType);
+    public enum FetchMode {
+        /** 一次性读取全部结果到客户端内存（驱动默认行为） */
+        BUFFERED,
+        /** 逐行流式读取（fetchSize=Integer.MIN_VALUE），读取完成前该连接不能执行其他语句 */
+        STREAMING,
+        /** 服务端游标分批读取（需要在url中设置useCursorFetch=true） */
+        CURSOR
+    }
+
+    /**
+     * 行回调接口
+     */
+    @FunctionalInterface
+    public interface RowCallback {
+        void handle(JSONObject row) throws Exception;
     }
 
     /**
-     * 批量插入数据（使用全局连接）
+     * 设置流式查询的读取模式（默认STREAMING）
      * 
-     * @param tableName 表名
-     * @param dataArray 数据JSONArray
-     * @param keyType 主键类型
-     * @param batchSize 批量大小
-     * @param <T> 主键类型泛型
-     * @return 生成的主键列表
+     * @param fetchMode 读取模式
+     * @param fetchSize CURSOR模式下每批读取行数
      */
-    public static <T> List<T> batchInsert(String tableName, JSONArray dataArray, Class<T> keyType, int batchSize) {
-        ensureInitialized();
-        return batchInsert(globalConnection, tableName, dataArray, keyType, batchSize);
+    public static void setStreamFetchMode(FetchMode fetchMode, int fetchSize) {
+        if (fetchMode == null) {
+            throw new IllegalArgumentException("Fetch mode cannot be null");
+        }
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("Fetch size must be greater than 0");
+        }
+        streamFetchMode = fetchMode;
+        streamFetchSize = fetchSize;
     }
 
     /**
-     * 批量插入数据（使用全局连接，默认批量大小1000）
+     * 流式查询，逐行回调（使用全局连接池），内存占用与结果行数无关
      * 
-     * @param tableName 表名
-     * @param dataArray 数据JSONArray
-     * @param keyType 主键类型
-     * @param <T> 主键类型泛型
-     * @return 生成的主键列表
+     * @param sql 查询SQL语句
+     * @param callback 行回调
+     * @param params 参数
+     * @return 处理的行数
      */
-    public static <T> List<T> batchInsert(String tableName, JSONArray dataArray, Class<T> keyType) {
-        return batchInsert(tableName, dataArray, keyType, 1000);
+    public static long queryForEach(String sql, RowCallback callback, Object... params) {
+        try (Connection connection = getReadConnection()) {
+            return queryForEach(connection, sql, callback, params);
+        } catch (SQLException e) {
+            throw new RuntimeException("流式查询失败: " + sql, e);
+        }
     }
 
     /**
-     * 插入数据（使用指定连接）
+     * 流式查询，逐行回调（使用指定连接）
      * 
      * @param connection 数据库连接
-     * @param tableName 表名
-     * @param data 数据JSONObject
-     * @param keyType 主键类型
-     * @param <T> 主键类型泛型
-     * @return 生成的主键
+     * @param sql 查询SQL语句
+     * @param callback 行回调
+     * @param params 参数
+     * @return 处理的行数
      */
-    @SuppressWarnings("unchecked")
-    public static <T> T insert(Connection connection, String tableName, JSONObject data, Class<T> keyType) {
-        if (data == null || data.isEmpty()) {
-            throw new IllegalArgumentException("插入数据不能为空");
+    public static long queryForEach(Connection connection, String sql, RowCallback callback, Object... params) {
+        if (callback == null) {
+            throw new IllegalArgumentException("Row callback cannot be null");
         }
-        
-        try {
-            // 如果是String类型主键，自动生成UUID
-            if (keyType == String.class) {
-                List<String> primaryKeys = getPrimaryKeyColumns(connection, tableName);
-                if (!primaryKeys.isEmpty()) {
-                    String uuid = UUID.randomUUID().toString().replace("-", "");
-                    data.put(primaryKeys.get(0), uuid);
-                }
-            }
-            
-            List<String> columns = new ArrayList<>();
-            List<Object> values = new ArrayList<>();
-            
-            for (String key : data.keySet()) {
-                columns.add(key);
-                values.add(data.get(key));
-            }
-            
-            String sql = "INSERT INTO " + tableName + " (" + String.join(",", columns) + ") VALUES (" + 
-                         String.join(",", columns.stream().map(c -> "?").toArray(String[]::new)) + ")";
-            
-            try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-                for (int i = 0; i < values.size(); i++) {
-                    stmt.setObject(i + 1, values.get(i));
-                }
-                
-                int affectedRows = stmt.executeUpdate();
-                if (affectedRows > 0) {
-                    // 如果是String类型，直接返回生成的UUID
-                    if (keyType == String.class) {
-                        List<String> primaryKeys = getPrimaryKeyColumns(connection, tableName);
-                        if (!primaryKeys.isEmpty()) {
-                            return (T) data.getString(primaryKeys.get(0));
-                        }
-                    }
-                    
-                    // 其他类型从数据库获取
-                    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                        if (generatedKeys.next()) {
-                            Object key = generatedKeys.getObject(1);
-                            return convertKey(key, keyType);
-                        }
-                    }
-                }
+        long count = 0;
+        try (ResultIterator iterator = openResultIterator(connection, false, sql, params)) {
+            while (iterator.hasNext()) {
+                callback.handle(iterator.next());
+                count++;
             }
-        } catch (SQLException e) {
-            throw new RuntimeException("插入失败", e);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("流式查询失败: " + sql, e);
         }
-        return null;
+        return count;
     }
 
     /**
-     * 批量插入数据（使用指定连接）
+     * 流式查询，返回迭代器（使用全局连接池）
+     * 必须调用close()（推荐try-with-resources）才会释放语句并归还连接
+     * 
+     * @param sql 查询SQL语句
+     * @param params 参数
+     * @return 结果迭代器
+     */
+    public static ResultIterator queryIterator(String sql, Object... params) {
+        return openResultIterator(getReadConnection(), true, sql, params);
+    }
+
+    /**
+     * 流式查询，返回迭代器（使用指定连接，关闭迭代器不会关闭连接）
      * 
      * @param connection 数据库连接
-     * @param tableName 表名
-     * @param dataArray 数据JSONArray
-     * @param keyType 主键类型
-     * @param batchSize 批量大小
-     * @param <T> 主键类型泛型
-     * @return 生成的主键列表
+     * @param sql 查询SQL语句
+     * @param params 参数
+     * @return 结果迭代器
      */
-    @SuppressWarnings("unchecked")
-    public static <T> List<T> batchInsert(Connection connection, String tableName, JSONArray dataArray, Class<T> keyType, int batchSize) {
-        if (dataArray == null || dataArray.isEmpty()) {
-            throw new IllegalArgumentException("Batch insert data cannot be empty");
+    public static ResultIterator queryIterator(Connection connection, String sql, Object... params) {
+        return openResultIterator(connection, false, sql, params);
+    }
+
+    /**
+     * 流式查询，返回Stream（使用全局连接池）
+     * 必须关闭Stream（推荐try-with-resources）才会释放语句并归还连接
+     * 
+     * @param sql 查询SQL语句
+     * @param params 参数
+     * @return 结果Stream
+     */
+    public static Stream<JSONObject> queryStream(String sql, Object... params) {
+        return toStream(queryIterator(sql, params));
+    }
+
+    /**
+     * 流式查询，返回Stream（使用指定连接，关闭Stream不会关闭连接）
+     * 
+     * @param connection 数据库连接
+     * @param sql 查询SQL语句
+     * @param params 参数
+     * @return 结果Stream
+     */
+    public static Stream<JSONObject> queryStream(Connection connection, String sql, Object... params) {
+        return toStream(queryIterator(connection, sql, params));
+    }
+
+    /**
+     * 流式查询结果迭代器，读取到末尾时自动关闭
+     */
+    public static final class ResultIterator implements Iterator<JSONObject>, AutoCloseable {
+        private final Connection ownedConnection;
+        private final PreparedStatement statement;
+        private final ResultSet resultSet;
+        private final String[] labels;
+        private final String sql;
+        private Boolean hasNextRow;
+        private boolean closed;
+
+        private ResultIterator(Connection ownedConnection, PreparedStatement statement, ResultSet resultSet, String sql)
+                throws SQLException {
+            this.ownedConnection = ownedConnection;
+            this.statement = statement;
+            this.resultSet = resultSet;
+            this.labels = columnLabels(resultSet.getMetaData());
+            this.sql = sql;
         }
-        
-        if (batchSize <= 0) {
-            throw new IllegalArgumentException("Batch size must be greater than 0");
+
+        @Override
+        public boolean hasNext() {
+            if (closed) {
+                return false;
+            }
+            if (hasNextRow == null) {
+                try {
+                    hasNextRow = resultSet.next();
+                } catch (SQLException e) {
+                    close();
+                    throw new RuntimeException("流式查询失败: " + sql, e);
+                }
+                if (!hasNextRow) {
+                    close();
+                }
+            }
+            return hasNextRow;
         }
-        
-        List<T> allKeys = new ArrayList<>();
-        
-        try {
-            // 获取主键字段信息（用于String类型UUID生成）
-            List<String> primaryKeys = null;
-            if (keyType == String.class) {
-                primaryKeys = getPrimaryKeyColumns(connection, tableName);
+
+        @Override
+        public JSONObject next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
             }
-            
-            // 获取第一条数据的字段信息
-            JSONObject firstData = dataArray.getJSONObject(0);
-            if (firstData == null || firstData.isEmpty()) {
-                throw new IllegalArgumentException("First data record cannot be empty");
+            hasNextRow = null;
+            try {
+                return resultSetToJSONObject(resultSet, labels);
+            } catch (SQLException e) {
+                close();
+                throw new RuntimeException("流式查询失败: " + sql, e);
             }
-            
-            List<String> columns = new ArrayList<>(firstData.keySet());
-            
-            // 构建SQL语句
-            String sql = "INSERT INTO " + tableName + " (" + String.join(",", columns) + ") VALUES (" + 
-                         String.join(",", columns.stream().map(c -> "?").toArray(String[]::new)) + ")";
-            
-            // 分批处理
-            for (int i = 0; i < dataArray.size(); i += batchSize) {
-                int endIndex = Math.min(i + batchSize, dataArray.size());
-                List<T> batchKeys = processBatch(connection, sql, dataArray, i, endIndex, columns, primaryKeys, keyType);
-                allKeys.addAll(batchKeys);
+        }
+
+        /**
+         * 关闭结果集和语句，连接池借出的连接同时归还（静默关闭，不抛出异常）
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                resultSet.close();
+            } catch (Exception e) {
+                // 静默处理关闭异常
+            }
+            try {
+                statement.close();
+            } catch (Exception e) {
+                // 静默处理关闭异常
+            }
+            if (ownedConnection != null) {
+                closeConnection(ownedConnection);
             }
-            
-        } catch (SQLException e) {
-            throw new RuntimeException("Batch insert failed: " + e.getMessage(), e);
         }
-        
-        return allKeys;
     }
 
+    // ========== 键集分页 ==========
+
     /**
-     * 批量插入数据（使用指定连接，默认批量大小1000）
+     * 按主键键集分页遍历表（WHERE (pk) > (上一页最后的主键) ORDER BY pk LIMIT n），翻页代价与页码无关
+     * 每页单独借出连接（配置从库时走从库），页与页之间不占用连接
+     * 
+     * @param tableName 表名（必须有主键，支持联合主键）
+     * @param pageSize 每页行数
+     * @return 分页迭代器，每次next()返回一页
+     */
+    public static KeysetPager pageByKey(String tableName, int pageSize) {
+        return pageByKey(tableName, pageSize, null);
+    }
+
+    /**
+     * 按主键键集分页遍历满足条件的记录
+     * 
+     * @param tableName 表名（必须有主键，支持联合主键）
+     * @param pageSize 每页行数
+     * @param whereClause WHERE条件（不包含WHERE关键字，可为null）
+     * @param params 参数
+     * @return 分页迭代器，每次next()返回一页
+     */
+    public static KeysetPager pageByKey(String tableName, int pageSize, String whereClause, Object... params) {
+        return new KeysetPager(tableName, pageSize, whereClause, params, loadTableMetadata(tableName), null, null);
+    }
+
+    /**
+     * 按主键键集分页逐行回调遍历整张表
      * 
-     * @param connection 数据库连接
      * @param tableName 表名
-     * @param dataArray 数据JSONArray
-     * @param keyType 主键类型
-     * @param <T> 主键类型泛型
-     * @return 生成的主键列表
+     * @param pageSize 每页行数
+     * @param callback 行回调
+     * @return 处理的行数
      */
-    public static <T> List<T> batchInsert(Connection connection, String tableName, JSONArray dataArray, Class<T> keyType) {
-        return batchInsert(connection, tableName, dataArray, keyType, 1000);
+    public static long forEachByKey(String tableName, int pageSize, RowCallback callback) {
+        return scanPager(pageByKey(tableName, pageSize), callback);
     }
 
     /**
-     * 处理单批数据插入
+     * 并行全表扫描：按主键首列的取值范围切分为parallelism段，每段使用独立连接做键集分页
+     * 主键首列不是整数类型时退化为单线程遍历
+     * 
+     * @param tableName 表名
+     * @param pageSize 每页行数
+     * @param parallelism 并行数（不超过连接池最大连接数）
+     * @param callback 行回调（会被多个线程并发调用，需要线程安全）
+     * @return 处理的行数
      */
-    @SuppressWarnings("unchecked")
-    private static <T> List<T> processBatch(Connection connection, String sql, JSONArray dataArray, 
-                                          int startIndex, int endIndex, List<String> columns,
-                                          List<String> primaryKeys, Class<T> keyType) throws SQLException {
+    public static long parallelScanByKey(String tableName, int pageSize, int parallelism, RowCallback callback) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be greater than 0");
+        }
+        if (callback == null) {
+            throw new IllegalArgumentException("Row callback cannot be null");
+        }
+        MySqlMetadataCache.TableMetadata metadata = loadTableMetadata(tableName);
+        String leadingKey = metadata.primaryKeys.get(0);
+        JSONArray bounds = executeQuery("SELECT MIN(" + leadingKey + ") AS lo, MAX(" + leadingKey + ") AS hi FROM " + tableName);
+        Object lo = bounds.getJSONObject(0).get("lo");
+        Object hi = bounds.getJSONObject(0).get("hi");
+        if (lo == null || hi == null) {
+            return 0; // 空表
+        }
         
-        List<T> batchKeys = new ArrayList<>();
+        List<long[]> ranges = splitKeyRange(lo, hi, parallelism);
+        if (ranges == null || ranges.size() == 1) {
+            return scanPager(new KeysetPager(tableName, pageSize, null, new Object[0], metadata, null, null), callback);
+        }
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            
-            // 添加批量数据
-            for (int i = startIndex; i < endIndex; i++) {
-                JSONObject data = dataArray.getJSONObject(i);
-                if (data == null) {
-                    continue; // 跳过空数据
-                }
-                
-                // 为String类型主键生成UUID
-                if (keyType == String.class && primaryKeys != null && !primaryKeys.isEmpty()) {
-                    String uuid = UUID.randomUUID().toString().replace("-", "");
-                    data.put(primaryKeys.get(0), uuid);
+        int threads = Math.min(ranges.size(), connectionPool.getMaxTotal());
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "mysql-keyset-scan-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        try {
+            List<Future<Long>> futures = new ArrayList<>(ranges.size());
+            for (long[] range : ranges) {
+                KeysetPager pager = new KeysetPager(tableName, pageSize, null, new Object[0], metadata, range[0], range[1]);
+                futures.add(executor.submit(() -> scanPager(pager, callback)));
+            }
+            long total = 0;
+            for (Future<Long> future : futures) {
+                total += future.get();
+            }
+            return total;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause
+                    : new RuntimeException("Parallel scan failed: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Parallel scan interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 键集分页迭代器
+     * 可通过getLastKey()记录进度，下次使用resumeAfter()从断点继续
+     */
+    public static final class KeysetPager implements Iterator<JSONArray> {
+        private final String tableName;
+        private final int pageSize;
+        private final String whereClause;
+        private final Object[] params;
+        private final List<String> primaryKeys;
+        private final Long rangeStart;
+        private final Long rangeEnd;
+        private Object[] lastKey;
+        private JSONArray nextPage;
+        private Object[] nextPageLastKey;
+        private boolean exhausted;
+
+        private KeysetPager(String tableName, int pageSize, String whereClause, Object[] params,
+                            MySqlMetadataCache.TableMetadata metadata, Long rangeStart, Long rangeEnd) {
+            if (pageSize <= 0) {
+                throw new IllegalArgumentException("Page size must be greater than 0");
+            }
+            this.tableName = tableName;
+            this.pageSize = pageSize;
+            this.whereClause = whereClause;
+            this.params = params == null ? new Object[0] : params;
+            this.primaryKeys = metadata.primaryKeys;
+            this.rangeStart = rangeStart;
+            this.rangeEnd = rangeEnd;
+        }
+
+        /**
+         * 从指定主键之后继续分页（用于断点续扫）
+         * 
+         * @param key 主键值，按主键列顺序
+         * @return 当前迭代器
+         */
+        public KeysetPager resumeAfter(Object... key) {
+            if (key == null || key.length != primaryKeys.size()) {
+                throw new IllegalArgumentException("Key must have " + primaryKeys.size() + " values");
+            }
+            this.lastKey = key.clone();
+            this.nextPage = null;
+            this.nextPageLastKey = null;
+            this.exhausted = false;
+            return this;
+        }
+
+        /**
+         * 已返回的最后一行的主键值（按主键列顺序），尚未返回任何行时为null
+         * 
+         * @return 主键值
+         */
+        public Object[] getLastKey() {
+            return lastKey == null ? null : lastKey.clone();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextPage == null && !exhausted) {
+                nextPage = fetchPage();
+                if (nextPage.isEmpty()) {
+                    nextPage = null;
+                    nextPageLastKey = null;
+                    exhausted = true;
                 }
-                
-                // 设置参数
-                for (int j = 0; j < columns.size(); j++) {
-                    String column = columns.get(j);
-                    Object value = data.get(column);
-                    stmt.setObject(j + 1, value);
+            }
+            return nextPage != null;
+        }
+
+        @Override
+        public JSONArray next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            JSONArray page = nextPage;
+            nextPage = null;
+            if (page.size() < pageSize) {
+                exhausted = true;
+            }
+            lastKey = nextPageLastKey;
+            nextPageLastKey = null;
+            return page;
+        }
+
+        private JSONArray fetchPage() {
+            String keyList = String.join(",", primaryKeys);
+            List<String> conditions = new ArrayList<>();
+            List<Object> values = new ArrayList<>();
+            if (whereClause != null && !whereClause.trim().isEmpty()) {
+                conditions.add("(" + whereClause + ")");
+                values.addAll(Arrays.asList(params));
+            }
+            if (rangeStart != null) {
+                conditions.add(primaryKeys.get(0) + " >= ?");
+                values.add(rangeStart);
+            }
+            if (rangeEnd != null) {
+                conditions.add(primaryKeys.get(0) + " < ?");
+                values.add(rangeEnd);
+            }
+            if (lastKey != null) {
+                if (primaryKeys.size() == 1) {
+                    conditions.add(keyList + " > ?");
+                } else {
+                    // 行构造器比较，MySQL 5.7+可以使用主键范围扫描
+                    String placeholders = String.join(",", primaryKeys.stream().map(k -> "?").toArray(String[]::new));
+                    conditions.add("(" + keyList + ") > (" + placeholders + ")");
                 }
-                
-                stmt.addBatch();
+                values.addAll(Arrays.asList(lastKey));
             }
-            
-            // 执行批量插入
-            int[] results = stmt.executeBatch();
-            
-            // 获取生成的主键
-            if (keyType == String.class && primaryKeys != null && !primaryKeys.isEmpty()) {
-                // String类型主键直接从数据中获取
-                String primaryKeyColumn = primaryKeys.get(0);
-                for (int i = startIndex; i < endIndex; i++) {
-                    JSONObject data = dataArray.getJSONObject(i);
-                    if (data != null && results[i - startIndex] > 0) {
-                        T key = (T) data.getString(primaryKeyColumn);
-                        batchKeys.add(key);
-                    }
+            String sql = "SELECT * FROM " + tableName
+                    + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions))
+                    + " ORDER BY " + keyList + " LIMIT " + pageSize;
+            try {
+                return executeRead(connection -> queryPage(connection, sql, values.toArray()));
+            } catch (SQLException e) {
+                throw new RuntimeException("执行查询失败: " + sql, e);
+            }
+        }
+
+        /**
+         * 查询一页，同时从结果集读取最后一行的原始主键值
+         * （结果中的时间列已转换为毫秒时间戳，DATETIME(6)等列会丢失微秒，不能用于下一页的比较）
+         */
+        private JSONArray queryPage(Connection connection, String sql, Object[] values) {
+            long start = System.nanoTime();
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                for (int i = 0; i < values.length; i++) {
+                    stmt.setObject(i + 1, values[i]);
                 }
-            } else {
-                // 其他类型主键从数据库获取
-                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                    while (generatedKeys.next()) {
-                        Object key = generatedKeys.getObject(1);
-                        batchKeys.add(convertKey(key, keyType));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    JSONArray page = new JSONArray();
+                    String[] labels = columnLabels(rs.getMetaData());
+                    Object[] key = null;
+                    while (rs.next()) {
+                        page.add(resultSetToJSONObject(rs, labels));
+                        key = new Object[primaryKeys.size()];
+                        for (int i = 0; i < key.length; i++) {
+                            key[i] = rs.getObject(primaryKeys.get(i));
+                        }
                     }
+                    nextPageLastKey = key;
+                    recordStatement(MySqlQueryMetrics.Operation.QUERY, sql, values, start, page.size(), 0, null);
+                    return page;
                 }
+            } catch (SQLException e) {
+                recordStatement(MySqlQueryMetrics.Operation.QUERY, sql, values, start, -1, 0, e);
+                throw new RuntimeException("执行查询失败: " + sql, e);
             }
         }
-        
-        return batchKeys;
     }
 
-    // ========== 更新操作 ==========
+    /**
+     * 逐页逐行回调
+     */
+    private static long scanPager(KeysetPager pager, RowCallback callback) {
+        if (callback == null) {
+            throw new IllegalArgumentException("Row callback cannot be null");
+        }
+        long count = 0;
+        try {
+            while (pager.hasNext()) {
+                JSONArray page = pager.next();
+                for (int i = 0; i < page.size(); i++) {
+                    callback.handle(page.getJSONObject(i));
+                    count++;
+                }
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Keyset scan failed: " + e.getMessage(), e);
+        }
+        return count;
+    }
+
+    /**
+     * 把整数主键范围[lo, hi]均分为若干段[start, end)，不是整数类型或范围溢出时返回null
+     */
+    private static List<long[]> splitKeyRange(Object lo, Object hi, int parts) {
+        if (!(lo instanceof Long || lo instanceof Integer || lo instanceof Short || lo instanceof Byte)
+                || !(hi instanceof Long || hi instanceof Integer || hi instanceof Short || hi instanceof Byte)) {
+            return null;
+        }
+        long start = ((Number) lo).longValue();
+        long end = ((Number) hi).longValue();
+        long span;
+        try {
+            span = Math.addExact(Math.subtractExact(end, start), 1);
+        } catch (ArithmeticException e) {
+            return null;
+        }
+        int count = (int) Math.max(1, Math.min(parts, span));
+        List<long[]> ranges = new ArrayList<>(count);
+        long rangeStart = start;
+        for (int i = 1; i <= count; i++) {
+            long rangeEnd = i == count ? end + 1 : start + span / count * i;
+            ranges.add(new long[]{rangeStart, rangeEnd});
+            rangeStart = rangeEnd;
+        }
+        return ranges;
+    }
+
+    /**
+     * 加载表元数据，要求表有主键
+     */
+    private static MySqlMetadataCache.TableMetadata loadTableMetadata(String tableName) {
+        MySqlMetadataCache.TableMetadata metadata;
+        try (Connection connection = getConnection()) {
+            metadata = metadataCache.get(connection, database, tableName);
+        } catch (SQLException e) {
+            throw new RuntimeException("获取表结构失败: " + tableName, e);
+        }
+        if (metadata.primaryKeys.isEmpty()) {
+            throw new IllegalArgumentException("Table " + tableName + " has no primary key, keyset pagination is not supported");
+        }
+        return metadata;
+    }
+
+    // ========== 类型映射查询 ==========
+
+    /**
+     * 行映射接口，把结果集当前行直接映射为目标对象
+     */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T mapRow(ResultSet rs, int rowNum) throws SQLException;
+    }
+
+    /**
+     * 查询并使用行映射器映射结果（使用全局连接池）
+     * 
+     * @param sql 查询SQL语句
+     * @param rowMapper 行映射器
+     * @param params 参数
+     * @param <T> 结果类型泛型
+     * @return 映射结果列表
+     */
+    public static <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... params) {
+        try {
+            return executeRead(connection -> query(connection, sql, rowMapper, params));
+        } catch (SQLException e) {
+            throw new RuntimeException("执行查询失败: " + sql, e);
+        }
+    }
+
+    /**
+     * 查询并使用行映射器映射结果（使用指定连接）
+     * 
+     * @param connection 数据库连接
+     * @param sql 查询SQL语句
+     * @param rowMapper 行映射器
+     * @param params 参数
+     * @param <T> 结果类型泛型
+     * @return 映射结果列表
+     */
+    public static <T> List<T> query(Connection connection, String sql, RowMapper<T> rowMapper, Object... params) {
+        if (rowMapper == null) {
+            throw new IllegalArgumentException("Row mapper cannot be null");
+        }
+        long start = System.nanoTime();
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<T> results = new ArrayList<>();
+                RowMapper<T> mapper = bindRowMapper(rowMapper, rs);
+                int rowNum = 0;
+                while (rs.next()) {
+                    results.add(mapper.mapRow(rs, rowNum++));
+                }
+                recordStatement(MySqlQueryMetrics.Operation.QUERY, sql, params, start, results.size(), 0, null);
+                return results;
+            }
+        } catch (SQLException e) {
+            recordStatement(MySqlQueryMetrics.Operation.QUERY, sql, params, start, -1, 0, e);
+            throw new RuntimeException("执行查询失败: " + sql, e);
+        }
+    }
+
+    /**
+     * 查询并映射为指定类型（使用全局连接池）
+     * 简单类型（String、Long、Integer、BigDecimal等）读取第一列，其他类型按列名映射为JavaBean
+     * 
+     * @param sql 查询SQL语句
+     * @param type 结果类型
+     * @param params 参数
+     * @param <T> 结果类型泛型
+     * @return 映射结果列表
+     */
+    public static <T> List<T> query(String sql, Class<T> type, Object... params) {
+        return query(sql, rowMapperFor(type), params);
+    }
+
+    /**
+     * 查询并映射为指定类型（使用指定连接）
+     * 简单类型（String、Long、Integer、BigDecimal等）读取第一列，其他类型按列名映射为JavaBean
+     * 
+     * @param connection 数据库连接
+     * @param sql 查询SQL语句
+     * @param type 结果类型
+     * @param params 参数
+     * @param <T> 结果类型泛型
+     * @return 映射结果列表
+     */
+    public static <T> List<T> query(Connection connection, String sql, Class<T> type, Object... params) {
+        return query(connection, sql, rowMapperFor(type), params);
+    }
+
+    /**
+     * 查询单条记录并映射为指定类型（使用全局连接池）
+     * 
+     * @param sql 查询SQL语句
+     * @param type 结果类型
+     * @param params 参数
+     * @param <T> 结果类型泛型
+     * @return 第一条映射结果，无结果返回null
+     */
+    public static <T> T queryOne(String sql, Class<T> type, Object... params) {
+        List<T> results = query(sql, type, params);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * Bean映射器按结果集解析一次列绑定，其他映射器原样返回
+     */
+    private static <T> RowMapper<T> bindRowMapper(RowMapper<T> rowMapper, ResultSet rs) throws SQLException {
+        if (rowMapper instanceof MySqlBeanRowMapper) {
+            return ((MySqlBeanRowMapper<T>) rowMapper).bind(rs.getMetaData());
+        }
+        return rowMapper;
+    }
+
+    /**
+     * 根据类型选择行映射器：简单类型读取第一列，其他类型映射为JavaBean
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> RowMapper<T> rowMapperFor(Class<T> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Result type cannot be null");
+        }
+        if (type.isPrimitive() || type == String.class || Number.class.isAssignableFrom(type)
+                || type == Boolean.class || type == byte[].class || type.isEnum()
+                || java.util.Date.class.isAssignableFrom(type) || type.getName().startsWith("java.time.")) {
+            return (rs, rowNum) -> (T) MySqlBeanRowMapper.readValue(rs, 1, type, false);
+        }
+        return new MySqlBeanRowMapper<>(type);
+    }
+
+    // ========== 泛型插入操作 ==========
+
+    /**
+     * 批量插入模式
+     */
+    public enum BatchMode {
+        /** JDBC addBatch/executeBatch（url开启rewriteBatchedStatements时由驱动合并为多行INSERT） */
+        JDBC_BATCH,
+        /** 拼接多行INSERT ... VALUES (...),(...)，单条语句大小控制在max_allowed_packet以内 */
+        MULTI_VALUES
+    }
+
+    /**
+     * 插入数据（使用全局连接池）
+     * 
+     * @param tableName 表名
+     * @param data 数据JSONObject
+     * @param keyType 主键类型
+     * @param <T> 主键类型泛型
+     * @return 生成的主键
+     */
+    public static <T> T insert(String tableName, JSONObject data, Class<T> keyType) {
+        try (Connection connection = getConnection()) {
+            return insert(connection, tableName, data, keyType);
+        } catch (SQLException e) {
+            throw new RuntimeException("插入失败", e);
+        }
+    }
+
+    /**
+     * 批量插入数据（使用全局连接池）
+     * 
+     * @param tableName 表名
+     * @param dataArray 数据JSONArray
+     * @param keyType 主键类型
+     * @param batchSize 批量大小
+     * @param <T> 主键类型泛型
+     * @return 生成的主键列表
+     */
+    public static <T> List<T> batchInsert(String tableName, JSONArray dataArray, Class<T> keyType, int batchSize) {
+        try (Connection connection = getConnection()) {
+            return batchInsert(connection, tableName, dataArray, keyType, batchSize);
+        } catch (SQLException e) {
+            throw new RuntimeException("Batch insert failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 批量插入数据（使用全局连接池，指定批量模式）
+     * 
+     * @param tableName 表名
+     * @param dataArray 数据JSONArray
+     * @param keyType 主键类型
+     * @param batchSize 批量大小（MULTI_VALUES模式下为单条语句最大行数）
+     * @param batchMode 批量模式
+     * @param <T> 主键类型泛型
+     * @return 生成的主键列表
+     */
+    public static <T> List<T> batchInsert(String tableName, JSONArray dataArray, Class<T> keyType, int batchSize,
+                                          BatchMode batchMode) {
+        try (Connection connection = getConnection()) {
+            return batchInsert(connection, tableName, dataArray, keyType, batchSize, batchMode);
+        } catch (SQLException e) {
+            throw new RuntimeException("Batch insert failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 批量插入数据（使用全局连接池，默认批量大小1000）
+     * 
+     * @param tableName 表名
+     * @param dataArray 数据JSONArray
+     * @param keyType 主键类型
+     * @param <T> 主键类型泛型
+     * @return 生成的主键列表
+     */
+    public static <T> List<T> batchInsert(String tableName, JSONArray dataArray, Class<T> keyType) {
+        return batchInsert(tableName, dataArray, keyType, 1000);
+    }
+
+    /**
+     * 插入数据（使用指定连接）
+     * 
+     * @param connection 数据库连接
+     * @param tableName 表名
+     * @param data 数据JSONObject
+     * @param keyType 主键类型
+     * @param <T> 主键类型泛型
+     * @return 生成的主键
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T insert(Connection connection, String tableName, JSONObject data, Class<T> keyType) {
+        if (data == null || data.isEmpty()) {
+            throw new IllegalArgumentException("插入数据不能为空");
+        }
+        
+        try {
+            // 如果是String类型主键，自动生成UUID
+            List<String> primaryKeys = null;
+            if (keyType == String.class) {
+                primaryKeys = getPrimaryKeyColumns(connection, tableName);
+                if (!primaryKeys.isEmpty()) {
+                    String uuid = UUID.randomUUID().toString().replace("-", "");
+                    data.put(primaryKeys.get(0), uuid);
+                }
+            }
+            
+            List<String> columns = new ArrayList<>();
+            List<Object> values = new ArrayList<>();
+            
+            for (String key : data.keySet()) {
+                columns.add(key);
+                values.add(data.get(key));
+            }
+            
+            String sql = "INSERT INTO " + tableName + " (" + String.join(",", columns) + ") VALUES (" + 
+                         String.join(",", columns.stream().map(c -> "?").toArray(String[]::new)) + ")";
+            
+            try (MySqlStatementCache.CachedStatement cached = MySqlStatementCache.prepare(connection, sql, true)) {
+                PreparedStatement stmt = cached.statement();
+                for (int i = 0; i < values.size(); i++) {
+                    stmt.setObject(i + 1, values.get(i));
+                }
+                
+                int affectedRows = executeRecorded(stmt, MySqlQueryMetrics.Operation.INSERT, sql, values.toArray(), 0);
+                if (affectedRows > 0) {
+                    // 如果是String类型，直接返回生成的UUID
+                    if (keyType == String.class) {
+                        if (!primaryKeys.isEmpty()) {
+                            return (T) data.getString(primaryKeys.get(0));
+                        }
+                    }
+                    
+                    // 其他类型从数据库获取
+                    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            Object key = generatedKeys.getObject(1);
+                            return convertKey(key, keyType);
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("插入失败", e);
+        } finally {
+            onTableWritten(tableName);
+        }
+        return null;
+    }
+
+    /**
+     * 批量插入数据（使用指定连接）
+     * 
+     * @param connection 数据库连接
+     * @param tableName 表名
+     * @param dataArray 数据JSONArray
+     * @param keyType 主键类型
+     * @param batchSize 批量大小
+     * @param <T> 主键类型泛型
+     * @return 生成的主键列表
+     */
+    public static <T> List<T> batchInsert(Connection connection, String tableName, JSONArray dataArray, Class<T> keyType, int batchSize) {
+        return batchInsert(connection, tableName, dataArray, keyType, batchSize, BatchMode.JDBC_BATCH);
+    }
+
+    /**
+     * 批量插入数据（使用指定连接，指定批量模式）
+     * 
+     * @param connection 数据库连接
+     * @param tableName 表名
+     * @param dataArray 数据JSONArray
+     * @param keyType 主键类型
+     * @param batchSize 批量大小（MULTI_VALUES模式下为单条语句最大行数）
+     * @param batchMode 批量模式
+     * @param <T> 主键类型泛型
+     * @return 生成的主键列表
+     */
+    public static <T> List<T> batchInsert(Connection connection, String tableName, JSONArray dataArray, Class<T> keyType,
+                                          int batchSize, BatchMode batchMode) {
+        if (dataArray == null || dataArray.isEmpty()) {
+            throw new IllegalArgumentException("Batch insert data cannot be empty");
+        }
+        
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than 0");
+        }
+        
+        List<T> allKeys = new ArrayList<>();
+        
+        try {
+            // 获取主键字段信息（用于String类型UUID生成）
+            List<String> primaryKeys = null;
+            if (keyType == String.class) {
+                primaryKeys = getPrimaryKeyColumns(connection, tableName);
+            }
+            
+            // 获取第一条数据的字段信息
+            JSONObject firstData = dataArray.getJSONObject(0);
+            if (firstData == null || firstData.isEmpty()) {
+                throw new IllegalArgumentException("First data record cannot be empty");
+            }
+            
+            List<String> columns = new ArrayList<>(firstData.keySet());
+            
+            // String类型主键由UUID生成，确保主键列参与插入
+            if (primaryKeys != null && !primaryKeys.isEmpty() && !columns.contains(primaryKeys.get(0))) {
+                columns.add(primaryKeys.get(0));
+            }
+            
+            if (batchMode == BatchMode.MULTI_VALUES) {
+                return insertMultiValues(connection, tableName, dataArray, columns, primaryKeys, keyType, batchSize);
+            }
+            
+            // 构建SQL语句
+            String sql = "INSERT INTO " + tableName + " (" + String.join(",", columns) + ") VALUES (" + 
+                         String.join(",", columns.stream().map(c -> "?").toArray(String[]::new)) + ")";
+            
+            // 分批处理
+            for (int i = 0; i < dataArray.size(); i += batchSize) {
+                int endIndex = Math.min(i + batchSize, dataArray.size());
+                List<T> batchKeys = processBatch(connection, sql, dataArray, i, endIndex, columns, primaryKeys, keyType);
+                allKeys.addAll(batchKeys);
+            }
+            
+        } catch (SQLException e) {
+            throw new RuntimeException("Batch insert failed: " + e.getMessage(), e);
+        } finally {
+            onTableWritten(tableName);
+        }
+        
+        return allKeys;
+    }
+
+    /**
+     * 批量插入数据（使用指定连接，默认批量大小1000）
+     * 
+     * @param connection 数据库连接
+     * @param tableName 表名
+     * @param dataArray 数据JSONArray
+     * @param keyType 主键类型
+     * @param <T> 主键类型泛型
+     * @return 生成的主键列表
+     */
+    public static <T> List<T> batchInsert(Connection connection, String tableName, JSONArray dataArray, Class<T> keyType) {
+        return batchInsert(connection, tableName, dataArray, keyType, 1000);
+    }
+
+    /**
+     * 并行分片批量插入（使用全局连接池，多行VALUES模式）
+     * 数据按chunkSize切分，每个分片在独立连接和事务中插入，失败的分片可重试
+     * 
+     * @param tableName 表名
+     * @param dataArray 数据JSONArray
+     * @param keyType 主键类型
+     * @param chunkSize 每个分片的行数
+     * @param parallelism 并行连接数（不超过连接池最大连接数）
+     * @param maxRetries 分片失败后的最大重试次数
+     * @param <T> 主键类型泛型
+     * @return 生成的主键列表（与数据顺序一致）
+     * @throws ParallelInsertException 存在重试后仍失败的分片
+     */
+    public static <T> List<T> parallelBatchInsert(String tableName, JSONArray dataArray, Class<T> keyType,
+                                                  int chunkSize, int parallelism, int maxRetries) {
+        return parallelBatchInsert(tableName, dataArray, keyType, chunkSize, parallelism, maxRetries, BatchMode.MULTI_VALUES);
+    }
+
+    /**
+     * 并行分片批量插入（使用全局连接池，指定批量模式）
+     * 
+     * @param tableName 表名
+     * @param dataArray 数据JSONArray
+     * @param keyType 主键类型
+     * @param chunkSize 每个分片的行数
+     * @param parallelism 并行连接数（不超过连接池最大连接数）
+     * @param maxRetries 分片失败后的最大重试次数
+     * @param batchMode 分片内的批量模式
+     * @param <T> 主键类型泛型
+     * @return 生成的主键列表（与数据顺序一致）
+     * @throws ParallelInsertException 存在重试后仍失败的分片
+     */
+    public static <T> List<T> parallelBatchInsert(String tableName, JSONArray dataArray, Class<T> keyType,
+                                                  int chunkSize, int parallelism, int maxRetries,
+                                                  BatchMode batchMode) {
+        if (dataArray == null || dataArray.isEmpty()) {
+            throw new IllegalArgumentException("Batch insert data cannot be empty");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be greater than 0");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be greater than 0");
+        }
+        ensureInitialized();
+        
+        int chunkCount = (dataArray.size() + chunkSize - 1) / chunkSize;
+        int threads = Math.min(Math.min(parallelism, chunkCount), connectionPool.getMaxTotal());
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "mysql-batch-insert-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        try {
+            List<Future<List<T>>> futures = new ArrayList<>(chunkCount);
+            List<AtomicInteger> attempts = new ArrayList<>(chunkCount);
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                int fromIndex = chunk * chunkSize;
+                int toIndex = Math.min(fromIndex + chunkSize, dataArray.size());
+                JSONArray chunkData = new JSONArray(dataArray.subList(fromIndex, toIndex));
+                AtomicInteger chunkAttempts = new AtomicInteger();
+                attempts.add(chunkAttempts);
+                futures.add(executor.submit(() -> insertChunk(tableName, chunkData, keyType, chunkSize, batchMode,
+                        maxRetries, chunkAttempts)));
+            }
+            
+            // 按分片顺序汇总主键，保证与数据顺序一致（失败分片的行用null占位）
+            List<T> allKeys = new ArrayList<>(dataArray.size());
+            List<ChunkFailure> failures = new ArrayList<>();
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                try {
+                    allKeys.addAll(futures.get(chunk).get());
+                } catch (ExecutionException e) {
+                    int fromIndex = chunk * chunkSize;
+                    int toIndex = Math.min(fromIndex + chunkSize, dataArray.size());
+                    failures.add(new ChunkFailure(chunk, fromIndex, toIndex, attempts.get(chunk).get(), e.getCause()));
+                    allKeys.addAll(Collections.nCopies(toIndex - fromIndex, (T) null));
+                }
+            }
+            if (!failures.isEmpty()) {
+                throw new ParallelInsertException(failures, new ArrayList<Object>(allKeys));
+            }
+            return allKeys;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Parallel batch insert interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 在独立事务中插入一个分片，暂时性故障（死锁、锁等待超时、连接中断等）回滚后退避重试，
+     * 主键冲突、数据过长等确定性错误直接失败
+     */
+    private static <T> List<T> insertChunk(String tableName, JSONArray chunkData, Class<T> keyType, int batchSize,
+                                           BatchMode batchMode, int maxRetries, AtomicInteger attempts)
+            throws InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            attempts.incrementAndGet();
+            try {
+                return executeInTransaction(connection -> {
+                    return batchInsert(connection, tableName, chunkData, keyType, batchSize, batchMode);
+                });
+            } catch (RuntimeException e) {
+                if (attempt >= maxRetries || !isTransientFailure(e)) {
+                    throw e;
+                }
+            }
+            // 指数退避加随机抖动，避免并行分片同时重试再次冲突
+            long backoff = Math.min(RETRY_MAX_BACKOFF_MILLIS, RETRY_BASE_BACKOFF_MILLIS << Math.min(attempt, 10));
+            Thread.sleep(backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+        }
+    }
+
+    /**
+     * 是否为可以重试的暂时性故障：SQLTransientException、SQLRecoverableException、
+     * 死锁（1213）、锁等待超时（1205）或连接中断
+     */
+    private static boolean isTransientFailure(Throwable e) {
+        if (isConnectionFailure(e)) {
+            return true;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientException || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (cause instanceof SQLException) {
+                int errorCode = ((SQLException) cause).getErrorCode();
+                if (errorCode == 1213 || errorCode == 1205) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 并行批量插入中失败的分片
+     */
+    public static final class ChunkFailure {
+        private final int chunkIndex;
+        private final int fromIndex;
+        private final int toIndex;
+        private final int attempts;
+        private final Throwable cause;
+
+        ChunkFailure(int chunkIndex, int fromIndex, int toIndex, int attempts, Throwable cause) {
+            this.chunkIndex = chunkIndex;
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+            this.attempts = attempts;
+            this.cause = cause;
+        }
+
+        /** @return 分片序号 */
+        public int getChunkIndex() {
+            return chunkIndex;
+        }
+
+        /** @return 分片在原数据中的起始下标（包含） */
+        public int getFromIndex() {
+            return fromIndex;
+        }
+
+        /** @return 分片在原数据中的结束下标（不包含） */
+        public int getToIndex() {
+            return toIndex;
+        }
+
+        /** @return 尝试次数 */
+        public int getAttempts() {
+            return attempts;
+        }
+
+        /** @return 最后一次失败的异常 */
+        public Throwable getCause() {
+            return cause;
+        }
+    }
+
+    /**
+     * 并行批量插入存在失败分片时抛出，成功分片已提交
+     */
+    public static class ParallelInsertException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final List<ChunkFailure> failures;
+        private final List<Object> succeededKeys;
+
+        ParallelInsertException(List<ChunkFailure> failures, List<Object> succeededKeys) {
+            super(failures.size() + " chunk(s) failed in parallel batch insert, first failure at rows ["
+                  + failures.get(0).getFromIndex() + ", " + failures.get(0).getToIndex() + "): "
+                  + failures.get(0).getCause().getMessage(), failures.get(0).getCause());
+            this.failures = failures;
+            this.succeededKeys = succeededKeys;
+        }
+
+        /** @return 失败的分片 */
+        public List<ChunkFailure> getFailures() {
+            return failures;
+        }
+
+        /** @return 各行的主键，与数据顺序一致，失败分片对应的行为null */
+        public List<Object> getSucceededKeys() {
+            return succeededKeys;
+        }
+    }
+
+    /**
+     * 处理单批数据插入
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> processBatch(Connection connection, String sql, JSONArray dataArray, 
+                                          int startIndex, int endIndex, List<String> columns,
+                                          List<String> primaryKeys, Class<T> keyType) throws SQLException {
+        
+        List<T> batchKeys = new ArrayList<>();
+        
+        try (MySqlStatementCache.CachedStatement cached = MySqlStatementCache.prepare(connection, sql, true)) {
+            PreparedStatement stmt = cached.statement();
+            
+            // 添加批量数据
+            for (int i = startIndex; i < endIndex; i++) {
+                JSONObject data = dataArray.getJSONObject(i);
+                if (data == null) {
+                    continue; // 跳过空数据
+                }
+                
+                // 为String类型主键生成UUID
+                if (keyType == String.class && primaryKeys != null && !primaryKeys.isEmpty()) {
+                    String uuid = UUID.randomUUID().toString().replace("-", "");
+                    data.put(primaryKeys.get(0), uuid);
+                }
+                
+                // 设置参数
+                for (int j = 0; j < columns.size(); j++) {
+                    String column = columns.get(j);
+                    Object value = data.get(column);
+                    stmt.setObject(j + 1, value);
+                }
+                
+                stmt.addBatch();
+            }
+            
+            // 执行批量插入
+            long start = System.nanoTime();
+            int[] results;
+            try {
+                results = stmt.executeBatch();
+            } catch (SQLException e) {
+                recordStatement(MySqlQueryMetrics.Operation.BATCH, sql, null, start, -1, endIndex - startIndex, e);
+                throw e;
+            }
+            recordStatement(MySqlQueryMetrics.Operation.BATCH, sql, null, start, results.length, endIndex - startIndex, null);
+            
+            // 获取生成的主键
+            if (keyType == String.class && primaryKeys != null && !primaryKeys.isEmpty()) {
+                // String类型主键直接从数据中获取（批量重写时结果为SUCCESS_NO_INFO）
+                String primaryKeyColumn = primaryKeys.get(0);
+                int resultIndex = 0;
+                for (int i = startIndex; i < endIndex; i++) {
+                    JSONObject data = dataArray.getJSONObject(i);
+                    if (data == null) {
+                        continue;
+                    }
+                    int result = results[resultIndex++];
+                    if (result > 0 || result == Statement.SUCCESS_NO_INFO) {
+                        T key = (T) data.getString(primaryKeyColumn);
+                        batchKeys.add(key);
+                    }
+                }
+            } else {
+                // 其他类型主键从数据库获取
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    while (generatedKeys.next()) {
+                        Object key = generatedKeys.getObject(1);
+                        batchKeys.add(convertKey(key, keyType));
+                    }
+                }
+            }
+        }
+        
+        return batchKeys;
+    }
+
+    /**
+     * 多行VALUES模式插入：按行数、占位符上限和max_allowed_packet切分为多条INSERT ... VALUES (...),(...)
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> insertMultiValues(Connection connection, String tableName, JSONArray dataArray,
+                                                 List<String> columns, List<String> primaryKeys,
+                                                 Class<T> keyType, int batchSize) throws SQLException {
+        // 服务端预编译（useServerPrepStmts=true）时单条语句最多65535个占位符
+        int maxRows = Math.max(1, Math.min(batchSize, MAX_PLACEHOLDERS / columns.size()));
+        String prefix = "INSERT INTO " + tableName + " (" + String.join(",", columns) + ") VALUES ";
+        String rowPlaceholder = "(" + String.join(",", columns.stream().map(c -> "?").toArray(String[]::new)) + ")";
+        boolean uuidKeys = keyType == String.class && primaryKeys != null && !primaryKeys.isEmpty();
+        
+        // 为String类型主键生成UUID
+        if (uuidKeys) {
+            for (int i = 0; i < dataArray.size(); i++) {
+                JSONObject data = dataArray.getJSONObject(i);
+                if (data != null) {
+                    data.put(primaryKeys.get(0), UUID.randomUUID().toString().replace("-", ""));
+                }
+            }
+        }
+        
+        List<T> allKeys = new ArrayList<>();
+        forEachMultiValuesChunk(connection, dataArray, columns, prefix.length(), rowPlaceholder.length(), maxRows,
+                rows -> allKeys.addAll(executeMultiValues(connection, prefix, rowPlaceholder, rows, columns,
+                                                          uuidKeys ? primaryKeys.get(0) : null, keyType)));
+        return allKeys;
+    }
+
+    /**
+     * 多行语句分块回调
+     */
+    @FunctionalInterface
+    private interface MultiValuesChunkHandler {
+        void handle(List<JSONObject> rows) throws SQLException;
+    }
+
+    /**
+     * 按行数和max_allowed_packet把数据切分为多行语句的分块（跳过空数据）
+     */
+    private static void forEachMultiValuesChunk(Connection connection, JSONArray dataArray, List<String> columns,
+                                                int fixedLength, int rowPlaceholderLength, int maxRows,
+                                                MultiValuesChunkHandler handler) throws SQLException {
+        long packetBudget = (long) (getMaxAllowedPacket(connection) * MULTI_VALUES_PACKET_RATIO);
+        List<JSONObject> rows = new ArrayList<>();
+        long statementBytes = fixedLength;
+        
+        for (int i = 0; i < dataArray.size(); i++) {
+            JSONObject data = dataArray.getJSONObject(i);
+            if (data == null) {
+                continue; // 跳过空数据
+            }
+            
+            long rowBytes = rowPlaceholderLength + 1 + estimateRowBytes(data, columns);
+            if (!rows.isEmpty() && (rows.size() >= maxRows || statementBytes + rowBytes > packetBudget)) {
+                handler.handle(rows);
+                rows = new ArrayList<>();
+                statementBytes = fixedLength;
+            }
+            rows.add(data);
+            statementBytes += rowBytes;
+        }
+        
+        if (!rows.isEmpty()) {
+            handler.handle(rows);
+        }
+    }
+
+    /**
+     * 拼接多行VALUES语句：prefix + (?,?),(?,?)... + suffix
+     */
+    private static String buildMultiValuesSql(String prefix, String rowPlaceholder, int rowCount, String suffix) {
+        StringBuilder sql = new StringBuilder(prefix.length() + rowCount * (rowPlaceholder.length() + 1) + suffix.length());
+        sql.append(prefix);
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(rowPlaceholder);
+        }
+        return sql.append(suffix).toString();
+    }
+
+    /**
+     * 执行一条多行INSERT，按行顺序返回主键
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> executeMultiValues(Connection connection, String prefix, String rowPlaceholder,
+                                                  List<JSONObject> rows, List<String> columns,
+                                                  String uuidKeyColumn, Class<T> keyType) throws SQLException {
+        String sql = buildMultiValuesSql(prefix, rowPlaceholder, rows.size(), "");
+        
+        List<T> keys = new ArrayList<>(rows.size());
+        try (MySqlStatementCache.CachedStatement cached = MySqlStatementCache.prepare(connection, sql, uuidKeyColumn == null)) {
+            PreparedStatement stmt = cached.statement();
+            int index = 1;
+            for (JSONObject row : rows) {
+                for (String column : columns) {
+                    stmt.setObject(index++, row.get(column));
+                }
+            }
+            executeRecorded(stmt, MySqlQueryMetrics.Operation.BATCH, sql, null, rows.size());
+            
+            if (uuidKeyColumn != null) {
+                // String类型主键直接从数据中获取
+                for (JSONObject row : rows) {
+                    keys.add((T) row.getString(uuidKeyColumn));
+                }
+            } else {
+                // 多行INSERT的自增主键连续分配，驱动按行顺序返回
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    while (generatedKeys.next()) {
+                        keys.add(convertKey(generatedKeys.getObject(1), keyType));
+                    }
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * 估算一行参数在SQL中占用的字节数（按UTF-8及转义的最坏情况估算）
+     */
+    private static long estimateRowBytes(JSONObject data, List<String> columns) {
+        long bytes = 0;
+        for (String column : columns) {
+            Object value = data.get(column);
+            if (value == null) {
+                bytes += 4;
+            } else if (value instanceof Number || value instanceof Boolean) {
+                bytes += 24;
+            } else if (value instanceof byte[]) {
+                bytes += ((byte[]) value).length * 2L + 3;
+            } else {
+                bytes += value.toString().length() * 6L + 2;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 获取服务端max_allowed_packet（只查询一次）
+     */
+    private static long getMaxAllowedPacket(Connection connection) {
+        long packet = maxAllowedPacket;
+        if (packet > 0) {
+            return packet;
+        }
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT @@max_allowed_packet")) {
+            packet = rs.next() ? rs.getLong(1) : DEFAULT_MAX_ALLOWED_PACKET;
+        } catch (SQLException e) {
+            packet = DEFAULT_MAX_ALLOWED_PACKET;
+        }
+        maxAllowedPacket = packet;
+        return packet;
+    }
+
+    // ========== 更新操作 ==========
+
+    /**
+     * 根据ID更新数据（使用全局连接池）
+     * 
+     * @param tableName 表名
+     * @param id 主键ID
+     * @param data 更新数据JSONObject
+     * @return 是否更新成功
+     */
+    public static boolean updateById(String tableName, Object id, JSONObject data) {
+        try (Connection connection = getConnection()) {
+            return updateById(connection, tableName, id, data);
+        } catch (SQLException e) {
+            throw new RuntimeException("更新失败", e);
+        }
+    }
+
+    /**
+     * 根据ID更新数据（使用指定连接）
+     * 
+     * @param connection 数据库连接
+     * @param tableName 表名
+     * @param id 主键ID
+     * @param data 更新数据JSONObject
+     * @return 是否更新成功
+     */
+    public static boolean updateById(Connection connection, String tableName, Object id, JSONObject data) {
+        if (data == null || data.isEmpty()) {
+            throw new IllegalArgumentException("更新数据不能为空");
+        }
+        
+        List<String> setParts = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        
+        for (String key : data.keySet()) {
+            setParts.add(key + " = ?");
+            values.add(data.get(key));
+        }
+        values.add(id);
+        
+        String sql = "UPDATE " + tableName + " SET " + String.join(",", setParts) + " WHERE id = ?";
+        
+        try (MySqlStatementCache.CachedStatement cached = MySqlStatementCache.prepare(connection, sql, false)) {
+            PreparedStatement stmt = cached.statement();
+            for (int i = 0; i < values.size(); i++) {
+                stmt.setObject(i + 1, values.get(i));
+            }
+            return executeRecorded(stmt, MySqlQueryMetrics.Operation.UPDATE, sql, values.toArray(), 0) > 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("更新失败", e);
+        } finally {
+            onTableWritten(tableName);
+        }
+    }
+
+    // ========== 删除操作 ==========
+
+    /**
+     * 根据ID删除数据（使用全局连接池）
+     * 
+     * @param tableName 表名
+     * @param id 主键ID
+     * @return 是否删除成功
+     */
+    public static boolean deleteById(String tableName, Object id) {
+        try (Connection connection = getConnection()) {
+            return deleteById(connection, tableName, id);
+        } catch (SQLException e) {
+            throw new RuntimeException("删除失败", e);
+        }
+    }
+
+    /**
+     * 根据ID删除数据（使用指定连接）
+     * 
+     * @param connection 数据库连接
+     * @param tableName 表名
+     * @param id 主键ID
+     * @return 是否删除成功
+     */
+    public static boolean deleteById(Connection connection, String tableName, Object id) {
+        String sql = "DELETE FROM " + tableName + " WHERE id = ?";
+        try (MySqlStatementCache.CachedStatement cached = MySqlStatementCache.prepare(connection, sql, false)) {
+            PreparedStatement stmt = cached.statement();
+            stmt.setObject(1, id);
+            return executeRecorded(stmt, MySqlQueryMetrics.Operation.UPDATE, sql, new Object[]{id}, 0) > 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("删除失败", e);
+        } finally {
+            onTableWritten(tableName);
+        }
+    }
+
+    // ========== 批量写入（Upsert/批量更新/批量删除） ==========
+
+    /**
+     * 插入或更新单条数据（INSERT ... ON DUPLICATE KEY UPDATE，使用全局连接池）
+     * 主键或唯一键冲突时更新除主键外的所有列
+     * 
+     * @param tableName 表名
+     * @param data 数据JSONObject
+     * @return 影响行数（MySQL约定：插入为1，更新为2，数据未变化为0）
+     */
+    public static int upsert(String tableName, JSONObject data) {
+        try (Connection connection = getConnection()) {
+            return upsert(connection, tableName, data);
+        } catch (SQLException e) {
+            throw new RuntimeException("Upsert failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 插入或更新单条数据（使用指定连接）
+     * 
+     * @param connection 数据库连接
+     * @param tableName 表名
+     * @param data 数据JSONObject
+     * @return 影响行数（MySQL约定：插入为1，更新为2，数据未变化为0）
+     */
+    public static int upsert(Connection connection, String tableName, JSONObject data) {
+        if (data == null || data.isEmpty()) {
+            throw new IllegalArgumentException("Upsert data cannot be empty");
+        }
+        JSONArray dataArray = new JSONArray(1);
+        dataArray.add(data);
+        return batchUpsert(connection, tableName, dataArray, 1);
+    }
+
+    /**
+     * 批量插入或更新（多行INSERT ... ON DUPLICATE KEY UPDATE，使用全局连接池，默认每条语句最多1000行）
+     * 
+     * @param tableName 表名
+     * @param dataArray 数据JSONArray（列以第一条数据为准）
+     * @return 影响行数合计
+     */
+    public static int batchUpsert(String tableName, JSONArray dataArray) {
+        return batchUpsert(tableName, dataArray, 1000);
+    }
+
+    /**
+     * 批量插入或更新（使用全局连接池）
+     * 
+     * @param tableName 表名
+     * @param dataArray 数据JSONArray（列以第一条数据为准）
+     * @param batchSize 单条语句最大行数（同时受max_allowed_packet限制）
+     * @return 影响行数合计
+     */
+    public static int batchUpsert(String tableName, JSONArray dataArray, int batchSize) {
+        try (Connection connection = getConnection()) {
+            return batchUpsert(connection, tableName, dataArray, batchSize);
+        } catch (SQLException e) {
+            throw new RuntimeException("Batch upsert failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 批量插入或更新（使用指定连接）
+     * 
+     * @param connection 数据库连接
+     * @param tableName 表名
+     * @param dataArray 数据JSONArray（列以第一条数据为准）
+     * @param batchSize 单条语句最大行数（同时受max_allowed_packet限制）
+     * @return 影响行数合计
+     */
+    public static int batchUpsert(Connection connection, String tableName, JSONArray dataArray, int batchSize) {
+        if (dataArray == null || dataArray.isEmpty()) {
+            throw new IllegalArgumentException("Batch upsert data cannot be empty");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than 0");
+        }
+        JSONObject firstData = dataArray.getJSONObject(0);
+        if (firstData == null || firstData.isEmpty()) {
+            throw new IllegalArgumentException("First data record cannot be empty");
+        }
+        
+        try {
+            List<String> columns = new ArrayList<>(firstData.keySet());
+            List<String> primaryKeys = getPrimaryKeyColumns(connection, tableName);
+            
+            // 冲突时更新除主键外的列；全部为主键列时用主键自赋值，仅忽略冲突
+            List<String> updateParts = new ArrayList<>();
+            for (String column : columns) {
+                if (!primaryKeys.contains(column)) {
+                    updateParts.add(column + " = VALUES(" + column + ")");
+                }
+            }
+            if (updateParts.isEmpty()) {
+                updateParts.add(columns.get(0) + " = " + columns.get(0));
+            }
+            
+            String prefix = "INSERT INTO " + tableName + " (" + String.join(",", columns) + ") VALUES ";
+            String rowPlaceholder = "(" + String.join(",", columns.stream().map(c -> "?").toArray(String[]::new)) + ")";
+            String suffix = " ON DUPLICATE KEY UPDATE " + String.join(",", updateParts);
+            
+            int maxRows = Math.max(1, Math.min(batchSize, MAX_PLACEHOLDERS / columns.size()));
+            int[] affected = new int[1];
+            forEachMultiValuesChunk(connection, dataArray, columns, prefix.length() + suffix.length(),
+                    rowPlaceholder.length(), maxRows, rows -> {
+                        String sql = buildMultiValuesSql(prefix, rowPlaceholder, rows.size(), suffix);
+                        try (MySqlStatementCache.CachedStatement cached = MySqlStatementCache.prepare(connection, sql, false)) {
+                            PreparedStatement stmt = cached.statement();
+                            int index = 1;
+                            for (JSONObject row : rows) {
+                                for (String column : columns) {
+                                    stmt.setObject(index++, row.get(column));
+                                }
+                            }
+                            affected[0] += executeRecorded(stmt, MySqlQueryMetrics.Operation.BATCH, sql, null, rows.size());
+                        }
+                    });
+            return affected[0];
+        } catch (SQLException e) {
+            throw new RuntimeException("Batch upsert failed: " + e.getMessage(), e);
+        } finally {
+            onTableWritten(tableName);
+        }
+    }
+
+    /**
+     * 根据ID批量更新（UPDATE ... SET col = CASE id WHEN ? THEN ? ... END WHERE id IN (...)，使用全局连接池）
+     * 每条数据必须包含id列，其余列为要更新的列；列集合相同的数据合并为同一条语句
+     * 
+     * @param tableName 表名
+     * @param dataArray 数据JSONArray
+     * @param batchSize 单条语句最大行数
+     * @return 影响行数合计
+     */
+    public static int batchUpdateById(String tableName, JSONArray dataArray, int batchSize) {
+        try (Connection connection = getConnection()) {
+            return batchUpdateById(connection, tableName, dataArray, batchSize);
+        } catch (SQLException e) {
+            throw new RuntimeException("Batch update failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 根据ID批量更新（使用全局连接池，默认每条语句最多500行）
+     * 
+     * @param tableName 表名
+     * @param dataArray 数据JSONArray
+     * @return 影响行数合计
+     */
+    public static int batchUpdateById(String tableName, JSONArray dataArray) {
+        return batchUpdateById(tableName, dataArray, 500);
+    }
+
+    /**
+     * 根据ID批量更新（使用指定连接）
+     * 
+     * @param connection 数据库连接
+     * @param tableName 表名
+     * @param dataArray 数据JSONArray
+     * @param batchSize 单条语句最大行数（同时受max_allowed_packet及占位符数量限制）
+     * @return 影响行数合计
+     */
+    public static int batchUpdateById(Connection connection, String tableName, JSONArray dataArray, int batchSize) {
+        if (dataArray == null || dataArray.isEmpty()) {
+            throw new IllegalArgumentException("Batch update data cannot be empty");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than 0");
+        }
+        
+        // 按更新列集合分组，保持首次出现的顺序
+        Map<List<String>, JSONArray> groups = new LinkedHashMap<>();
+        for (int i = 0; i < dataArray.size(); i++) {
+            JSONObject data = dataArray.getJSONObject(i);
+            if (data == null) {
+                continue; // 跳过空数据
+            }
+            if (data.get("id") == null) {
+                throw new IllegalArgumentException("Batch update data must contain a non-null id at index " + i);
+            }
+            List<String> columns = new ArrayList<>(data.keySet());
+            columns.remove("id");
+            if (columns.isEmpty()) {
+                continue; // 没有需要更新的列
+            }
+            groups.computeIfAbsent(columns, k -> new JSONArray()).add(data);
+        }
+        
+        int affected = 0;
+        try {
+            for (Map.Entry<List<String>, JSONArray> group : groups.entrySet()) {
+                List<String> columns = group.getKey();
+                JSONArray rows = group.getValue();
+                // 每行占用 2 * 列数 + 1 个占位符
+                int maxRows = Math.max(1, Math.min(batchSize, MAX_PLACEHOLDERS / (2 * columns.size() + 1)));
+                int[] groupAffected = new int[1];
+                forEachMultiValuesChunk(connection, rows, columns, 64 * columns.size(), 16 * columns.size() + 2, maxRows,
+                        chunk -> groupAffected[0] += executeCaseWhenUpdate(connection, tableName, columns, chunk));
+                affected += groupAffected[0];
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Batch update failed: " + e.getMessage(), e);
+        } finally {
+            onTableWritten(tableName);
+        }
+        return affected;
+    }
+
+    /**
+     * 执行一条CASE WHEN批量更新语句
+     */
+    private static int executeCaseWhenUpdate(Connection connection, String tableName, List<String> columns,
+                                             List<JSONObject> rows) throws SQLException {
+        StringBuilder sql = new StringBuilder("UPDATE ").append(tableName).append(" SET ");
+        for (int c = 0; c < columns.size(); c++) {
+            String column = columns.get(c);
+            if (c > 0) {
+                sql.append(',');
+            }
+            sql.append(column).append(" = CASE id");
+            for (int i = 0; i < rows.size(); i++) {
+                sql.append(" WHEN ? THEN ?");
+            }
+            sql.append(" ELSE ").append(column).append(" END");
+        }
+        sql.append(" WHERE id IN (");
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+        sql.append(')');
+        
+        String statementSql = sql.toString();
+        try (MySqlStatementCache.CachedStatement cached = MySqlStatementCache.prepare(connection, statementSql, false)) {
+            PreparedStatement stmt = cached.statement();
+            int index = 1;
+            for (String column : columns) {
+                for (JSONObject row : rows) {
+                    stmt.setObject(index++, row.get("id"));
+                    stmt.setObject(index++, row.get(column));
+                }
+            }
+            for (JSONObject row : rows) {
+                stmt.setObject(index++, row.get("id"));
+            }
+            return executeRecorded(stmt, MySqlQueryMetrics.Operation.BATCH, statementSql, null, rows.size());
+        }
+    }
+
+    /**
+     * 根据ID批量删除（使用全局连接池，每条语句最多1000个ID）
+     * 
+     * @param tableName 表名
+     * @param ids 主键ID集合
+     * @return 删除行数合计
+     */
+    public static int deleteByIds(String tableName, Collection<?> ids) {
+        return deleteByIds(tableName, ids, DEFAULT_IN_CHUNK_SIZE);
+    }
+
+    /**
+     * 根据ID批量删除（使用全局连接池）
+     * 
+     * @param tableName 表名
+     * @param ids 主键ID集合
+     * @param chunkSize 每条DELETE语句IN列表的最大长度
+     * @return 删除行数合计
+     */
+    public static int deleteByIds(String tableName, Collection<?> ids, int chunkSize) {
+        try (Connection connection = getConnection()) {
+            return deleteByIds(connection, tableName, ids, chunkSize);
+        } catch (SQLException e) {
+            throw new RuntimeException("Batch delete failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 根据ID批量删除（使用指定连接）
+     * 
+     * @param connection 数据库连接
+     * @param tableName 表名
+     * @param ids 主键ID集合
+     * @param chunkSize 每条DELETE语句IN列表的最大长度
+     * @return 删除行数合计
+     */
+    public static int deleteByIds(Connection connection, String tableName, Collection<?> ids, int chunkSize) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        if (chunkSize <= 0 || chunkSize > MAX_PLACEHOLDERS) {
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + MAX_PLACEHOLDERS);
+        }
+        
+        List<Object> idList = new ArrayList<>(ids);
+        int deleted = 0;
+        try {
+            for (int start = 0; start < idList.size(); start += chunkSize) {
+                int end = Math.min(start + chunkSize, idList.size());
+                String sql = buildMultiValuesSql("DELETE FROM " + tableName + " WHERE id IN (", "?", end - start, ")");
+                try (MySqlStatementCache.CachedStatement cached = MySqlStatementCache.prepare(connection, sql, false)) {
+                    PreparedStatement stmt = cached.statement();
+                    for (int i = start; i < end; i++) {
+                        stmt.setObject(i - start + 1, idList.get(i));
+                    }
+                    deleted += executeRecorded(stmt, MySqlQueryMetrics.Operation.BATCH, sql, null, end - start);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Batch delete failed: " + e.getMessage(), e);
+        } finally {
+            onTableWritten(tableName);
+        }
+        return deleted;
+    }
+
+    // ========== 批量导入（LOAD DATA LOCAL INFILE） ==========
+
+    /**
+     * 通过LOAD DATA LOCAL INFILE批量导入（列以第一条数据为准）
+     * 使用单独创建的连接（仅该连接开启allowLoadLocalInfile），数据边读边编码发送，不写临时文件
+     * 
+     * @param tableName 表名
+     * @param dataArray 数据JSONArray
+     * @return 导入结果：rows（发送行数）、loaded（导入行数）、skipped（因重复键等被跳过的行数）
+     */
+    public static JSONObject bulkLoad(String tableName, JSONArray dataArray) {
+        if (dataArray == null || dataArray.isEmpty()) {
+            throw new IllegalArgumentException("Bulk load data cannot be empty");
+        }
+        JSONObject firstData = dataArray.getJSONObject(0);
+        if (firstData == null || firstData.isEmpty()) {
+            throw new IllegalArgumentException("First data record cannot be empty");
+        }
+        List<JSONObject> rows = dataArray.toJavaList(JSONObject.class);
+        return bulkLoad(tableName, rows.iterator(), new ArrayList<>(firstData.keySet()));
+    }
+
+    /**
+     * 通过LOAD DATA LOCAL INFILE批量导入迭代器中的数据（使用单独创建的连接）
+     * 
+     * @param tableName 表名
+     * @param rows 数据迭代器（可以是流式查询结果等无法一次载入内存的数据）
+     * @param columns 导入的列
+     * @return 导入结果：rows（发送行数）、loaded（导入行数）、skipped（因重复键等被跳过的行数）
+     */
+    public static JSONObject bulkLoad(String tableName, Iterator<JSONObject> rows, List<String> columns) {
+        try (Connection connection = createBulkLoadConnection()) {
+            return bulkLoad(connection, tableName, rows, columns);
+        } catch (SQLException e) {
+            throw new RuntimeException("Bulk load failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 通过LOAD DATA LOCAL INFILE批量导入（使用指定连接，连接URL需包含allowLoadLocalInfile=true）
+     * 
+     * @param connection 数据库连接
+     * @param tableName 表名
+     * @param rows 数据迭代器
+     * @param columns 导入的列
+     * @return 导入结果：rows（发送行数）、loaded（导入行数）、skipped（因重复键等被跳过的行数）
+     */
+    public static JSONObject bulkLoad(Connection connection, String tableName, Iterator<JSONObject> rows, List<String> columns) {
+        if (rows == null) {
+            throw new IllegalArgumentException("Bulk load rows cannot be null");
+        }
+        if (columns == null || columns.isEmpty()) {
+            throw new IllegalArgumentException("Bulk load columns cannot be empty");
+        }
+        MySqlBulkLoader.RowInputStream input = new MySqlBulkLoader.RowInputStream(rows, columns);
+        String sql = MySqlBulkLoader.tsvSql(tableName, columns);
+        long start = System.nanoTime();
+        try {
+            long loaded = MySqlBulkLoader.execute(connection, sql, input);
+            recordStatement(MySqlQueryMetrics.Operation.BULK_LOAD, sql, null, start, loaded, (int) Math.min(Integer.MAX_VALUE, input.getRowCount()), null);
+            JSONObject result = new JSONObject();
+            result.put("rows", input.getRowCount());
+            result.put("loaded", loaded);
+            result.put("skipped", input.getRowCount() - loaded);
+            return result;
+        } catch (SQLException e) {
+            recordStatement(MySqlQueryMetrics.Operation.BULK_LOAD, sql, null, start, -1, 0, e);
+            throw new RuntimeException("Bulk load failed: " + e.getMessage(), e);
+        } finally {
+            onTableWritten(tableName);
+        }
+    }
+
+    /**
+     * 通过LOAD DATA LOCAL INFILE导入CSV文件（RFC 4180格式，LF换行，使用单独创建的连接）
+     * 
+     * @param tableName 表名
+     * @param filePath CSV文件路径
+     * @param columns CSV各列对应的表列（为null时按表的列顺序）
+     * @param hasHeader 首行是否为标题行
+     * @return 导入结果：loaded（导入行数）
+     */
+    public static JSONObject bulkLoadCsv(String tableName, String filePath, List<String> columns, boolean hasHeader) {
+        try (Connection connection = createBulkLoadConnection()) {
+            return bulkLoadCsv(connection, tableName, filePath, columns, hasHeader);
+        } catch (SQLException e) {
+            throw new RuntimeException("Bulk load failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 通过LOAD DATA LOCAL INFILE导入CSV文件（使用指定连接，连接URL需包含allowLoadLocalInfile=true）
+     * 
+     * @param connection 数据库连接
+     * @param tableName 表名
+     * @param filePath CSV文件路径
+     * @param columns CSV各列对应的表列（为null时按表的列顺序）
+     * @param hasHeader 首行是否为标题行
+     * @return 导入结果：loaded（导入行数）
+     */
+    public static JSONObject bulkLoadCsv(Connection connection, String tableName, String filePath,
+                                         List<String> columns, boolean hasHeader) {
+        if (!FileUtils.isFile(filePath)) {
+            throw new IllegalArgumentException("CSV file not found: " + filePath);
+        }
+        String sql = MySqlBulkLoader.csvSql(tableName, columns, hasHeader);
+        long start = System.nanoTime();
+        try (InputStream input = Files.newInputStream(Paths.get(filePath))) {
+            long loaded = MySqlBulkLoader.execute(connection, sql, input);
+            recordStatement(MySqlQueryMetrics.Operation.BULK_LOAD, sql, null, start, loaded, 0, null);
+            JSONObject result = new JSONObject();
+            result.put("loaded", loaded);
+            return result;
+        } catch (SQLException | IOException e) {
+            recordStatement(MySqlQueryMetrics.Operation.BULK_LOAD, sql, null, start, -1, 0, e);
+            throw new RuntimeException("Bulk load failed: " + e.getMessage(), e);
+        } finally {
+            onTableWritten(tableName);
+        }
+    }
+
+    /**
+     * 创建开启allowLoadLocalInfile的独立连接（不放入连接池，避免池中连接都允许LOCAL INFILE）
+     */
+    private static Connection createBulkLoadConnection() {
+        ensureInitialized();
+        if (host == null || database == null) {
+            throw new IllegalStateException("Database parameters not initialized. Please call MySqlUtils.init() method first.");
+        }
+        try {
+            String url = String.format(URL_TEMPLATE, host, port, database) + "&allowLoadLocalInfile=true";
+            return DriverManager.getConnection(url, username, password);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to create database connection: " + e.getMessage(), e);
+        }
+    }
+
+    // ========== 事务支持 ==========
+
+    /**
+     * 事务回调接口（无返回值）
+     */
+    @FunctionalInterface
+    public interface TransactionCallback {
+        void execute(Connection connection) throws Exception;
+    }
+
+    /**
+     * 事务函数接口（有返回值）
+     */
+    @FunctionalInterface
+    public interface TransactionFunction<T> {
+        T execute(Connection connection) throws Exception;
+    }
+
+    /**
+     * 事务传播方式（当前线程已处于事务中时的行为）
+     */
+    public enum Propagation {
+        /** 加入当前事务，内层失败时整个事务只能回滚 */
+        REQUIRED,
+        /** 在当前事务中创建保存点，内层失败只回滚到保存点 */
+        NESTED,
+        /** 挂起当前事务，借出新连接开启独立事务（默认） */
+        REQUIRES_NEW
+    }
+
+    /**
+     * 在事务中执行操作（无返回值）
+     * 事务期间当前线程调用的executeQuery、insert等静态方法都使用同一个事务连接；
+     * 已处于事务中时按REQUIRES_NEW传播，借出新连接开启独立事务
+     * 
+     * @param callback 事务回调
+     */
+    public static void executeInTransaction(TransactionCallback callback) {
+        executeInTransaction(Propagation.REQUIRES_NEW, (TransactionFunction<Void>) connection -> {
+            callback.execute(connection);
+            return null;
+        });
+    }
+
+    /**
+     * 在事务中执行操作（有返回值）
+     * 已处于事务中时按REQUIRES_NEW传播，借出新连接开启独立事务
+     * 
+     * @param function 事务函数
+     * @param <T> 返回值类型
+     * @return 执行结果
+     */
+    public static <T> T executeInTransaction(TransactionFunction<T> function) {
+        return executeInTransaction(Propagation.REQUIRES_NEW, function);
+    }
+
+    /**
+     * 按指定传播方式在事务中执行操作
+     * REQUIRED和NESTED的回调拿到的连接不能提交、回滚或开启自动提交，由最外层事务负责
+     * 
+     * @param propagation 传播方式
+     * @param function 事务函数
+     * @param <T> 返回值类型
+     * @return 执行结果
+     */
+    public static <T> T executeInTransaction(Propagation propagation, TransactionFunction<T> function) {
+        if (propagation == null) {
+            throw new IllegalArgumentException("Propagation cannot be null");
+        }
+        TransactionContext current = currentTransaction.get();
+        if (current == null || propagation == Propagation.REQUIRES_NEW) {
+            return executeInNewTransaction(current, function);
+        }
+        current.checkActive();
+        Set<String> outerWrittenTables = beginTableWriteTracking();
+        try {
+            if (propagation == Propagation.REQUIRED) {
+                return executeInJoinedTransaction(current, function);
+            }
+            return executeInSavepoint(current, function);
+        } finally {
+            endTableWriteTracking(outerWrittenTables);
+        }
+    }
+
+    /**
+     * 获取当前线程绑定的事务（可用于把事务传递给其他线程）
+     * 
+     * @return 当前事务，不在事务中返回null
+     */
+    public static TransactionContext currentTransaction() {
+        return currentTransaction.get();
+    }
+
+    /**
+     * 捕获当前线程的事务，包装后的任务在任意线程执行时都绑定该事务
+     * 同一事务的绑定任务串行执行；事务结束后再执行会抛出IllegalStateException；
+     * 当前线程不在事务中时原样返回
+     * 
+     * @param task 任务
+     * @return 绑定事务的任务
+     */
+    public static Runnable bindTransaction(Runnable task) {
+        TransactionContext context = currentTransaction.get();
+        if (context == null) {
+            return task;
+        }
+        return () -> context.run(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * 捕获当前线程的事务，包装后的任务在任意线程执行时都绑定该事务
+     * 
+     * @param task 任务
+     * @param <T> 返回值类型
+     * @return 绑定事务的任务
+     */
+    public static <T> Supplier<T> bindTransaction(Supplier<T> task) {
+        TransactionContext context = currentTransaction.get();
+        if (context == null) {
+            return task;
+        }
+        return () -> context.run(task);
+    }
+
+    /**
+     * 借出新连接开启事务，结束后恢复外层事务（如有）
+     * 回调拿到的是事务连接本身，可以自行分段提交；绑定到线程的静态方法和内层事务使用受限的连接视图
+     */
+    private static <T> T executeInNewTransaction(TransactionContext outer, TransactionFunction<T> function) {
+        ensureInitialized();
+        Connection conn = null;
+        TransactionContext context = null;
+        Set<String> outerWrittenTables = beginTableWriteTracking();
+        try {
+            conn = connectionPool.getConnection();
+            conn.setAutoCommit(false); // 开启事务
+            context = new TransactionContext(conn);
+            currentTransaction.set(context);
+            
+            T result = function.execute(conn); // 执行用户业务逻辑并获取结果
+            
+            // 先结束事务并等待其他线程上的绑定任务，提交后不会再有语句在这个连接上开启新的隐式事务
+            context.complete();
+            if (context.rollbackOnly) {
+                throw new IllegalStateException("Transaction was marked rollback-only by a failed inner transaction");
+            }
+            conn.commit(); // 提交事务
+            return result;
+        } catch (Exception e) {
+            if (context != null) {
+                context.complete();
+            }
+            if (conn != null) {
+                try {
+                    conn.rollback(); // 回滚事务
+                } catch (SQLException rollbackEx) {
+                    throw new RuntimeException("Transaction rollback failed: " + rollbackEx.getMessage(), rollbackEx);
+                }
+            }
+            throw new RuntimeException("Transaction execution failed: " + e.getMessage(), e);
+        } finally {
+            if (context != null) {
+                context.complete();
+                if (outer == null) {
+                    currentTransaction.remove();
+                } else {
+                    currentTransaction.set(outer);
+                }
+            }
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true); // 恢复自动提交
+                    conn.close(); // 归还连接池
+                } catch (SQLException closeEx) {
+                    // 静默处理关闭异常
+                }
+            }
+            endTableWriteTracking(outerWrittenTables);
+            if (context != null) {
+                invalidateWrittenTables(context.writtenTables);
+            }
+        }
+    }
+
+    /**
+     * 加入当前事务执行，失败时把整个事务标记为只能回滚
+     */
+    private static <T> T executeInJoinedTransaction(TransactionContext context, TransactionFunction<T> function) {
+        try {
+            return function.execute(context.boundConnection);
+        } catch (Exception e) {
+            context.rollbackOnly = true;
+            throw new RuntimeException("Transaction execution failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 在保存点中执行，失败时回滚到保存点，外层事务可以继续
+     */
+    private static <T> T executeInSavepoint(TransactionContext context, TransactionFunction<T> function) {
+        Savepoint savepoint = null;
+        try {
+            savepoint = context.connection.setSavepoint();
+            T result = function.execute(context.boundConnection);
+            Savepoint completed = savepoint;
+            savepoint = null;
+            context.connection.releaseSavepoint(completed);
+            return result;
+        } catch (Exception e) {
+            if (savepoint != null) {
+                try {
+                    context.connection.rollback(savepoint); // 回滚到保存点
+                } catch (SQLException rollbackEx) {
+                    context.rollbackOnly = true;
+                    throw new RuntimeException("Savepoint rollback failed: " + rollbackEx.getMessage(), rollbackEx);
+                }
+            }
+            throw new RuntimeException("Transaction execution failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 线程绑定的事务
+     * 持有事务连接，事务期间MySqlUtils的静态方法通过它复用同一连接
+     */
+    public static final class TransactionContext {
+        private final Connection connection;
+        private final Connection boundConnection;
+        private final Set<String> writtenTables = ConcurrentHashMap.newKeySet();
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile boolean active = true;
+        private volatile boolean rollbackOnly;
+
+        private TransactionContext(Connection connection) {
+            this.connection = connection;
+            this.boundConnection = MySqlConnectionPool.transactionBound(connection);
+        }
+
+        /**
+         * 事务连接（close()不会归还连接池，提交和回滚由executeInTransaction负责）
+         */
+        public Connection getConnection() {
+            return boundConnection;
+        }
+
+        /**
+         * 事务是否仍在进行中
+         */
+        public boolean isActive() {
+            return active;
+        }
+
+        /**
+         * 是否已被内层失败的事务标记为只能回滚
+         */
+        public boolean isRollbackOnly() {
+            return rollbackOnly;
+        }
+
+        /**
+         * 在当前线程绑定该事务执行任务，结束后恢复原绑定
+         */
+        <T> T run(Supplier<T> task) {
+            lock.lock();
+            try {
+                checkActive();
+                TransactionContext previous = currentTransaction.get();
+                currentTransaction.set(this);
+                try {
+                    return task.get();
+                } finally {
+                    if (previous == null) {
+                        currentTransaction.remove();
+                    } else {
+                        currentTransaction.set(previous);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void checkActive() {
+            if (!active) {
+                throw new IllegalStateException("Transaction has already completed");
+            }
+        }
+
+        /**
+         * 结束事务，等待正在其他线程执行的绑定任务完成，之后的绑定任务直接失败
+         * 必须在提交或回滚之前调用，否则绑定任务的语句可能落在提交之后，被恢复自动提交时一并提交
+         */
+        private void complete() {
+            lock.lock();
+            try {
+                active = false;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // ========== 异步操作 ==========
+
+    /**
+     * 配置异步执行器，替换已有的执行器（已提交的任务继续执行）
+     * 
+     * @param parallelism 最大并发执行数，建议不超过连接池最大连接数
+     * @param queueCapacity 最大排队任务数，队列满时异步方法立即返回失败的Future
+     * @param useVirtualThreads 是否使用虚拟线程（需要Java 21+，不支持时使用普通线程）
+     */
+    public static void configureAsyncExecutor(int parallelism, int queueCapacity, boolean useVirtualThreads) {
+        MySqlAsyncExecutor executor = new MySqlAsyncExecutor(parallelism, queueCapacity, useVirtualThreads);
+        MySqlAsyncExecutor previous;
+        synchronized (MySqlUtils.class) {
+            previous = asyncExecutor;
+            asyncExecutor = executor;
+        }
+        if (previous != null) {
+            previous.shutdown();
+        }
+    }
+
+    /**
+     * 获取异步执行器排队及执行中的任务数
+     * 
+     * @return 任务数，未使用过异步方法时返回0
+     */
+    public static int getAsyncPendingCount() {
+        MySqlAsyncExecutor executor = asyncExecutor;
+        return executor == null ? 0 : executor.getPendingCount();
+    }
+
+    /**
+     * 异步执行自定义查询SQL（使用全局连接池）
+     * 
+     * @param sql 查询SQL语句
+     * @param params 参数
+     * @return 查询结果Future，队列已满时以RejectedExecutionException失败
+     */
+    public static CompletableFuture<JSONArray> executeQueryAsync(String sql, Object... params) {
+        return getAsyncExecutor().submit(() -> executeQuery(sql, params));
+    }
+
+    /**
+     * 异步执行自定义更新SQL（使用全局连接池）
+     * 
+     * @param sql 更新SQL语句
+     * @param params 参数
+     * @return 影响行数Future，队列已满时以RejectedExecutionException失败
+     */
+    public static CompletableFuture<Integer> executeUpdateAsync(String sql, Object... params) {
+        return getAsyncExecutor().submit(() -> executeUpdate(sql, params));
+    }
+
+    /**
+     * 异步插入数据（使用全局连接池）
+     * 
+     * @param tableName 表名
+     * @param data 数据JSONObject
+     * @param keyType 主键类型
+     * @param <T> 主键类型泛型
+     * @return 生成的主键Future，队列已满时以RejectedExecutionException失败
+     */
+    public static <T> CompletableFuture<T> insertAsync(String tableName, JSONObject data, Class<T> keyType) {
+        return getAsyncExecutor().submit(() -> insert(tableName, data, keyType));
+    }
 
     /**
-     * 根据ID更新数据（使用全局连接）
+     * 异步批量插入数据（使用全局连接池）
      * 
      * @param tableName 表名
-     * @param id 主键ID
-     * @param data 更新数据JSONObject
-     * @return 是否更新成功
+     * @param dataArray 数据JSONArray
+     * @param keyType 主键类型
+     * @param batchSize 批量大小
+     * @param <T> 主键类型泛型
+     * @return 生成的主键列表Future，队列已满时以RejectedExecutionException失败
      */
-    public static boolean updateById(String tableName, Object id, JSONObject data) {
-        ensureInitialized();
-        return updateById(globalConnection, tableName, id, data);
+    public static <T> CompletableFuture<List<T>> batchInsertAsync(String tableName, JSONArray dataArray,
+                                                                  Class<T> keyType, int batchSize) {
+        return getAsyncExecutor().submit(() -> batchInsert(tableName, dataArray, keyType, batchSize));
     }
 
     /**
-     * 根据ID更新数据（使用指定连接）
+     * 异步批量插入数据（使用全局连接池，默认批量大小1000）
      * 
-     * @param connection 数据库连接
      * @param tableName 表名
-     * @param id 主键ID
-     * @param data 更新数据JSONObject
-     * @return 是否更新成功
+     * @param dataArray 数据JSONArray
+     * @param keyType 主键类型
+     * @param <T> 主键类型泛型
+     * @return 生成的主键列表Future，队列已满时以RejectedExecutionException失败
      */
-    public static boolean updateById(Connection connection, String tableName, Object id, JSONObject data) {
-        if (data == null || data.isEmpty()) {
-            throw new IllegalArgumentException("更新数据不能为空");
-        }
-        
-        List<String> setParts = new ArrayList<>();
-        List<Object> values = new ArrayList<>();
-        
-        for (String key : data.keySet()) {
-            setParts.add(key + " = ?");
-            values.add(data.get(key));
-        }
-        values.add(id);
-        
-        String sql = "UPDATE " + tableName + " SET " + String.join(",", setParts) + " WHERE id = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            for (int i = 0; i < values.size(); i++) {
-                stmt.setObject(i + 1, values.get(i));
+    public static <T> CompletableFuture<List<T>> batchInsertAsync(String tableName, JSONArray dataArray, Class<T> keyType) {
+        return batchInsertAsync(tableName, dataArray, keyType, 1000);
+    }
+
+    private static MySqlAsyncExecutor getAsyncExecutor() {
+        MySqlAsyncExecutor executor = asyncExecutor;
+        if (executor == null) {
+            ensureInitialized();
+            synchronized (MySqlUtils.class) {
+                executor = asyncExecutor;
+                if (executor == null) {
+                    executor = new MySqlAsyncExecutor(connectionPool.getMaxTotal(), DEFAULT_ASYNC_QUEUE_CAPACITY, false);
+                    asyncExecutor = executor;
+                }
             }
-            return stmt.executeUpdate() > 0;
-        } catch (SQLException e) {
-            throw new RuntimeException("更新失败", e);
         }
+        return executor;
     }
 
-    // ========== 删除操作 ==========
+    // ========== 表结构元数据 ==========
 
     /**
-     * 根据ID删除数据（使用全局连接）
+     * 获取表的列名及类型（使用全局连接池，结果会被缓存）
      * 
      * @param tableName 表名
-     * @param id 主键ID
-     * @return 是否删除成功
+     * @return 列名到java.sql.Types类型的有序映射
      */
-    public static boolean deleteById(String tableName, Object id) {
-        ensureInitialized();
-        return deleteById(globalConnection, tableName, id);
+    public static Map<String, Integer> getTableColumns(String tableName) {
+        try (Connection connection = getConnection()) {
+            return getTableColumns(connection, tableName);
+        } catch (SQLException e) {
+            throw new RuntimeException("获取表结构失败: " + tableName, e);
+        }
     }
 
     /**
-     * 根据ID删除数据（使用指定连接）
+     * 获取表的列名及类型（使用指定连接，结果会被缓存）
      * 
      * @param connection 数据库连接
      * @param tableName 表名
-     * @param id 主键ID
-     * @return 是否删除成功
+     * @return 列名到java.sql.Types类型的有序映射
      */
-    public static boolean deleteById(Connection connection, String tableName, Object id) {
-        String sql = "DELETE FROM " + tableName + " WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setObject(1, id);
-            return stmt.executeUpdate() > 0;
+    public static Map<String, Integer> getTableColumns(Connection connection, String tableName) {
+        try {
+            return metadataCache.get(connection, database, tableName).columnTypes;
         } catch (SQLException e) {
-            throw new RuntimeException("删除失败", e);
+            throw new RuntimeException("获取表结构失败: " + tableName, e);
         }
     }
 
-    // ========== 事务支持 ==========
+    /**
+     * 使指定表的结构缓存失效（表结构变更后调用）
+     * 
+     * @param tableName 表名
+     */
+    public static void invalidateTableMetadata(String tableName) {
+        metadataCache.invalidate(tableName);
+    }
 
     /**
-     * 事务回调接口（无返回值）
+     * 清空所有表结构缓存
      */
-    @FunctionalInterface
-    public interface TransactionCallback {
-        void execute(Connection connection) throws Exception;
+    public static void clearTableMetadata() {
+        metadataCache.clear();
     }
 
     /**
-     * 事务函数接口（有返回值）
+     * 设置表结构缓存有效期
+     * 
+     * @param ttlMillis 有效期（毫秒），小于等于0表示永不过期（默认）
      */
-    @FunctionalInterface
-    public interface TransactionFunction<T> {
-        T execute(Connection connection) throws Exception;
+    public static void setTableMetadataTtl(long ttlMillis) {
+        metadataCache.setTtlMillis(ttlMillis);
     }
 
+    // ========== 查询结果缓存 ==========
+
     /**
-     * 在事务中执行操作（无返回值）
+     * 开启查询结果缓存（进程内LRU）
+     * 缓存selectById、selectByCondition（全局连接池版本）的结果，
+     * 通过本工具类的insert/batchInsert/updateById/deleteById写入某张表时，该表的缓存自动失效
      * 
-     * @param callback 事务回调
+     * @param maxEntries 最大缓存条数
+     * @param ttlMillis 缓存有效期（毫秒）
      */
-    public static void executeInTransaction(TransactionCallback callback) {
-        Connection conn = null;
-        try {
-            conn = createConnection();
-            conn.setAutoCommit(false); // 开启事务
-            
-            callback.execute(conn); // 执行用户业务逻辑
-            
-            conn.commit(); // 提交事务
-        } catch (Exception e) {
-            if (conn != null) {
-                try {
-                    conn.rollback(); // 回滚事务
-                } catch (SQLException rollbackEx) {
-                    throw new RuntimeException("Transaction rollback failed: " + rollbackEx.getMessage(), rollbackEx);
-                }
-            }
-            throw new RuntimeException("Transaction execution failed: " + e.getMessage(), e);
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true); // 恢复自动提交
-                    conn.close(); // 关闭连接
-                } catch (SQLException closeEx) {
-                    // 静默处理关闭异常
-                }
+    public static void enableQueryCache(int maxEntries, long ttlMillis) {
+        enableQueryCache(maxEntries, ttlMillis, false);
+    }
+
+    /**
+     * 开启查询结果缓存
+     * 
+     * @param maxEntries 最大缓存条数（Redis模式下为每张表的最大条数）
+     * @param ttlMillis 缓存有效期（毫秒）
+     * @param redisBacked 是否存放在Redis中（多个节点共享缓存及失效，需要RedisUtils可用）
+     */
+    public static void enableQueryCache(int maxEntries, long ttlMillis, boolean redisBacked) {
+        queryCache = new MySqlQueryCache(maxEntries, ttlMillis, redisBacked);
+    }
+
+    /**
+     * 关闭查询结果缓存
+     */
+    public static void disableQueryCache() {
+        queryCache = null;
+    }
+
+    /**
+     * 使指定表的查询缓存失效
+     * 通过executeUpdate等原生SQL修改表数据后需要手动调用
+     * 
+     * @param tableName 表名
+     */
+    public static void invalidateQueryCache(String tableName) {
+        MySqlQueryCache cache = queryCache;
+        if (cache != null) {
+            cache.invalidate(tableName);
+        }
+    }
+
+    /**
+     * 清空查询缓存
+     */
+    public static void clearQueryCache() {
+        MySqlQueryCache cache = queryCache;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * 获取查询缓存统计信息
+     * 
+     * @return 包含hits、misses、size、redisBacked的JSONObject，未开启缓存时返回null
+     */
+    public static JSONObject getQueryCacheStats() {
+        MySqlQueryCache cache = queryCache;
+        return cache == null ? null : cache.stats();
+    }
+
+    /**
+     * 表数据被写入：立即失效缓存，事务中还需在提交/回滚后再次失效（期间其他线程可能读到旧数据并缓存）
+     */
+    private static void onTableWritten(String tableName) {
+        MySqlQueryCache cache = queryCache;
+        if (cache == null) {
+            return;
+        }
+        cache.invalidate(tableName);
+        Set<String> writtenTables = transactionWrittenTables.get();
+        if (writtenTables != null) {
+            writtenTables.add(tableName);
+        }
+        TransactionContext transaction = currentTransaction.get();
+        if (transaction != null) {
+            transaction.writtenTables.add(tableName); // 其他线程绑定事务写入的表
+        }
+    }
+
+    private static Set<String> beginTableWriteTracking() {
+        Set<String> outer = transactionWrittenTables.get();
+        transactionWrittenTables.set(new HashSet<>());
+        return outer;
+    }
+
+    private static void endTableWriteTracking(Set<String> outer) {
+        Set<String> writtenTables = transactionWrittenTables.get();
+        if (outer == null) {
+            transactionWrittenTables.remove();
+        } else {
+            transactionWrittenTables.set(outer);
+            outer.addAll(writtenTables);
+        }
+        invalidateWrittenTables(writtenTables);
+    }
+
+    private static void invalidateWrittenTables(Set<String> writtenTables) {
+        MySqlQueryCache cache = queryCache;
+        if (cache != null) {
+            for (String tableName : writtenTables) {
+                cache.invalidate(tableName);
             }
         }
     }
 
+    // ========== 执行统计 ==========
+
     /**
-     * 在事务中执行操作（有返回值）
+     * 开启语句执行统计，并注册JMX（cn.zzzmh.util:type=MySqlUtils,name=QueryMetrics）
+     * 统计各类语句的耗时分布、行数、批量大小，以及最近的慢查询
      * 
-     * @param function 事务函数
-     * @param <T> 返回值类型
-     * @return 执行结果
+     * @param slowQueryThresholdMillis 慢查询阈值（毫秒）
+     * @param paramSampleRate 慢查询参数采样比例（0~1，0表示不记录参数）
+     * @return 统计器（可添加监听器）
      */
-    public static <T> T executeInTransaction(TransactionFunction<T> function) {
-        Connection conn = null;
+    public static MySqlQueryMetrics enableMetrics(long slowQueryThresholdMillis, double paramSampleRate) {
+        MySqlQueryMetrics metrics = new MySqlQueryMetrics(slowQueryThresholdMillis, paramSampleRate);
+        MySqlQueryMetrics previous;
+        synchronized (MySqlUtils.class) {
+            previous = queryMetrics;
+            queryMetrics = metrics;
+        }
+        if (previous != null) {
+            previous.unregisterMBean();
+        }
+        metrics.registerMBean();
+        return metrics;
+    }
+
+    /**
+     * 关闭语句执行统计并注销JMX
+     */
+    public static void disableMetrics() {
+        MySqlQueryMetrics previous;
+        synchronized (MySqlUtils.class) {
+            previous = queryMetrics;
+            queryMetrics = null;
+        }
+        if (previous != null) {
+            previous.unregisterMBean();
+        }
+    }
+
+    /**
+     * 获取语句执行统计器
+     * 
+     * @return 统计器，未开启时返回null
+     */
+    public static MySqlQueryMetrics getMetrics() {
+        return queryMetrics;
+    }
+
+    /**
+     * 获取统计快照：语句统计（开启时）及连接池状态
+     * 
+     * @return 包含operations、slowQueries、pool等信息的JSONObject
+     */
+    public static JSONObject getMetricsSnapshot() {
+        MySqlQueryMetrics metrics = queryMetrics;
+        JSONObject snapshot = metrics == null ? new JSONObject() : metrics.getSnapshot();
+        MySqlConnectionPool pool = connectionPool;
+        if (pool != null) {
+            JSONObject poolStats = new JSONObject();
+            poolStats.put("active", pool.getActiveCount());
+            poolStats.put("idle", pool.getIdleCount());
+            poolStats.put("total", pool.getTotalCount());
+            poolStats.put("waiting", pool.getWaitingCount());
+            poolStats.put("waitTimeMillis", pool.getWaitTimeSnapshot());
+            poolStats.put("statementCacheHits", pool.getStatementCacheHits());
+            poolStats.put("statementCacheMisses", pool.getStatementCacheMisses());
+            snapshot.put("pool", poolStats);
+        }
+        return snapshot;
+    }
+
+    /**
+     * 记录一次语句执行（未开启统计时直接返回）
+     */
+    private static void recordStatement(MySqlQueryMetrics.Operation operation, String sql, Object[] params,
+                                        long startNanos, long rows, int batchSize, Throwable error) {
+        MySqlQueryMetrics metrics = queryMetrics;
+        if (metrics != null) {
+            metrics.record(operation, sql, params, System.nanoTime() - startNanos, rows, batchSize, error);
+        }
+    }
+
+    /**
+     * 执行更新类预编译语句并记录统计
+     */
+    private static int executeRecorded(PreparedStatement stmt, MySqlQueryMetrics.Operation operation, String sql,
+                                       Object[] params, int batchSize) throws SQLException {
+        long start = System.nanoTime();
         try {
-            conn = createConnection();
-            conn.setAutoCommit(false); // 开启事务
-            
-            T result = function.execute(conn); // 执行用户业务逻辑并获取结果
-            
-            conn.commit(); // 提交事务
-            return result;
-        } catch (Exception e) {
-            if (conn != null) {
-                try {
-                    conn.rollback(); // 回滚事务
-                } catch (SQLException rollbackEx) {
-                    throw new RuntimeException("Transaction rollback failed: " + rollbackEx.getMessage(), rollbackEx);
-                }
-            }
-            throw new RuntimeException("Transaction execution failed: " + e.getMessage(), e);
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true); // 恢复自动提交
-                    conn.close(); // 关闭连接
-                } catch (SQLException closeEx) {
-                    // 静默处理关闭异常
-                }
-            }
+            int affectedRows = stmt.executeUpdate();
+            recordStatement(operation, sql, params, start, affectedRows, batchSize, null);
+            return affectedRows;
+        } catch (SQLException e) {
+            recordStatement(operation, sql, params, start, -1, batchSize, e);
+            throw e;
         }
     }
 
@@ -919,10 +3557,10 @@ public class MySqlUtils {
      * 确保数据库连接已初始化（懒加载）
      */
     private static void ensureInitialized() {
-        if (globalConnection == null) {
+        if (connectionPool == null) {
             try {
-                // 尝试自动从配置文件初始化
-                init();
+                // 尝试自动从配置文件初始化，静态方法只使用连接池，init返回的连接直接关闭
+                closeConnection(init());
             } catch (RuntimeException e) {
                 throw new RuntimeException(
                     "Database connection not initialized and auto-initialization failed.\n" +
@@ -966,17 +3604,24 @@ public class MySqlUtils {
     }
 
     /**
-     * 获取表的主键列名
+     * 解析整数配置，为空时使用默认值
+     */
+    private static int parseInt(String value, int defaultValue) {
+        return value != null && !value.trim().isEmpty() ? Integer.parseInt(value.trim()) : defaultValue;
+    }
+
+    /**
+     * 解析长整数配置，为空时使用默认值
+     */
+    private static long parseLong(String value, long defaultValue) {
+        return value != null && !value.trim().isEmpty() ? Long.parseLong(value.trim()) : defaultValue;
+    }
+
+    /**
+     * 获取表的主键列名（读取表结构缓存）
      */
     private static List<String> getPrimaryKeyColumns(Connection connection, String tableName) throws SQLException {
-        List<String> primaryKeys = new ArrayList<>();
-        DatabaseMetaData metaData = connection.getMetaData();
-        try (ResultSet rs = metaData.getPrimaryKeys(database, null, tableName)) {
-            while (rs.next()) {
-                primaryKeys.add(rs.getString("COLUMN_NAME"));
-            }
-        }
-        return primaryKeys;
+        return metadataCache.get(connection, database, tableName).primaryKeys;
     }
 
     /**
@@ -999,16 +3644,78 @@ public class MySqlUtils {
         }
     }
 
+    /**
+     * 打开流式查询迭代器，失败时释放语句和自有连接
+     */
+    private static ResultIterator openResultIterator(Connection connection, boolean ownsConnection,
+                                                     String sql, Object[] params) {
+        PreparedStatement stmt = null;
+        long start = System.nanoTime();
+        try {
+            stmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            FetchMode fetchMode = streamFetchMode;
+            if (fetchMode == FetchMode.STREAMING) {
+                stmt.setFetchSize(Integer.MIN_VALUE);
+            } else if (fetchMode == FetchMode.CURSOR) {
+                stmt.setFetchSize(streamFetchSize);
+            }
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            ResultSet rs = stmt.executeQuery();
+            recordStatement(MySqlQueryMetrics.Operation.STREAM, sql, params, start, 0, 0, null);
+            return new ResultIterator(ownsConnection ? connection : null, stmt, rs, sql);
+        } catch (SQLException | RuntimeException e) {
+            recordStatement(MySqlQueryMetrics.Operation.STREAM, sql, params, start, -1, 0, e);
+            if (stmt != null) {
+                try {
+                    stmt.close();
+                } catch (SQLException closeEx) {
+                    // 静默处理关闭异常
+                }
+            }
+            if (ownsConnection) {
+                closeConnection(connection);
+            }
+            throw new RuntimeException("流式查询失败: " + sql, e);
+        }
+    }
+
+    /**
+     * 迭代器转Stream，关闭Stream时关闭迭代器
+     */
+    private static Stream<JSONObject> toStream(ResultIterator iterator) {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * 读取结果集的列标签（每个结果集只读取一次）
+     */
+    private static String[] columnLabels(ResultSetMetaData metaData) throws SQLException {
+        String[] labels = new String[metaData.getColumnCount()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+        }
+        return labels;
+    }
+
     /**
      * ResultSet转JSONObject，处理时间戳问题
      */
     private static JSONObject resultSetToJSONObject(ResultSet rs) throws SQLException {
-        JSONObject json = new JSONObject();
-        ResultSetMetaData metaData = rs.getMetaData();
-        int columnCount = metaData.getColumnCount();
+        return resultSetToJSONObject(rs, columnLabels(rs.getMetaData()));
+    }
+
+    /**
+     * ResultSet转JSONObject（使用预先读取的列标签）
+     */
+    private static JSONObject resultSetToJSONObject(ResultSet rs, String[] labels) throws SQLException {
+        JSONObject json = new JSONObject(labels.length);
         
-        for (int i = 1; i <= columnCount; i++) {
-            String columnName = metaData.getColumnLabel(i);
+        for (int i = 1; i <= labels.length; i++) {
+            String columnName = labels[i - 1];
             Object value = rs.getObject(i);
             
             // 处理时间类型，转换为时间戳
@@ -1032,8 +3739,9 @@ public class MySqlUtils {
      */
     private static JSONArray resultSetToJSONArray(ResultSet rs) throws SQLException {
         JSONArray jsonArray = new JSONArray();
+        String[] labels = columnLabels(rs.getMetaData());
         while (rs.next()) {
-            jsonArray.add(resultSetToJSONObject(rs));
+            jsonArray.add(resultSetToJSONObject(rs, labels));
         }
         return jsonArray;
     }
@@ -1056,18 +3764,19 @@ public class MySqlUtils {
     }
 
     /**
-     * 关闭全局连接（静默关闭，不抛出异常）
+     * 关闭全局连接池（静默关闭，不抛出异常）
      */
     public static void closeGlobalConnection() {
-        if (globalConnection != null) {
-            try {
-                if (!globalConnection.isClosed()) {
-                    globalConnection.close();
-                }
-                globalConnection = null; // 置空引用
-            } catch (Exception e) {
-                // 静默处理关闭异常
-            }
+        MySqlConnectionPool pool = connectionPool;
+        if (pool != null) {
+            connectionPool = null; // 置空引用
+            pool.close();
+        }
+        MySqlReplicaSet replicas = replicaSet;
+        if (replicas != null) {
+            replicaSet = null; // 置空引用
+            replicas.close();
         }
+        maxAllowedPacket = -1;
     }
 } 
\ No newline at end of file
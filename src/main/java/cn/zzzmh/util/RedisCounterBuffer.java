@@ -0,0 +1,284 @@
+package cn.zzzmh.util;
+
+import com.alibaba.fastjson2.JSONObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Redis计数器本地聚合缓冲
+ * 递增先累加到进程内的LongAdder，定时或累计次数达到阈值时把各键的增量用INCRBY在一个管道中写入Redis
+ *
+ * 每个计数器只增不减，刷新时取sum减去已刷新值作为增量，不调用sumThenReset，避免与并发递增竞争；
+ * 一个周期内没有递增的计数器被移出表（retired），之后落到已移出计数器上的递增由递增线程自行转移到新计数器。
+ *
+ * @author zzzmh
+ * @since 1.0.3
+ */
+final class RedisCounterBuffer {
+
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final int maxKeys;
+    private final int flushThreshold;
+    private final Consumer<Map<String, Long>> writer;
+    private final ScheduledExecutorService flusher;
+    private final LongAdder pendingIncrements = new LongAdder();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Object flushLock = new Object();
+
+    private final LongAdder buffered = new LongAdder();
+    private final LongAdder overflow = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private volatile String lastFlushError;
+    private volatile boolean closed;
+
+    /**
+     * 创建计数器缓冲并启动定时刷新
+     *
+     * @param flushIntervalMillis 刷新间隔（毫秒）
+     * @param flushThreshold 累计递增次数达到该值时立即刷新
+     * @param maxKeys 最多缓冲的键数，超出时新键直接写入Redis
+     * @param writer 写入Redis（键与增量，在一个管道中执行INCRBY）
+     */
+    RedisCounterBuffer(long flushIntervalMillis, int flushThreshold, int maxKeys, Consumer<Map<String, Long>> writer) {
+        if (flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Counter flush interval must be greater than 0");
+        }
+        if (flushThreshold <= 0) {
+            throw new IllegalArgumentException("Counter flush threshold must be greater than 0");
+        }
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("Counter max keys must be greater than 0");
+        }
+        this.flushThreshold = flushThreshold;
+        this.maxKeys = maxKeys;
+        this.writer = writer;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "redis-counter-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 累加增量
+     *
+     * @param key 键
+     * @param delta 增量
+     * @return 是否已缓冲，键表已满或缓冲已关闭时返回false，由调用方直接写入Redis
+     */
+    boolean add(String key, long delta) {
+        if (closed) {
+            return false;
+        }
+        for (;;) {
+            Counter counter = counters.get(key);
+            if (counter == null) {
+                if (counters.size() >= maxKeys) {
+                    overflow.increment();
+                    scheduleFlush();
+                    return false;
+                }
+                counter = counters.computeIfAbsent(key, k -> new Counter());
+            }
+            counter.adder.add(delta);
+            if (!counter.retired) {
+                break;
+            }
+            // 计数器已被移出，本次递增可能没有被刷新线程取走，取出未刷新的部分转移到新计数器
+            counters.remove(key, counter);
+            delta = counter.takePending();
+            if (delta == 0) {
+                break;
+            }
+        }
+        buffered.increment();
+        pendingIncrements.increment();
+        if (pendingIncrements.sum() >= flushThreshold) {
+            scheduleFlush();
+        }
+        return true;
+    }
+
+    /**
+     * 把全部增量写入Redis（同步执行）
+     *
+     * @return 写入的键数
+     */
+    int flush() {
+        synchronized (flushLock) {
+            pendingIncrements.reset();
+            Map<String, Long> deltas = new LinkedHashMap<>();
+            for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+                Counter counter = entry.getValue();
+                long delta = counter.takePending();
+                if (delta == 0 && counter.retire()) {
+                    // 上个周期之后没有递增，移出键表；retire期间取到的增量一并写入
+                    counters.remove(entry.getKey(), counter);
+                    delta = counter.takePending();
+                }
+                if (delta != 0) {
+                    deltas.put(entry.getKey(), delta);
+                }
+            }
+            if (deltas.isEmpty()) {
+                return 0;
+            }
+            try {
+                writer.accept(deltas);
+                flushes.increment();
+            } catch (PartialFlushException e) {
+                flushFailures.increment();
+                lastFlushError = e.getMessage();
+                // 只放回执行失败的键（如WRONGTYPE、OOM），其余已写入Redis
+                for (Map.Entry<String, Long> entry : e.failed.entrySet()) {
+                    counters.computeIfAbsent(entry.getKey(), k -> new Counter()).restore(entry.getValue());
+                }
+                throw e;
+            } catch (RuntimeException e) {
+                flushFailures.increment();
+                lastFlushError = e.getMessage();
+                // 写入失败时放回缓冲，下次刷新重试（连接在命令发出后中断时可能重复计数）
+                for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+                    counters.computeIfAbsent(entry.getKey(), k -> new Counter()).restore(entry.getValue());
+                }
+                throw e;
+            }
+            return deltas.size();
+        }
+    }
+
+    /**
+     * 缓冲中尚未写入Redis的增量
+     *
+     * @param key 键
+     * @return 增量，没有缓冲返回0
+     */
+    long pending(String key) {
+        Counter counter = counters.get(key);
+        return counter == null ? 0 : counter.peekPending();
+    }
+
+    /**
+     * 缓冲统计
+     *
+     * @return keys、buffered、overflow、flushes、flushFailures、lastFlushError
+     */
+    JSONObject stats() {
+        JSONObject stats = new JSONObject();
+        stats.put("keys", counters.size());
+        stats.put("buffered", buffered.sum());
+        stats.put("overflow", overflow.sum());
+        stats.put("flushes", flushes.sum());
+        stats.put("flushFailures", flushFailures.sum());
+        stats.put("lastFlushError", lastFlushError);
+        return stats;
+    }
+
+    /**
+     * 停止接收递增，写入剩余增量后停止刷新线程
+     */
+    void close() {
+        closed = true;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void scheduleFlush() {
+        if (!closed && flushScheduled.compareAndSet(false, true)) {
+            try {
+                flusher.execute(() -> {
+                    flushScheduled.set(false);
+                    flushQuietly();
+                });
+            } catch (RuntimeException e) {
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // 已记录到统计，下次刷新重试
+        }
+    }
+
+    /**
+     * 单个键的计数器，adder只增不减，flushed记录已取走的部分
+     */
+    private static final class Counter {
+        final LongAdder adder = new LongAdder();
+        private long flushed;
+        private boolean idle;
+        volatile boolean retired;
+
+        /**
+         * 取走未刷新的增量
+         */
+        synchronized long takePending() {
+            long sum = adder.sum();
+            long delta = sum - flushed;
+            flushed = sum;
+            if (delta != 0) {
+                idle = false;
+            }
+            return delta;
+        }
+
+        synchronized long peekPending() {
+            return adder.sum() - flushed;
+        }
+
+        /**
+         * 连续两个周期没有增量时标记为移出
+         *
+         * @return 是否已移出
+         */
+        synchronized boolean retire() {
+            if (!idle) {
+                idle = true;
+                return false;
+            }
+            retired = true;
+            return true;
+        }
+
+        /**
+         * 放回写入失败的增量（flushed回退，下次takePending重新取出）
+         */
+        synchronized void restore(long delta) {
+            flushed -= delta;
+        }
+    }
+
+    /**
+     * 部分键写入失败（命令已执行，服务端对这些键返回了错误）
+     */
+    static final class PartialFlushException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final transient Map<String, Long> failed;
+
+        PartialFlushException(String message, Map<String, Long> failed) {
+            super(message);
+            this.failed = failed;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package cn.zzzmh.util;
+
+import com.alibaba.fastjson2.JSONB;
+import com.alibaba.fastjson2.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * RedisUtils的JSON值编解码器
+ * 支持JSON文本和fastjson2 JSONB二进制两种编码，超过阈值时用Deflate压缩。
+ *
+ * 二进制格式以一个标记字节开头（0x01 JSONB、0x02 JSONB+Deflate、0x03 文本+Deflate），
+ * 压缩格式在标记字节后用4字节记录原始长度；JSON文本不会以这些字节开头，
+ * 因此解码时没有标记字节的值按旧的JSON文本处理，无论当前使用哪种编码都能读取已有数据。
+ *
+ * @author zzzmh
+ * @since 1.0.3
+ */
+public final class RedisJsonCodec implements RedisUtils.JsonCodec {
+
+    private static final byte FORMAT_JSONB = 0x01;
+    private static final byte FORMAT_JSONB_DEFLATE = 0x02;
+    private static final byte FORMAT_TEXT_DEFLATE = 0x03;
+    private static final int COMPRESSED_HEADER_LENGTH = 5;
+    // 原始长度来自值本身，分配前校验：不超过Redis单个值的上限，也不超过Deflate的最大压缩比（约1032:1）
+    private static final int MAX_ORIGINAL_LENGTH = 512 * 1024 * 1024;
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    // Deflater/Inflater持有本地内存，按线程复用避免每次创建和释放
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(
+            () -> new Deflater(Deflater.BEST_SPEED, true));
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private final boolean binary;
+    private final int compressThreshold;
+
+    private RedisJsonCodec(boolean binary, int compressThreshold) {
+        this.binary = binary;
+        this.compressThreshold = compressThreshold;
+    }
+
+    /**
+     * JSON文本编码（不压缩，与setJson原有格式一致）
+     *
+     * @return 编解码器
+     */
+    public static RedisJsonCodec text() {
+        return new RedisJsonCodec(false, -1);
+    }
+
+    /**
+     * JSON文本编码，编码后超过阈值时压缩
+     *
+     * @param compressThreshold 压缩阈值（字节），小于0表示不压缩
+     * @return 编解码器
+     */
+    public static RedisJsonCodec text(int compressThreshold) {
+        return new RedisJsonCodec(false, compressThreshold);
+    }
+
+    /**
+     * JSONB二进制编码（不压缩）
+     *
+     * @return 编解码器
+     */
+    public static RedisJsonCodec jsonb() {
+        return new RedisJsonCodec(true, -1);
+    }
+
+    /**
+     * JSONB二进制编码，编码后超过阈值时压缩
+     *
+     * @param compressThreshold 压缩阈值（字节），小于0表示不压缩
+     * @return 编解码器
+     */
+    public static RedisJsonCodec jsonb(int compressThreshold) {
+        return new RedisJsonCodec(true, compressThreshold);
+    }
+
+    @Override
+    public byte[] encode(JSONObject value) {
+        byte[] body = binary ? JSONB.toBytes(value) : value.toJSONString().getBytes(StandardCharsets.UTF_8);
+        if (compressThreshold >= 0 && body.length > compressThreshold) {
+            byte[] compressed = deflate(body, binary ? FORMAT_JSONB_DEFLATE : FORMAT_TEXT_DEFLATE);
+            if (compressed != null) {
+                return compressed;
+            }
+        }
+        if (!binary) {
+            return body;
+        }
+        byte[] encoded = new byte[body.length + 1];
+        encoded[0] = FORMAT_JSONB;
+        System.arraycopy(body, 0, encoded, 1, body.length);
+        return encoded;
+    }
+
+    @Override
+    public JSONObject decode(byte[] bytes) {
+        if (bytes.length == 0) {
+            return null;
+        }
+        switch (bytes[0]) {
+            case FORMAT_JSONB:
+                return JSONB.parseObject(Arrays.copyOfRange(bytes, 1, bytes.length));
+            case FORMAT_JSONB_DEFLATE:
+                return JSONB.parseObject(inflate(bytes));
+            case FORMAT_TEXT_DEFLATE:
+                return JSONObject.parseObject(new String(inflate(bytes), StandardCharsets.UTF_8));
+            default:
+                return JSONObject.parseObject(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 压缩并加上标记字节和原始长度，压缩后没有变小时返回null
+     */
+    private static byte[] deflate(byte[] body, byte format) {
+        if (body.length <= COMPRESSED_HEADER_LENGTH) {
+            return null;
+        }
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(body);
+        deflater.finish();
+        // 输出不超过原始长度，否则不压缩
+        byte[] output = new byte[body.length];
+        output[0] = format;
+        output[1] = (byte) (body.length >>> 24);
+        output[2] = (byte) (body.length >>> 16);
+        output[3] = (byte) (body.length >>> 8);
+        output[4] = (byte) body.length;
+        int length = COMPRESSED_HEADER_LENGTH;
+        while (!deflater.finished()) {
+            if (length == output.length) {
+                return null;
+            }
+            length += deflater.deflate(output, length, output.length - length);
+        }
+        return Arrays.copyOf(output, length);
+    }
+
+    private static byte[] inflate(byte[] bytes) {
+        if (bytes.length < COMPRESSED_HEADER_LENGTH) {
+            throw new IllegalArgumentException("Corrupted compressed value: header is truncated");
+        }
+        int originalLength = ((bytes[1] & 0xFF) << 24) | ((bytes[2] & 0xFF) << 16)
+                | ((bytes[3] & 0xFF) << 8) | (bytes[4] & 0xFF);
+        long compressedLength = bytes.length - COMPRESSED_HEADER_LENGTH;
+        if (originalLength < 0 || originalLength > MAX_ORIGINAL_LENGTH
+                || originalLength > compressedLength * MAX_DEFLATE_RATIO + 64) {
+            throw new IllegalArgumentException("Corrupted compressed value: invalid original length " + originalLength);
+        }
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(bytes, COMPRESSED_HEADER_LENGTH, bytes.length - COMPRESSED_HEADER_LENGTH);
+        byte[] output = new byte[originalLength];
+        try {
+            int length = 0;
+            while (length < originalLength && !inflater.finished()) {
+                int n = inflater.inflate(output, length, originalLength - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += n;
+            }
+            if (length != originalLength) {
+                throw new IllegalArgumentException("Corrupted compressed value: expected " + originalLength
+                        + " bytes but got " + length);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupted compressed value: " + e.getMessage(), e);
+        }
+        return output;
+    }
+}
@@ -0,0 +1,548 @@
+package cn.zzzmh.util;
+
+import com.alibaba.fastjson2.JSONObject;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Redis分布式锁
+ * 通过RedisUtils.getLock(name)获取，同一个名称在同一个JVM内共享状态：
+ * 同一线程可重入，同一JVM内的线程先在本地排队，每个JVM同时只有一个线程竞争Redis中的锁。
+ *
+ * 加锁用Lua脚本执行SET NX PX并INCR生成单调递增的fencing token（键名为name + ":fencing"），
+ * 下游写入时携带该值并拒绝比已见过的值更小的请求，可防止锁过期后旧持有者的延迟写入；
+ * 解锁用Lua脚本比较持有者后删除并发布释放消息，等待的节点通过订阅收到消息后立即重试，不轮询。
+ * 未指定租期时按默认租期加锁，由看门狗线程每1/3租期续期，直到解锁。
+ *
+ * @author zzzmh
+ * @since 1.0.3
+ */
+public final class RedisLock {
+
+    /**
+     * 未指定租期时的默认租期（毫秒），持有期间由看门狗自动续期
+     */
+    public static final long DEFAULT_LEASE_MILLIS = 30000L;
+
+    private static final String FENCING_SUFFIX = ":fencing";
+    private static final String RELEASE_CHANNEL_PREFIX = "__redis_lock__:";
+    // 订阅未生效时的最长等待时间，之后重试加锁
+    private static final long UNSUBSCRIBED_WAIT_MILLIS = 100L;
+    private static final long MAX_RECONNECT_DELAY_MILLIS = 30000L;
+
+    // 成功返回fencing token（大于0），失败返回锁的剩余租期的相反数（小于等于0）
+    private static final RedisScript ACQUIRE_SCRIPT = new RedisScript(
+            "if redis.call('set', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then "
+                    + "return redis.call('incr', KEYS[2]) end "
+                    + "local ttl = redis.call('pttl', KEYS[1]) "
+                    + "if ttl < 0 then ttl = 0 end "
+                    + "return -ttl");
+    private static final RedisScript RELEASE_SCRIPT = new RedisScript(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "redis.call('del', KEYS[1]) "
+                    + "redis.call('publish', ARGV[2], ARGV[1]) "
+                    + "return 1 end "
+                    + "return 0");
+    private static final RedisScript RENEW_SCRIPT = new RedisScript(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('pexpire', KEYS[1], ARGV[2]) end "
+                    + "return 0");
+
+    // 本JVM内各锁名称的状态（有线程持有或等待时存在）
+    private static final ConcurrentHashMap<String, LockState> STATES = new ConcurrentHashMap<>();
+    // 等待释放消息的线程
+    private static final ConcurrentHashMap<String, Set<CountDownLatch>> WAITERS = new ConcurrentHashMap<>();
+    private static final Object SUBSCRIBER_LOCK = new Object();
+    private static volatile Thread subscriberThread;
+    private static volatile JedisPubSub subscriber;
+    private static volatile boolean listening;
+
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "redis-lock-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final LongAdder acquired = new LongAdder();
+    private static final LongAdder contended = new LongAdder();
+    private static final LongAdder timeouts = new LongAdder();
+    private static final LongAdder renewals = new LongAdder();
+    private static final LongAdder leasesLost = new LongAdder();
+
+    private final String name;
+    private final String fencingKey;
+    private final String releaseChannel;
+
+    RedisLock(String name) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Lock name cannot be empty");
+        }
+        this.name = name;
+        this.fencingKey = name + FENCING_SUFFIX;
+        this.releaseChannel = RELEASE_CHANNEL_PREFIX + name;
+    }
+
+    /**
+     * 锁名称（即Redis中的键）
+     *
+     * @return 名称
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 尝试加锁，不等待（默认租期，自动续期）
+     *
+     * @return 是否加锁成功
+     */
+    public boolean tryLock() {
+        return tryLock(0L, -1L);
+    }
+
+    /**
+     * 尝试加锁，最多等待waitMillis（默认租期，自动续期）
+     *
+     * @param waitMillis 最长等待时间（毫秒）
+     * @return 是否加锁成功，等待超时或线程被中断返回false
+     */
+    public boolean tryLock(long waitMillis) {
+        return tryLock(waitMillis, -1L);
+    }
+
+    /**
+     * 尝试加锁，最多等待waitMillis
+     *
+     * @param waitMillis 最长等待时间（毫秒），小于0表示一直等待
+     * @param leaseMillis 租期（毫秒），到期自动释放且不续期；小于等于0表示使用默认租期并由看门狗续期
+     * @return 是否加锁成功，等待超时或线程被中断返回false（中断状态会保留）
+     */
+    public boolean tryLock(long waitMillis, long leaseMillis) {
+        long deadline = waitMillis < 0 ? Long.MAX_VALUE : System.currentTimeMillis() + waitMillis;
+        LockState state = retain();
+        boolean locked = false;
+        try {
+            if (!lockLocally(state, waitMillis)) {
+                timeouts.increment();
+                return false;
+            }
+            if (state.local.getHoldCount() > 1) {
+                // 重入，不访问Redis
+                locked = true;
+                return true;
+            }
+            try {
+                locked = acquireRemote(state, deadline, leaseMillis);
+            } finally {
+                if (!locked) {
+                    state.local.unlock();
+                }
+            }
+            if (!locked) {
+                timeouts.increment();
+            }
+            return locked;
+        } finally {
+            if (!locked) {
+                release(state);
+            }
+        }
+    }
+
+    /**
+     * 加锁，一直等待直到成功（默认租期，自动续期）
+     */
+    public void lock() {
+        if (!tryLock(-1L, -1L)) {
+            throw new IllegalStateException("Interrupted while waiting for lock: " + name);
+        }
+    }
+
+    /**
+     * 解锁（重入时最后一次解锁才释放Redis中的锁）
+     */
+    public void unlock() {
+        LockState state = STATES.get(name);
+        if (state == null || !state.local.isHeldByCurrentThread()) {
+            throw new IllegalMonitorStateException("Lock is not held by current thread: " + name);
+        }
+        boolean lost = false;
+        try {
+            if (state.local.getHoldCount() == 1) {
+                lost = releaseRemote(state);
+            }
+        } finally {
+            state.local.unlock();
+            release(state);
+        }
+        if (lost) {
+            throw new IllegalStateException("Lock lease expired before unlock, another owner may have held it: " + name);
+        }
+    }
+
+    /**
+     * 加锁后执行，执行完成后解锁
+     * 操作抛出异常时，解锁失败（如租期已过期）作为被抑制的异常附加到操作的异常上，不会覆盖它
+     *
+     * @param waitMillis 最长等待时间（毫秒）
+     * @param action 操作
+     * @return 是否加锁并执行
+     */
+    public boolean runWithLock(long waitMillis, Runnable action) {
+        if (!tryLock(waitMillis)) {
+            return false;
+        }
+        Throwable failure = null;
+        try {
+            action.run();
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            try {
+                unlock();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    throw e;
+                }
+                failure.addSuppressed(e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 当前线程是否持有锁
+     *
+     * @return 是否持有
+     */
+    public boolean isHeldByCurrentThread() {
+        LockState state = STATES.get(name);
+        return state != null && state.local.isHeldByCurrentThread();
+    }
+
+    /**
+     * 锁是否被任意节点持有（查询Redis）
+     *
+     * @return 是否被持有
+     */
+    public boolean isLocked() {
+        return RedisUtils.exists(name);
+    }
+
+    /**
+     * 当前持有锁的fencing token（每次加锁递增），传给下游用于拒绝旧持有者的写入
+     *
+     * @return fencing token
+     */
+    public long getFencingToken() {
+        LockState state = STATES.get(name);
+        if (state == null || !state.local.isHeldByCurrentThread()) {
+            throw new IllegalMonitorStateException("Lock is not held by current thread: " + name);
+        }
+        return state.fencingToken;
+    }
+
+    /**
+     * 持有期间租期是否已丢失（续期时发现锁已过期或被其他持有者获取）
+     *
+     * @return 是否已丢失
+     */
+    public boolean isLeaseLost() {
+        LockState state = STATES.get(name);
+        return state != null && state.local.isHeldByCurrentThread() && state.leaseLost;
+    }
+
+    // ========== 本地状态 ==========
+
+    /**
+     * 获取并引用本JVM内的锁状态，没有线程引用时移除，避免动态锁名称无限增长
+     */
+    private LockState retain() {
+        return STATES.compute(name, (k, state) -> {
+            LockState target = state == null ? new LockState() : state;
+            target.references++;
+            return target;
+        });
+    }
+
+    private void release(LockState state) {
+        STATES.computeIfPresent(name, (k, current) -> {
+            if (current != state) {
+                return current;
+            }
+            return --current.references == 0 ? null : current;
+        });
+    }
+
+    private static boolean lockLocally(LockState state, long waitMillis) {
+        try {
+            if (waitMillis < 0) {
+                state.local.lockInterruptibly();
+                return true;
+            }
+            return state.local.tryLock(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // ========== Redis ==========
+
+    private boolean acquireRemote(LockState state, long deadline, long leaseMillis) {
+        boolean watchdog = leaseMillis <= 0;
+        long lease = watchdog ? DEFAULT_LEASE_MILLIS : leaseMillis;
+        String owner = UUID.randomUUID().toString();
+        List<String> keys = Arrays.asList(name, fencingKey);
+        List<String> args = Arrays.asList(owner, String.valueOf(lease));
+        boolean first = true;
+        while (true) {
+            // 先登记再尝试加锁，避免错过尝试与等待之间的释放消息
+            CountDownLatch released = new CountDownLatch(1);
+            boolean registered = !first;
+            if (registered) {
+                register(released);
+            }
+            try {
+                long result = (Long) RedisUtils.evalScript("lock", false, ACQUIRE_SCRIPT, keys, args);
+                if (result > 0) {
+                    state.owner = owner;
+                    state.fencingToken = result;
+                    state.leaseLost = false;
+                    if (watchdog) {
+                        long interval = Math.max(1L, lease / 3);
+                        state.renewal = WATCHDOG.scheduleWithFixedDelay(() -> renew(state, owner, lease),
+                                interval, interval, TimeUnit.MILLISECONDS);
+                    }
+                    acquired.increment();
+                    return true;
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                if (first) {
+                    // 第一次失败后开始订阅释放消息并立即重试，之后每次失败都等待
+                    contended.increment();
+                    ensureSubscribed();
+                    first = false;
+                    continue;
+                }
+                long leaseRemaining = -result;
+                long wait = Math.min(remaining, leaseRemaining > 0 ? leaseRemaining : UNSUBSCRIBED_WAIT_MILLIS);
+                if (!listening) {
+                    wait = Math.min(wait, UNSUBSCRIBED_WAIT_MILLIS);
+                }
+                if (!released.await(wait, TimeUnit.MILLISECONDS) && System.currentTimeMillis() >= deadline) {
+                    return false;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                if (registered) {
+                    unregister(released);
+                }
+            }
+        }
+    }
+
+    /**
+     * 释放Redis中的锁
+     *
+     * @return 租期是否已丢失（锁已过期或被其他持有者获取）
+     */
+    private boolean releaseRemote(LockState state) {
+        ScheduledFuture<?> renewal = state.renewal;
+        if (renewal != null) {
+            renewal.cancel(false);
+            state.renewal = null;
+        }
+        String owner = state.owner;
+        state.owner = null;
+        long result = (Long) RedisUtils.evalScript("unlock", true, RELEASE_SCRIPT,
+                Collections.singletonList(name), Arrays.asList(owner, releaseChannel));
+        if (result == 0) {
+            leasesLost.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 看门狗续期，锁已不属于当前持有者时停止续期
+     */
+    private void renew(LockState state, String owner, long lease) {
+        if (!owner.equals(state.owner)) {
+            return;
+        }
+        try {
+            long result = (Long) RedisUtils.evalScript("renew lock", true, RENEW_SCRIPT,
+                    Collections.singletonList(name), Arrays.asList(owner, String.valueOf(lease)));
+            if (result == 1) {
+                renewals.increment();
+                return;
+            }
+            state.leaseLost = true;
+            leasesLost.increment();
+            ScheduledFuture<?> renewal = state.renewal;
+            if (renewal != null) {
+                renewal.cancel(false);
+            }
+        } catch (RuntimeException e) {
+            // 连接故障时下个周期重试，租期剩余2/3
+        }
+    }
+
+    // ========== 释放通知 ==========
+
+    private void register(CountDownLatch latch) {
+        WAITERS.compute(name, (k, waiters) -> {
+            Set<CountDownLatch> target = waiters == null ? ConcurrentHashMap.newKeySet() : waiters;
+            target.add(latch);
+            return target;
+        });
+    }
+
+    private void unregister(CountDownLatch latch) {
+        WAITERS.computeIfPresent(name, (k, waiters) -> {
+            waiters.remove(latch);
+            return waiters.isEmpty() ? null : waiters;
+        });
+    }
+
+    /**
+     * 启动释放消息的订阅线程（所有锁共用一个订阅连接）
+     */
+    private static void ensureSubscribed() {
+        if (subscriberThread != null) {
+            return;
+        }
+        synchronized (SUBSCRIBER_LOCK) {
+            if (subscriberThread == null) {
+                Thread thread = new Thread(RedisLock::subscribeLoop, "redis-lock-subscriber");
+                thread.setDaemon(true);
+                thread.start();
+                subscriberThread = thread;
+            }
+        }
+    }
+
+    /**
+     * 订阅释放消息，断开后按指数退避重连（断开期间等待线程按租期和短间隔重试）
+     */
+    private static void subscribeLoop() {
+        long delayMillis = 1000L;
+        while (subscriberThread == Thread.currentThread()) {
+            try (Jedis jedis = RedisUtils.createSubscriberConnection()) {
+                JedisPubSub pubSub = new ReleaseSubscriber();
+                subscriber = pubSub;
+                if (subscriberThread != Thread.currentThread()) {
+                    return;
+                }
+                jedis.psubscribe(pubSub, RELEASE_CHANNEL_PREFIX + "*");
+                delayMillis = 1000L;
+            } catch (Exception e) {
+                // 连接失败或订阅中断，稍后重连
+            } finally {
+                listening = false;
+            }
+            if (subscriberThread != Thread.currentThread()) {
+                return;
+            }
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            delayMillis = Math.min(delayMillis * 2, MAX_RECONNECT_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * 锁统计
+     *
+     * @return acquired、contended、timeouts、renewals、leasesLost、held（本JVM内有线程持有或等待的锁数）、listening
+     */
+    static JSONObject stats() {
+        JSONObject stats = new JSONObject();
+        stats.put("acquired", acquired.sum());
+        stats.put("contended", contended.sum());
+        stats.put("timeouts", timeouts.sum());
+        stats.put("renewals", renewals.sum());
+        stats.put("leasesLost", leasesLost.sum());
+        stats.put("held", STATES.size());
+        stats.put("listening", listening);
+        return stats;
+    }
+
+    /**
+     * 停止订阅线程（关闭连接池时调用），再次竞争锁时重新订阅
+     */
+    static void shutdown() {
+        synchronized (SUBSCRIBER_LOCK) {
+            Thread thread = subscriberThread;
+            subscriberThread = null;
+            JedisPubSub current = subscriber;
+            if (current != null && current.isSubscribed()) {
+                try {
+                    current.punsubscribe();
+                } catch (Exception e) {
+                    // 连接已断开时由订阅线程退出
+                }
+            }
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * 释放消息订阅者，唤醒本JVM内等待同名锁的线程
+     */
+    private static final class ReleaseSubscriber extends JedisPubSub {
+        @Override
+        public void onPSubscribe(String pattern, int subscribedChannels) {
+            listening = true;
+            // 订阅生效前可能错过释放消息，唤醒全部等待线程重试
+            for (Set<CountDownLatch> waiters : WAITERS.values()) {
+                waiters.forEach(CountDownLatch::countDown);
+            }
+        }
+
+        @Override
+        public void onPMessage(String pattern, String channel, String message) {
+            Set<CountDownLatch> waiters = WAITERS.get(channel.substring(RELEASE_CHANNEL_PREFIX.length()));
+            if (waiters != null) {
+                waiters.forEach(CountDownLatch::countDown);
+            }
+        }
+    }
+
+    /**
+     * 本JVM内单个锁名称的状态（owner、fencingToken等只由持有本地锁的线程和看门狗访问）
+     */
+    private static final class LockState {
+        final ReentrantLock local = new ReentrantLock();
+        int references;
+        volatile String owner;
+        volatile long fencingToken;
+        volatile boolean leaseLost;
+        volatile ScheduledFuture<?> renewal;
+    }
+}
@@ -0,0 +1,422 @@
+package cn.zzzmh.util;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Redis近端缓存（进程内一级缓存）
+ * 缓存get/getJson读到的值（getJson缓存解码后的JSONObject），按条数上限（按写入顺序淘汰）和TTL过期，
+ * 可按键前缀配置TTL或关闭缓存
+ *
+ * 后台线程订阅Redis键空间通知（__keyspace@db__:*），其他节点修改键时删除本地条目；
+ * 只有订阅生效且服务端开启了键空间通知（允许CONFIG GET时检查notify-keyspace-events）时才缓存，
+ * 订阅断开或通知未开启期间直接读取Redis。
+ *
+ * @author zzzmh
+ * @since 1.0.3
+ */
+final class RedisNearCache {
+
+    private static final int VERSION_STRIPES = 1024;
+    private static final long MAX_RECONNECT_DELAY_MILLIS = 30000L;
+
+    private final int maxEntries;
+    private final long defaultTtlMillis;
+    private final ConcurrentHashMap<String, CacheEntry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<CacheEntry> insertionOrder = new ConcurrentLinkedQueue<>();
+    // 按键哈希分段的失效版本号：读取前记录，写入缓存时版本变化则放弃写入
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    private volatile PrefixPolicy[] policies = new PrefixPolicy[0];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private final Supplier<Jedis> subscriberFactory;
+    private final String channelPrefix;
+    private final boolean configureKeyspaceEvents;
+    private final Thread subscriberThread;
+    private volatile JedisPubSub subscriber;
+    private volatile boolean listening;
+    private volatile String keyspaceEventFlags;
+    private volatile boolean closed;
+
+    /**
+     * 创建近端缓存并启动失效订阅线程
+     *
+     * @param maxEntries 最大条目数
+     * @param defaultTtlMillis 默认TTL（毫秒），0表示只缓存配置了前缀策略的键
+     * @param database Redis数据库索引
+     * @param subscriberFactory 创建订阅专用连接（不能使用连接池连接，订阅会一直占用连接）
+     * @param configureKeyspaceEvents 是否通过CONFIG SET开启服务端键空间通知
+     */
+    RedisNearCache(int maxEntries, long defaultTtlMillis, int database, Supplier<Jedis> subscriberFactory,
+                   boolean configureKeyspaceEvents) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Near cache max entries must be greater than 0");
+        }
+        if (defaultTtlMillis < 0) {
+            throw new IllegalArgumentException("Near cache ttl cannot be negative");
+        }
+        this.maxEntries = maxEntries;
+        this.defaultTtlMillis = defaultTtlMillis;
+        this.subscriberFactory = subscriberFactory;
+        this.channelPrefix = "__keyspace@" + database + "__:";
+        this.configureKeyspaceEvents = configureKeyspaceEvents;
+        this.subscriberThread = new Thread(this::subscribeLoop, "redis-near-cache-invalidator");
+        this.subscriberThread.setDaemon(true);
+        this.subscriberThread.start();
+    }
+
+    /**
+     * 设置键前缀策略（最长前缀优先），替换同一前缀的已有策略
+     *
+     * @param keyPrefix 键前缀
+     * @param ttlMillis TTL（毫秒），0表示该前缀的键不缓存
+     */
+    synchronized void setPolicy(String keyPrefix, long ttlMillis) {
+        if (keyPrefix == null) {
+            throw new IllegalArgumentException("Key prefix cannot be null");
+        }
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("Near cache ttl cannot be negative");
+        }
+        List<PrefixPolicy> updated = new ArrayList<>();
+        for (PrefixPolicy policy : policies) {
+            if (!policy.prefix.equals(keyPrefix)) {
+                updated.add(policy);
+            }
+        }
+        updated.add(new PrefixPolicy(keyPrefix, ttlMillis));
+        updated.sort((a, b) -> b.prefix.length() - a.prefix.length());
+        policies = updated.toArray(new PrefixPolicy[0]);
+        // 策略变化后已缓存的条目可能不再符合新策略
+        clear();
+    }
+
+    /**
+     * 读取字符串值，未命中时调用loader读取Redis并写入缓存
+     *
+     * @param key 键
+     * @param loader 读取Redis
+     * @return 值，不存在返回null
+     */
+    String get(String key, Function<String, String> loader) {
+        CacheEntry entry = lookup(key, false);
+        if (entry == null) {
+            entry = load(key, false, loader);
+        }
+        return (String) entry.value;
+    }
+
+    /**
+     * 读取JSON对象，缓存解码后的结果，返回副本
+     *
+     * @param key 键
+     * @param loader 读取Redis并解码
+     * @return JSON对象副本，不存在返回null
+     */
+    JSONObject getJson(String key, Function<String, JSONObject> loader) {
+        CacheEntry entry = lookup(key, true);
+        if (entry == null) {
+            entry = load(key, true, loader);
+        }
+        return entry.value == null ? null : copy((JSONObject) entry.value);
+    }
+
+    /**
+     * 删除本地条目（键在Redis中被修改或删除）
+     *
+     * @param key 键
+     */
+    void invalidate(String key) {
+        versions.incrementAndGet(stripeOf(key));
+        if (entries.remove(key) != null) {
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * 清空本地缓存
+     */
+    void clear() {
+        for (int i = 0; i < VERSION_STRIPES; i++) {
+            versions.incrementAndGet(i);
+        }
+        entries.clear();
+        insertionOrder.clear();
+    }
+
+    /**
+     * 缓存统计
+     *
+     * @return hits、misses、invalidations、size、listening（失效通知是否生效，false时不缓存）、
+     *         notifyKeyspaceEvents（服务端配置，无法读取时为null）
+     */
+    JSONObject stats() {
+        JSONObject stats = new JSONObject();
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("size", entries.size());
+        stats.put("listening", listening);
+        stats.put("notifyKeyspaceEvents", keyspaceEventFlags);
+        return stats;
+    }
+
+    /**
+     * 停止订阅并清空缓存
+     */
+    void close() {
+        closed = true;
+        JedisPubSub current = subscriber;
+        if (current != null && current.isSubscribed()) {
+            try {
+                current.punsubscribe();
+            } catch (Exception e) {
+                // 连接已断开时由订阅线程退出
+            }
+        }
+        subscriberThread.interrupt();
+        clear();
+    }
+
+    // ========== 本地缓存 ==========
+
+    /**
+     * 查找未过期的条目（同一个键先后用get和getJson读取时，类型不同视为未命中）
+     */
+    private CacheEntry lookup(String key, boolean json) {
+        CacheEntry entry = entries.get(key);
+        if (entry != null && entry.json == json && System.currentTimeMillis() < entry.expiresAtMillis) {
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        return null;
+    }
+
+    private CacheEntry load(String key, boolean json, Function<String, ?> loader) {
+        long ttlMillis = ttlOf(key);
+        if (ttlMillis <= 0) {
+            return new CacheEntry(key, loader.apply(key), json, 0);
+        }
+        int stripe = stripeOf(key);
+        long version = versions.get(stripe);
+        if (!listening) {
+            // 收不到失效通知时不缓存；先记录版本再检查，之后订阅断开时的clear()会让这次写入作废
+            return new CacheEntry(key, loader.apply(key), json, 0);
+        }
+        CacheEntry entry = new CacheEntry(key, loader.apply(key), json, System.currentTimeMillis() + ttlMillis);
+        if (versions.get(stripe) == version) {
+            entries.put(key, entry);
+            insertionOrder.offer(entry);
+            // 读取期间键被修改时，put之后的失效会把它删除；这里再检查一次避免留下旧值
+            if (versions.get(stripe) != version) {
+                entries.remove(key, entry);
+            }
+            evict();
+        }
+        return entry;
+    }
+
+    /**
+     * 超出条目上限时按写入顺序淘汰（队列中已被替换或删除的条目直接丢弃）
+     */
+    private void evict() {
+        while (entries.size() > maxEntries) {
+            CacheEntry eldest = insertionOrder.poll();
+            if (eldest == null) {
+                return;
+            }
+            entries.remove(eldest.key, eldest);
+        }
+        // 队列中失效条目过多时整理，避免无限增长
+        if (insertionOrder.size() > maxEntries * 2) {
+            insertionOrder.removeIf(entry -> entries.get(entry.key) != entry);
+        }
+    }
+
+    private long ttlOf(String key) {
+        for (PrefixPolicy policy : policies) {
+            if (key.startsWith(policy.prefix)) {
+                return policy.ttlMillis;
+            }
+        }
+        return defaultTtlMillis;
+    }
+
+    private static int stripeOf(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (VERSION_STRIPES - 1);
+    }
+
+    /**
+     * 深复制JSON对象，避免调用方修改结果影响缓存
+     */
+    static JSONObject copy(JSONObject source) {
+        JSONObject target = new JSONObject(source.size());
+        for (Map.Entry<String, Object> entry : source.entrySet()) {
+            target.put(entry.getKey(), copyValue(entry.getValue()));
+        }
+        return target;
+    }
+
+    private static Object copyValue(Object value) {
+        if (value instanceof JSONObject) {
+            return copy((JSONObject) value);
+        }
+        if (value instanceof JSONArray) {
+            JSONArray source = (JSONArray) value;
+            JSONArray target = new JSONArray(source.size());
+            for (Object item : source) {
+                target.add(copyValue(item));
+            }
+            return target;
+        }
+        return value;
+    }
+
+    // ========== 键空间通知 ==========
+
+    /**
+     * 订阅键空间通知，断开后按指数退避重连
+     */
+    private void subscribeLoop() {
+        long delayMillis = 1000L;
+        while (!closed) {
+            try (Jedis jedis = subscriberFactory.get()) {
+                if (configureKeyspaceEvents) {
+                    enableKeyspaceEvents(jedis);
+                }
+                // 服务端未开启键空间通知时订阅也收不到失效消息，不订阅，稍后重新检查
+                if (keyspaceEventsEnabled(jedis)) {
+                    JedisPubSub pubSub = new InvalidationSubscriber();
+                    subscriber = pubSub;
+                    if (closed) {
+                        return;
+                    }
+                    jedis.psubscribe(pubSub, channelPrefix + "*");
+                    delayMillis = 1000L;
+                }
+            } catch (Exception e) {
+                // 连接失败或订阅中断，稍后重连
+            } finally {
+                listening = false;
+            }
+            if (closed) {
+                return;
+            }
+            // 断开期间可能错过通知，清空后重连
+            clear();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            delayMillis = Math.min(delayMillis * 2, MAX_RECONNECT_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * 在服务端已有配置上追加键空间通知（K）和全部事件类型（A）；CONFIG被禁用时跳过
+     */
+    private static void enableKeyspaceEvents(Jedis jedis) {
+        try {
+            String flags = readKeyspaceEventFlags(jedis);
+            if (flags.indexOf('K') < 0 || flags.indexOf('A') < 0) {
+                jedis.configSet("notify-keyspace-events", flags + "KA");
+            }
+        } catch (JedisDataException e) {
+            // 托管Redis常禁用CONFIG，由keyspaceEventsEnabled按无法检查处理
+        }
+    }
+
+    /**
+     * 检查服务端是否开启了键空间通知：需要K，以及A或至少覆盖字符串写入、通用命令、过期和淘汰的g$xe；
+     * CONFIG被禁用时无法检查，按已开启处理
+     */
+    private boolean keyspaceEventsEnabled(Jedis jedis) {
+        String flags;
+        try {
+            flags = readKeyspaceEventFlags(jedis);
+        } catch (JedisDataException e) {
+            keyspaceEventFlags = null;
+            return true;
+        }
+        keyspaceEventFlags = flags;
+        if (flags.indexOf('K') < 0) {
+            return false;
+        }
+        if (flags.indexOf('A') >= 0) {
+            return true;
+        }
+        return flags.indexOf('g') >= 0 && flags.indexOf('$') >= 0 && flags.indexOf('x') >= 0 && flags.indexOf('e') >= 0;
+    }
+
+    private static String readKeyspaceEventFlags(Jedis jedis) {
+        List<String> config = jedis.configGet("notify-keyspace-events");
+        return config.size() >= 2 && config.get(1) != null ? config.get(1) : "";
+    }
+
+    /**
+     * 键空间通知订阅者
+     */
+    private final class InvalidationSubscriber extends JedisPubSub {
+        @Override
+        public void onPSubscribe(String pattern, int subscribedChannels) {
+            // 订阅生效前缓存的条目可能已过时
+            clear();
+            listening = true;
+        }
+
+        @Override
+        public void onPMessage(String pattern, String channel, String message) {
+            if (channel.startsWith(channelPrefix)) {
+                invalidate(channel.substring(channelPrefix.length()));
+            }
+        }
+    }
+
+    /**
+     * 缓存条目（value为字符串或JSONObject，null表示键不存在）
+     */
+    private static final class CacheEntry {
+        final String key;
+        final Object value;
+        final boolean json;
+        final long expiresAtMillis;
+
+        CacheEntry(String key, Object value, boolean json, long expiresAtMillis) {
+            this.key = key;
+            this.value = value;
+            this.json = json;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    /**
+     * 键前缀策略
+     */
+    private static final class PrefixPolicy {
+        final String prefix;
+        final long ttlMillis;
+
+        PrefixPolicy(String prefix, long ttlMillis) {
+            this.prefix = prefix;
+            this.ttlMillis = ttlMillis;
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package cn.zzzmh.util;
+
+import com.alibaba.fastjson2.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Redis限流器
+ * 通过RedisUtils.fixedWindowLimiter、slidingLogLimiter、gcraLimiter创建，
+ * 每次检查在一个Lua脚本中原子完成（EVALSHA），时间取Redis服务端的TIME，不受各节点时钟偏差影响。
+ *
+ * 开启本地预拒绝后，Redis拒绝某个键时在本地记录到下一个许可可用的时间，
+ * 期间该键的请求直接在本地拒绝，不访问Redis。
+ *
+ * @author zzzmh
+ * @since 1.0.3
+ */
+public final class RedisRateLimiter {
+
+    // Redis 5之前的版本需要开启命令复制才能在TIME之后写入
+    private static final String NOW_MILLIS = "if redis.replicate_commands then redis.replicate_commands() end "
+            + "local time = redis.call('time') "
+            + "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) ";
+
+    // 以下脚本返回{是否允许, 剩余许可, 本次请求的重试等待毫秒, 下一个许可可用的等待毫秒}
+
+    // KEYS[1]计数键；ARGV: limit, windowMillis, permits
+    private static final RedisScript FIXED_WINDOW_SCRIPT = new RedisScript(
+            "local limit = tonumber(ARGV[1]) "
+                    + "local permits = tonumber(ARGV[3]) "
+                    + "local count = tonumber(redis.call('get', KEYS[1]) or '0') "
+                    + "if count + permits > limit then "
+                    + "local ttl = redis.call('pttl', KEYS[1]) "
+                    + "if ttl < 0 then ttl = tonumber(ARGV[2]) end "
+                    + "local blocked = 0 "
+                    + "if count >= limit then blocked = ttl end "
+                    + "return {0, limit - count, ttl, blocked} end "
+                    + "count = redis.call('incrby', KEYS[1], permits) "
+                    + "if count == permits then redis.call('pexpire', KEYS[1], ARGV[2]) end "
+                    + "return {1, limit - count, 0, 0}");
+
+    // KEYS[1]时间戳有序集合；ARGV: limit, windowMillis, permits, 本次请求的唯一标识
+    private static final RedisScript SLIDING_LOG_SCRIPT = new RedisScript(NOW_MILLIS
+            + "local limit = tonumber(ARGV[1]) "
+            + "local window = tonumber(ARGV[2]) "
+            + "local permits = tonumber(ARGV[3]) "
+            + "redis.call('zremrangebyscore', KEYS[1], '-inf', now - window) "
+            + "local count = redis.call('zcard', KEYS[1]) "
+            + "if count + permits > limit then "
+            + "local entry = redis.call('zrange', KEYS[1], count + permits - limit - 1, count + permits - limit - 1, 'WITHSCORES') "
+            + "local retry = tonumber(entry[2]) + window - now "
+            + "local blocked = 0 "
+            + "if count >= limit then "
+            + "local oldest = redis.call('zrange', KEYS[1], count - limit, count - limit, 'WITHSCORES') "
+            + "blocked = tonumber(oldest[2]) + window - now end "
+            + "return {0, limit - count, retry, blocked} end "
+            + "for i = 1, permits do redis.call('zadd', KEYS[1], now, ARGV[4] .. ':' .. i) end "
+            + "redis.call('pexpire', KEYS[1], window) "
+            + "return {1, limit - count - permits, 0, 0}");
+
+    // KEYS[1]理论到达时间（TAT）；ARGV: 单个许可的间隔毫秒（可为小数）, 突发容量, permits
+    private static final RedisScript GCRA_SCRIPT = new RedisScript(NOW_MILLIS
+            + "local interval = tonumber(ARGV[1]) "
+            + "local burst = tonumber(ARGV[2]) "
+            + "local permits = tonumber(ARGV[3]) "
+            + "local tolerance = interval * burst "
+            + "local tat = tonumber(redis.call('get', KEYS[1]) or '0') "
+            + "if tat < now then tat = now end "
+            + "local newTat = tat + interval * permits "
+            + "local allowAt = newTat - tolerance "
+            + "if allowAt > now then "
+            + "local remaining = math.floor((tolerance - (tat - now)) / interval) "
+            + "local blocked = 0 "
+            + "if remaining < 1 then blocked = math.ceil(tat + interval - tolerance - now) end "
+            + "return {0, remaining, math.ceil(allowAt - now), blocked} end "
+            + "redis.call('set', KEYS[1], tostring(newTat), 'PX', math.ceil(newTat - now)) "
+            + "return {1, math.floor((tolerance - (newTat - now)) / interval), 0, 0}");
+
+    private enum Algorithm {
+        FIXED_WINDOW, SLIDING_LOG, GCRA
+    }
+
+    private final Algorithm algorithm;
+    private final String keyPrefix;
+    private final int limit;
+    private final long periodMillis;
+    private final double intervalMillis;
+    private final int burst;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private volatile ConcurrentHashMap<String, Long> localBlocks;
+    private volatile int maxLocalKeys;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder localRejected = new LongAdder();
+
+    private RedisRateLimiter(Algorithm algorithm, String name, int limit, long periodMillis, int burst) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Rate limiter name cannot be empty");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Rate limit must be greater than 0");
+        }
+        if (periodMillis <= 0) {
+            throw new IllegalArgumentException("Rate limit period must be greater than 0");
+        }
+        if (burst <= 0) {
+            throw new IllegalArgumentException("Rate limit burst must be greater than 0");
+        }
+        this.algorithm = algorithm;
+        this.keyPrefix = name + ":";
+        this.limit = limit;
+        this.periodMillis = periodMillis;
+        this.intervalMillis = (double) periodMillis / limit;
+        this.burst = burst;
+    }
+
+    static RedisRateLimiter fixedWindow(String name, int limit, long windowMillis) {
+        return new RedisRateLimiter(Algorithm.FIXED_WINDOW, name, limit, windowMillis, limit);
+    }
+
+    static RedisRateLimiter slidingLog(String name, int limit, long windowMillis) {
+        return new RedisRateLimiter(Algorithm.SLIDING_LOG, name, limit, windowMillis, limit);
+    }
+
+    static RedisRateLimiter gcra(String name, int limit, long periodMillis, int burst) {
+        return new RedisRateLimiter(Algorithm.GCRA, name, limit, periodMillis, burst);
+    }
+
+    /**
+     * 开启本地预拒绝：Redis拒绝后到下一个许可可用前，同一个键的请求在本地直接拒绝
+     *
+     * @param maxKeys 本地最多记录的键数
+     * @return 当前限流器
+     */
+    public RedisRateLimiter withLocalPreLimit(int maxKeys) {
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("Local pre-limit max keys must be greater than 0");
+        }
+        this.maxLocalKeys = maxKeys;
+        this.localBlocks = new ConcurrentHashMap<>();
+        return this;
+    }
+
+    /**
+     * 尝试获取1个许可
+     *
+     * @param key 限流对象（如用户ID、IP），Redis中的键为name + ":" + key
+     * @return 是否允许
+     */
+    public boolean tryAcquire(String key) {
+        return check(key, 1).isAllowed();
+    }
+
+    /**
+     * 尝试获取多个许可
+     *
+     * @param key 限流对象
+     * @param permits 许可数
+     * @return 是否允许
+     */
+    public boolean tryAcquire(String key, int permits) {
+        return check(key, permits).isAllowed();
+    }
+
+    /**
+     * 尝试获取许可并返回剩余许可和重试等待时间
+     *
+     * @param key 限流对象
+     * @param permits 许可数（不能超过突发容量）
+     * @return 检查结果
+     */
+    public Result check(String key, int permits) {
+        validate(key, permits);
+        Result local = checkLocally(key);
+        if (local != null) {
+            return local;
+        }
+        List<?> reply = (List<?>) RedisUtils.evalScript("rate limit", false, scriptOf(),
+                Collections.singletonList(keyPrefix + key), argsOf(permits));
+        return record(key, reply);
+    }
+
+    /**
+     * 在一个管道中检查多个限流对象（各自获取permits个许可）
+     *
+     * @param keys 限流对象列表
+     * @param permits 每个对象的许可数
+     * @return 检查结果，与keys顺序一致
+     */
+    public List<Result> checkBatch(List<String> keys, int permits) {
+        List<Result> results = new ArrayList<>(Collections.nCopies(keys.size(), (Result) null));
+        List<Integer> remote = new ArrayList<>();
+        List<List<String>> scriptKeys = new ArrayList<>();
+        List<List<String>> scriptArgs = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keys.get(i);
+            validate(key, permits);
+            Result local = checkLocally(key);
+            if (local != null) {
+                results.set(i, local);
+                continue;
+            }
+            remote.add(i);
+            scriptKeys.add(Collections.singletonList(keyPrefix + key));
+            scriptArgs.add(argsOf(permits));
+        }
+        if (remote.isEmpty()) {
+            return results;
+        }
+        List<Object> replies = RedisUtils.evalScriptBatch("rate limit batch", scriptOf(), scriptKeys, scriptArgs);
+        for (int j = 0; j < remote.size(); j++) {
+            Object reply = replies.get(j);
+            if (reply instanceof RuntimeException) {
+                throw new RuntimeException("Redis rate limit batch operation failed: "
+                        + ((RuntimeException) reply).getMessage(), (RuntimeException) reply);
+            }
+            int index = remote.get(j);
+            results.set(index, record(keys.get(index), (List<?>) reply));
+        }
+        return results;
+    }
+
+    /**
+     * 限流器统计
+     *
+     * @return allowed、rejected、localRejected、localKeys
+     */
+    public JSONObject getStats() {
+        JSONObject stats = new JSONObject();
+        stats.put("allowed", allowed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("localRejected", localRejected.sum());
+        Map<String, Long> blocks = localBlocks;
+        stats.put("localKeys", blocks == null ? 0 : blocks.size());
+        return stats;
+    }
+
+    private void validate(String key, int permits) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        if (permits <= 0 || permits > burst) {
+            throw new IllegalArgumentException("Permits must be between 1 and " + burst);
+        }
+    }
+
+    private RedisScript scriptOf() {
+        switch (algorithm) {
+            case FIXED_WINDOW:
+                return FIXED_WINDOW_SCRIPT;
+            case SLIDING_LOG:
+                return SLIDING_LOG_SCRIPT;
+            default:
+                return GCRA_SCRIPT;
+        }
+    }
+
+    private List<String> argsOf(int permits) {
+        switch (algorithm) {
+            case FIXED_WINDOW:
+                return Arrays.asList(String.valueOf(limit), String.valueOf(periodMillis), String.valueOf(permits));
+            case SLIDING_LOG:
+                return Arrays.asList(String.valueOf(limit), String.valueOf(periodMillis), String.valueOf(permits),
+                        instanceId + ":" + sequence.incrementAndGet());
+            default:
+                return Arrays.asList(String.valueOf(intervalMillis), String.valueOf(burst), String.valueOf(permits));
+        }
+    }
+
+    /**
+     * 本地预拒绝，未拒绝返回null
+     */
+    private Result checkLocally(String key) {
+        Map<String, Long> blocks = localBlocks;
+        if (blocks == null) {
+            return null;
+        }
+        Long blockedUntil = blocks.get(key);
+        if (blockedUntil == null) {
+            return null;
+        }
+        long waitMillis = blockedUntil - System.currentTimeMillis();
+        if (waitMillis <= 0) {
+            blocks.remove(key, blockedUntil);
+            return null;
+        }
+        localRejected.increment();
+        return new Result(false, 0, waitMillis);
+    }
+
+    private Result record(String key, List<?> reply) {
+        boolean isAllowed = ((Long) reply.get(0)) == 1L;
+        long remaining = Math.max(0L, (Long) reply.get(1));
+        long retryAfterMillis = Math.max(0L, (Long) reply.get(2));
+        long blockedMillis = (Long) reply.get(3);
+        if (isAllowed) {
+            allowed.increment();
+        } else {
+            rejected.increment();
+            Map<String, Long> blocks = localBlocks;
+            if (blocks != null && blockedMillis > 0) {
+                if (blocks.size() >= maxLocalKeys) {
+                    pruneLocalBlocks(blocks);
+                }
+                if (blocks.size() < maxLocalKeys) {
+                    blocks.put(key, System.currentTimeMillis() + blockedMillis);
+                }
+            }
+        }
+        return new Result(isAllowed, remaining, retryAfterMillis);
+    }
+
+    /**
+     * 删除已到期的本地记录
+     */
+    private static void pruneLocalBlocks(Map<String, Long> blocks) {
+        long now = System.currentTimeMillis();
+        for (Iterator<Map.Entry<String, Long>> it = blocks.entrySet().iterator(); it.hasNext(); ) {
+            if (it.next().getValue() <= now) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * 限流检查结果
+     */
+    public static final class Result {
+        private final boolean allowed;
+        private final long remaining;
+        private final long retryAfterMillis;
+
+        Result(boolean allowed, long remaining, long retryAfterMillis) {
+            this.allowed = allowed;
+            this.remaining = remaining;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        /**
+         * 是否允许
+         */
+        public boolean isAllowed() {
+            return allowed;
+        }
+
+        /**
+         * 剩余许可数
+         */
+        public long getRemaining() {
+            return remaining;
+        }
+
+        /**
+         * 被拒绝时，再次请求相同许可数前建议等待的时间（毫秒），允许时为0
+         */
+        public long getRetryAfterMillis() {
+            return retryAfterMillis;
+        }
+    }
+}
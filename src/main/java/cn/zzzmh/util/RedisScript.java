@@ -0,0 +1,104 @@
+package cn.zzzmh.util;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lua脚本
+ * 按SHA1用EVALSHA执行，服务端没有缓存该脚本（重启、SCRIPT FLUSH或新节点）时返回NOSCRIPT，改用EVAL执行并由服务端缓存
+ *
+ * @author zzzmh
+ * @since 1.0.3
+ */
+final class RedisScript {
+
+    private final String script;
+    private final String sha1;
+
+    RedisScript(String script) {
+        this.script = script;
+        this.sha1 = sha1Hex(script);
+    }
+
+    /**
+     * 执行脚本
+     *
+     * @param jedis 连接
+     * @param keys KEYS
+     * @param args ARGV
+     * @return 脚本返回值
+     */
+    Object eval(Jedis jedis, List<String> keys, List<String> args) {
+        try {
+            return jedis.evalsha(sha1, keys, args);
+        } catch (JedisNoScriptException e) {
+            return jedis.eval(script, keys, args);
+        }
+    }
+
+    /**
+     * 在一个管道中多次执行脚本；返回NOSCRIPT的调用没有执行，在第二个管道中改用EVAL重新执行
+     *
+     * @param jedis 连接
+     * @param keys 每次调用的KEYS
+     * @param args 每次调用的ARGV
+     * @return 各次调用的返回值，与参数顺序一致（脚本错误时为对应的异常对象）
+     */
+    List<Object> evalBatch(Jedis jedis, List<List<String>> keys, List<List<String>> args) {
+        Pipeline pipeline = jedis.pipelined();
+        List<Response<Object>> responses = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            responses.add(pipeline.evalsha(sha1, keys.get(i), args.get(i)));
+        }
+        pipeline.sync();
+        List<Object> results = new ArrayList<>(keys.size());
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < responses.size(); i++) {
+            try {
+                results.add(responses.get(i).get());
+            } catch (JedisNoScriptException e) {
+                results.add(null);
+                missing.add(i);
+            } catch (RuntimeException e) {
+                results.add(e);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Pipeline retry = jedis.pipelined();
+            List<Response<Object>> retried = new ArrayList<>(missing.size());
+            for (int i : missing) {
+                retried.add(retry.eval(script, keys.get(i), args.get(i)));
+            }
+            retry.sync();
+            for (int j = 0; j < missing.size(); j++) {
+                try {
+                    results.set(missing.get(j), retried.get(j).get());
+                } catch (RuntimeException e) {
+                    results.set(missing.get(j), e);
+                }
+            }
+        }
+        return results;
+    }
+
+    private static String sha1Hex(String script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+}
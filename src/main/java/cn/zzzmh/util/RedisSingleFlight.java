@@ -0,0 +1,188 @@
+package cn.zzzmh.util;
+
+import com.alibaba.fastjson2.JSONObject;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * getOrLoad的进程内加载合并
+ * 同一个键同时只有一个线程执行加载，其他线程等待同一个结果（缓存未命中），或直接使用缓存中的旧值（提前刷新和过期旧值）
+ *
+ * 记录每个键最近一次的加载耗时，用于按XFetch算法（Optimal Probabilistic Cache Stampede Prevention）
+ * 在过期前随机提前刷新：剩余时间越短、加载越慢，提前刷新的概率越高。
+ *
+ * @author zzzmh
+ * @since 1.0.3
+ */
+final class RedisSingleFlight {
+
+    private static final int MAX_TRACKED_KEYS = 10000;
+
+    private final ConcurrentHashMap<String, CompletableFuture<JSONObject>> flights = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> loadMillis = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder joined = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
+    private final LongAdder lockContended = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private volatile String lastRefreshError;
+    private final LongAdder redisErrors = new LongAdder();
+    private volatile String lastRedisError;
+
+    /**
+     * 缓存未命中时加载，已有线程在加载同一个键时等待其结果
+     *
+     * @param key 键
+     * @param load 加载并写入Redis
+     * @return 加载结果的副本
+     */
+    JSONObject load(String key, Supplier<JSONObject> load) {
+        CompletableFuture<JSONObject> flight = new CompletableFuture<>();
+        CompletableFuture<JSONObject> existing = flights.putIfAbsent(key, flight);
+        if (existing == null) {
+            return lead(key, flight, load);
+        }
+        joined.increment();
+        try {
+            JSONObject value = existing.join();
+            return value == null ? null : RedisNearCache.copy(value);
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 刷新即将过期或已过期（在旧值窗口内）的值；已有线程在刷新或刷新失败时返回缓存中的值
+     *
+     * @param key 键
+     * @param load 加载并写入Redis
+     * @param cached 缓存中的值
+     * @param early 是否为过期前的提前刷新
+     * @return 新值，或缓存中的值
+     */
+    JSONObject refresh(String key, Supplier<JSONObject> load, JSONObject cached, boolean early) {
+        CompletableFuture<JSONObject> flight = new CompletableFuture<>();
+        if (flights.putIfAbsent(key, flight) != null) {
+            if (!early) {
+                staleServed.increment();
+            }
+            return cached;
+        }
+        if (early) {
+            earlyRefreshes.increment();
+        }
+        try {
+            return lead(key, flight, load);
+        } catch (RuntimeException e) {
+            refreshFailures.increment();
+            lastRefreshError = e.getMessage();
+            staleServed.increment();
+            return cached;
+        }
+    }
+
+    /**
+     * 按XFetch算法判断是否提前刷新：loadMillis * beta * -ln(random) >= 剩余时间
+     *
+     * @param key 键
+     * @param remainingMillis 距离过期的剩余时间（毫秒）
+     * @param beta 提前系数，大于1更积极，0表示不提前刷新
+     * @return 是否提前刷新
+     */
+    boolean shouldRefreshEarly(String key, long remainingMillis, double beta) {
+        if (beta <= 0) {
+            return false;
+        }
+        Long millis = loadMillis.get(key);
+        if (millis == null || millis <= 0) {
+            // 本节点没有加载过该键，由加载过的节点负责提前刷新
+            return false;
+        }
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return millis * beta * -Math.log(random) >= remainingMillis;
+    }
+
+    /**
+     * 记录调用方加载函数的耗时（不含等待分布式锁的时间）
+     *
+     * @param key 键
+     * @param millis 耗时（毫秒）
+     */
+    void recordLoad(String key, long millis) {
+        loads.increment();
+        if (loadMillis.size() >= MAX_TRACKED_KEYS && !loadMillis.containsKey(key)) {
+            // 超出上限时整体清空，之后按需重新记录
+            loadMillis.clear();
+        }
+        loadMillis.put(key, Math.max(1L, millis));
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordLockContended() {
+        lockContended.increment();
+    }
+
+    /**
+     * 记录读写Redis失败（getOrLoad按未命中处理，仍返回loader的结果）
+     *
+     * @param e 异常
+     */
+    void recordRedisError(Exception e) {
+        redisErrors.increment();
+        lastRedisError = e.getMessage();
+    }
+
+    /**
+     * 统计
+     *
+     * @return hits、loads、joined、earlyRefreshes、staleServed、lockContended、refreshFailures、lastRefreshError、
+     *         redisErrors、lastRedisError、inFlight
+     */
+    JSONObject stats() {
+        JSONObject stats = new JSONObject();
+        stats.put("hits", hits.sum());
+        stats.put("loads", loads.sum());
+        stats.put("joined", joined.sum());
+        stats.put("earlyRefreshes", earlyRefreshes.sum());
+        stats.put("staleServed", staleServed.sum());
+        stats.put("lockContended", lockContended.sum());
+        stats.put("refreshFailures", refreshFailures.sum());
+        stats.put("lastRefreshError", lastRefreshError);
+        stats.put("redisErrors", redisErrors.sum());
+        stats.put("lastRedisError", lastRedisError);
+        stats.put("inFlight", flights.size());
+        return stats;
+    }
+
+    private JSONObject lead(String key, CompletableFuture<JSONObject> flight, Supplier<JSONObject> load) {
+        try {
+            JSONObject value = load.get();
+            flight.complete(value);
+            // 等待的线程从同一个对象复制，加载的线程也只拿副本，调用方修改返回值不会影响其他线程
+            return value == null ? null : RedisNearCache.copy(value);
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+}
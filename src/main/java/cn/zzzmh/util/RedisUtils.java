@@ -1,12 +1,41 @@
 package cn.zzzmh.util;
 
+import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONObject;
+import redis.clients.jedis.DefaultJedisClientConfig;
+import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.commands.PipelineCommands;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.resps.Tuple;
+import redis.clients.jedis.util.SafeEncoder;
 
 import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Redis工具类
@@ -21,8 +50,43 @@ public class RedisUtils {
     private static int port;
     private static String password;
     private static int database;
+    private static int timeout;
     private static JedisPool jedisPool;
 
+    // 连接池空闲检测默认值
+    private static final long DEFAULT_EVICTION_INTERVAL = 30000L;
+    private static final long DEFAULT_MIN_EVICTABLE_IDLE_TIME = 60000L;
+
+    // 连接池统计
+    private static final LongAdder borrowFailures = new LongAdder();
+    private static final LongAdder connectionFailures = new LongAdder();
+    private static final LongAdder retries = new LongAdder();
+    private static final LongAdder readTimeouts = new LongAdder();
+
+    // 单条MGET/MSET的最大键数，超出时在同一管道中拆分
+    private static final int BATCH_SIZE = 1000;
+
+    // JSON编解码器（默认null，使用JSON文本）
+    private static volatile JsonCodec jsonCodec;
+
+    // 计数器本地聚合缓冲（首次使用incrementBuffered时按默认参数创建）
+    private static final long DEFAULT_COUNTER_FLUSH_INTERVAL = 1000L;
+    private static final int DEFAULT_COUNTER_FLUSH_THRESHOLD = 10000;
+    private static final int DEFAULT_COUNTER_MAX_KEYS = 100000;
+    private static volatile RedisCounterBuffer counterBuffer;
+
+    // getOrLoad加载合并与提前刷新
+    private static final RedisSingleFlight singleFlight = new RedisSingleFlight();
+    private static final long LOAD_LOCK_MILLIS = 3000L;
+    private static final long LOAD_LOCK_POLL_MILLIS = 50L;
+    private static final String LOAD_LOCK_SUFFIX = ":loading";
+    private static final RedisScript UNLOCK_SCRIPT = new RedisScript(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end");
+    private static volatile double earlyRefreshBeta = 1.0;
+
+    // 近端缓存（默认关闭）
+    private static volatile RedisNearCache nearCache;
+
     // 添加JVM关闭钩子，自动关闭连接池
     static {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -51,6 +115,12 @@ public class RedisUtils {
       * redis.pool.maxIdle=50
       * redis.pool.minIdle=10
       * redis.pool.timeout=3000
+      * redis.pool.testOnBorrow=false
+      * redis.pool.testOnReturn=false
+      * redis.pool.evictionInterval=30000
+      * redis.pool.minEvictableIdleTime=60000
+      * redis.codec=jsonb
+      * redis.codec.compressThreshold=1024
       * 
       * @return Jedis连接池
       */
@@ -71,7 +141,9 @@ public class RedisUtils {
                      "redis.pool.maxTotal=200\n" +
                      "redis.pool.maxIdle=50\n" +
                      "redis.pool.minIdle=10\n" +
-                     "redis.pool.timeout=3000"
+                     "redis.pool.timeout=3000\n" +
+                     "redis.pool.testOnBorrow=false\n" +
+                     "redis.pool.evictionInterval=30000"
                  );
              }
              
@@ -88,6 +160,14 @@ public class RedisUtils {
              String maxIdle = props.getProperty("redis.pool.maxIdle");
              String minIdle = props.getProperty("redis.pool.minIdle");
              String timeout = props.getProperty("redis.pool.timeout");
+             String testOnBorrow = props.getProperty("redis.pool.testOnBorrow");
+             String testOnReturn = props.getProperty("redis.pool.testOnReturn");
+             String evictionInterval = props.getProperty("redis.pool.evictionInterval");
+             String minEvictableIdleTime = props.getProperty("redis.pool.minEvictableIdleTime");
+             
+             // JSON编解码配置
+             String codec = props.getProperty("redis.codec");
+             String compressThreshold = props.getProperty("redis.codec.compressThreshold");
              
              // 检查必需参数
              if (redisHost == null) {
@@ -108,7 +188,27 @@ public class RedisUtils {
              int poolMinIdle = minIdle != null ? Integer.parseInt(minIdle) : 10;
              int poolTimeout = timeout != null ? Integer.parseInt(timeout) : 3000;
              
-             return init(redisHost, port, password, database, poolMaxTotal, poolMaxIdle, poolMinIdle, poolTimeout);
+             // 连接校验默认只在空闲检测时进行，连接故障后再清理空闲连接
+             boolean poolTestOnBorrow = testOnBorrow != null && Boolean.parseBoolean(testOnBorrow.trim());
+             boolean poolTestOnReturn = testOnReturn != null && Boolean.parseBoolean(testOnReturn.trim());
+             long poolEvictionInterval = evictionInterval != null ? Long.parseLong(evictionInterval) : DEFAULT_EVICTION_INTERVAL;
+             long poolMinEvictableIdleTime = minEvictableIdleTime != null
+                     ? Long.parseLong(minEvictableIdleTime) : DEFAULT_MIN_EVICTABLE_IDLE_TIME;
+             
+             JedisPool pool = init(redisHost, port, password, database, poolMaxTotal, poolMaxIdle, poolMinIdle, poolTimeout,
+                     poolTestOnBorrow, poolTestOnReturn, poolEvictionInterval, poolMinEvictableIdleTime);
+             
+             if (codec != null && !codec.trim().isEmpty()) {
+                 int threshold = compressThreshold != null ? Integer.parseInt(compressThreshold.trim()) : -1;
+                 if ("jsonb".equalsIgnoreCase(codec.trim())) {
+                     setJsonCodec(RedisJsonCodec.jsonb(threshold));
+                 } else if ("text".equalsIgnoreCase(codec.trim())) {
+                     setJsonCodec(RedisJsonCodec.text(threshold));
+                 } else {
+                     throw new IllegalArgumentException("Unsupported redis.codec '" + codec + "', expected text or jsonb");
+                 }
+             }
+             return pool;
              
          } catch (IllegalArgumentException | IllegalStateException e) {
              throw e;
@@ -146,12 +246,38 @@ public class RedisUtils {
       */
      public static JedisPool init(String host, int port, String password, int database, 
                                   int maxTotal, int maxIdle, int minIdle, int timeout) {
+         return init(host, port, password, database, maxTotal, maxIdle, minIdle, timeout,
+                 false, false, DEFAULT_EVICTION_INTERVAL, DEFAULT_MIN_EVICTABLE_IDLE_TIME);
+     }
+
+     /**
+      * 初始化Redis连接（自定义连接池配置及连接校验策略）
+      * 
+      * @param host Redis主机
+      * @param port Redis端口
+      * @param password Redis密码（可为null）
+      * @param database Redis数据库索引
+      * @param maxTotal 连接池最大连接数
+      * @param maxIdle 连接池最大空闲连接数
+      * @param minIdle 连接池最小空闲连接数
+      * @param timeout 连接超时时间（毫秒）
+      * @param testOnBorrow 借出时是否PING校验（每次命令多一次往返）
+      * @param testOnReturn 归还时是否PING校验（每次命令多一次往返）
+      * @param evictionIntervalMillis 空闲检测间隔（毫秒），检测时校验空闲连接并回收超时连接，小于等于0表示不检测
+      * @param minEvictableIdleMillis 空闲超过该时间的连接被回收（毫秒）
+      * @return Jedis连接池
+      */
+     public static JedisPool init(String host, int port, String password, int database,
+                                  int maxTotal, int maxIdle, int minIdle, int timeout,
+                                  boolean testOnBorrow, boolean testOnReturn,
+                                  long evictionIntervalMillis, long minEvictableIdleMillis) {
          try {
              // 强制设置为全局连接池，即使之前已经初始化过
              RedisUtils.host = host;
              RedisUtils.port = port;
              RedisUtils.password = password;
              RedisUtils.database = database;
+             RedisUtils.timeout = timeout;
              
              // 关闭旧连接池
              if (jedisPool != null && !jedisPool.isClosed()) {
@@ -163,11 +289,14 @@ public class RedisUtils {
              config.setMaxTotal(maxTotal);
              config.setMaxIdle(maxIdle);
              config.setMinIdle(minIdle);
-             config.setTestOnBorrow(true);
-             config.setTestOnReturn(true);
-             config.setTestWhileIdle(true);
+             config.setTestOnBorrow(testOnBorrow);
+             config.setTestOnReturn(testOnReturn);
+             config.setTestWhileIdle(evictionIntervalMillis > 0);
+             config.setTimeBetweenEvictionRuns(Duration.ofMillis(evictionIntervalMillis > 0 ? evictionIntervalMillis : -1));
+             config.setMinEvictableIdleTime(Duration.ofMillis(minEvictableIdleMillis));
+             config.setNumTestsPerEvictionRun(-1); // 每次检测全部空闲连接
              config.setBlockWhenExhausted(true);
-             config.setMaxWaitMillis(timeout);
+             config.setMaxWait(Duration.ofMillis(timeout));
              
              // 创建连接池
              if (password != null && !password.trim().isEmpty()) {
@@ -190,7 +319,12 @@ public class RedisUtils {
      */
     public static Jedis createConnection() {
         ensureInitialized();
-        return jedisPool.getResource();
+        try {
+            return jedisPool.getResource();
+        } catch (RuntimeException e) {
+            borrowFailures.increment();
+            throw e;
+        }
     }
 
     // ========== String操作 ==========
@@ -202,10 +336,10 @@ public class RedisUtils {
      * @param value 值
      */
     public static void set(String key, String value) {
-        try (Jedis jedis = createConnection()) {
-            jedis.set(key, value);
-        } catch (Exception e) {
-            throw new RuntimeException("Redis set operation failed: " + e.getMessage(), e);
+        try {
+            execute("set", true, jedis -> jedis.set(key, value));
+        } finally {
+            invalidateNearCache(key);
         }
     }
 
@@ -217,29 +351,66 @@ public class RedisUtils {
       * @param expireMillis 过期时间（毫秒）
       */
      public static void set(String key, String value, long expireMillis) {
-         try (Jedis jedis = createConnection()) {
-             jedis.psetex(key, expireMillis, value);
-         } catch (Exception e) {
-             throw new RuntimeException("Redis set with expire operation failed: " + e.getMessage(), e);
+         try {
+             execute("set with expire", true, jedis -> jedis.psetex(key, expireMillis, value));
+         } finally {
+             invalidateNearCache(key);
          }
      }
 
     /**
-     * 获取字符串值
+     * 获取字符串值（开启近端缓存时优先读取本地缓存）
      * 
      * @param key 键
      * @return 值，不存在返回null
      */
     public static String get(String key) {
-        try (Jedis jedis = createConnection()) {
-            return jedis.get(key);
-        } catch (Exception e) {
-            throw new RuntimeException("Redis get operation failed: " + e.getMessage(), e);
-        }
+        RedisNearCache cache = nearCache;
+        return cache == null ? getUncached(key) : cache.get(key, RedisUtils::getUncached);
+    }
+
+    private static String getUncached(String key) {
+        return execute("get", true, jedis -> jedis.get(key));
     }
 
     // ========== JSON操作 ==========
 
+    /**
+     * JSON值编解码器（setJson/getJson及其批量方法使用）
+     */
+    public interface JsonCodec {
+        /**
+         * 编码JSON对象
+         *
+         * @param value JSON对象
+         * @return 写入Redis的字节
+         */
+        byte[] encode(JSONObject value);
+
+        /**
+         * 解码Redis中的值
+         *
+         * @param bytes Redis中的字节
+         * @return JSON对象
+         */
+        JSONObject decode(byte[] bytes);
+    }
+
+    /**
+     * 设置JSON编解码器，例如RedisJsonCodec.jsonb(1024)：JSONB二进制编码，超过1KB时压缩
+     * 内置的RedisJsonCodec能读取所有内置格式及原有的JSON文本，切换编码不影响已有数据的读取；
+     * 非文本编码的值不能再用get读取字符串
+     * 
+     * @param codec 编解码器，null表示恢复默认的JSON文本
+     */
+    public static void setJsonCodec(JsonCodec codec) {
+        jsonCodec = codec;
+        RedisNearCache cache = nearCache;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
     /**
      * 设置JSON对象（永不过期）
      * 
@@ -250,7 +421,17 @@ public class RedisUtils {
         if (jsonObject == null) {
             throw new IllegalArgumentException("JSON object cannot be null");
         }
-        set(key, jsonObject.toJSONString());
+        JsonCodec codec = jsonCodec;
+        if (codec == null) {
+            set(key, jsonObject.toJSONString());
+            return;
+        }
+        byte[] value = codec.encode(jsonObject);
+        try {
+            execute("set", true, jedis -> jedis.set(SafeEncoder.encode(key), value));
+        } finally {
+            invalidateNearCache(key);
+        }
     }
 
          /**
@@ -264,17 +445,39 @@ public class RedisUtils {
          if (jsonObject == null) {
              throw new IllegalArgumentException("JSON object cannot be null");
          }
-         set(key, jsonObject.toJSONString(), expireMillis);
+         JsonCodec codec = jsonCodec;
+         if (codec == null) {
+             set(key, jsonObject.toJSONString(), expireMillis);
+             return;
+         }
+         byte[] value = codec.encode(jsonObject);
+         try {
+             execute("set with expire", true, jedis -> jedis.psetex(SafeEncoder.encode(key), expireMillis, value));
+         } finally {
+             invalidateNearCache(key);
+         }
      }
 
     /**
-     * 获取JSON对象
+     * 获取JSON对象（开启近端缓存时缓存解码后的对象，返回副本）
      * 
      * @param key 键
      * @return JSON对象，不存在返回null
      */
     public static JSONObject getJson(String key) {
-        String jsonString = get(key);
+        RedisNearCache cache = nearCache;
+        return cache == null ? getJsonUncached(key) : cache.getJson(key, RedisUtils::getJsonUncached);
+    }
+
+    private static JSONObject getJsonUncached(String key) {
+        JsonCodec codec = jsonCodec;
+        if (codec == null) {
+            return parseJson(getUncached(key));
+        }
+        return decodeJson(codec, execute("get", true, jedis -> jedis.get(SafeEncoder.encode(key))));
+    }
+
+    private static JSONObject parseJson(String jsonString) {
         if (jsonString == null) {
             return null;
         }
@@ -285,6 +488,17 @@ public class RedisUtils {
         }
     }
 
+    private static JSONObject decodeJson(JsonCodec codec, byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            return codec.decode(bytes);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to decode JSON from Redis: " + e.getMessage(), e);
+        }
+    }
+
     // ========== 计数器操作 ==========
 
     /**
@@ -294,10 +508,10 @@ public class RedisUtils {
      * @return 递增后的值
      */
     public static Long increment(String key) {
-        try (Jedis jedis = createConnection()) {
-            return jedis.incr(key);
-        } catch (Exception e) {
-            throw new RuntimeException("Redis increment operation failed: " + e.getMessage(), e);
+        try {
+            return execute("increment", false, jedis -> jedis.incr(key));
+        } finally {
+            invalidateNearCache(key);
         }
     }
 
@@ -309,10 +523,10 @@ public class RedisUtils {
      * @return 递增后的值
      */
     public static Long increment(String key, long delta) {
-        try (Jedis jedis = createConnection()) {
-            return jedis.incrBy(key, delta);
-        } catch (Exception e) {
-            throw new RuntimeException("Redis increment by delta operation failed: " + e.getMessage(), e);
+        try {
+            return execute("increment by delta", false, jedis -> jedis.incrBy(key, delta));
+        } finally {
+            invalidateNearCache(key);
         }
     }
 
@@ -323,10 +537,10 @@ public class RedisUtils {
      * @return 递减后的值
      */
     public static Long decrement(String key) {
-        try (Jedis jedis = createConnection()) {
-            return jedis.decr(key);
-        } catch (Exception e) {
-            throw new RuntimeException("Redis decrement operation failed: " + e.getMessage(), e);
+        try {
+            return execute("decrement", false, jedis -> jedis.decr(key));
+        } finally {
+            invalidateNearCache(key);
         }
     }
 
@@ -338,74 +552,1606 @@ public class RedisUtils {
      * @return 递减后的值
      */
     public static Long decrement(String key, long delta) {
-        try (Jedis jedis = createConnection()) {
-            return jedis.decrBy(key, delta);
-        } catch (Exception e) {
-            throw new RuntimeException("Redis decrement by delta operation failed: " + e.getMessage(), e);
+        try {
+            return execute("decrement by delta", false, jedis -> jedis.decrBy(key, delta));
+        } finally {
+            invalidateNearCache(key);
         }
     }
 
-    // ========== 通用操作 ==========
+    // ========== 缓冲计数器 ==========
 
     /**
-     * 删除键
+     * 配置计数器本地聚合缓冲，替换已有的缓冲（旧缓冲中的增量会先写入Redis）
+     * 
+     * @param flushIntervalMillis 刷新间隔（毫秒），即计数在Redis中的最大延迟
+     * @param flushThreshold 累计递增次数达到该值时提前刷新
+     * @param maxKeys 最多缓冲的键数，超出时新键的递增直接写入Redis
+     */
+    public static void configureCounterBuffer(long flushIntervalMillis, int flushThreshold, int maxKeys) {
+        RedisCounterBuffer buffer = new RedisCounterBuffer(flushIntervalMillis, flushThreshold, maxKeys,
+                RedisUtils::writeCounterDeltas);
+        RedisCounterBuffer previous;
+        synchronized (RedisUtils.class) {
+            previous = counterBuffer;
+            counterBuffer = buffer;
+        }
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * 缓冲递增计数器（不立即访问Redis，由后台定时用INCRBY批量写入）
+     * 适合高频统计类计数，不返回递增后的值；进程异常退出时会丢失尚未刷新的增量
      * 
      * @param key 键
-     * @return 是否删除成功
      */
-    public static boolean delete(String key) {
-        try (Jedis jedis = createConnection()) {
-            return jedis.del(key) > 0;
-        } catch (Exception e) {
-            throw new RuntimeException("Redis delete operation failed: " + e.getMessage(), e);
+    public static void incrementBuffered(String key) {
+        incrementBuffered(key, 1L);
+    }
+
+    /**
+     * 缓冲递增计数器（指定步长）
+     * 
+     * @param key 键
+     * @param delta 递增步长（可为负数）
+     */
+    public static void incrementBuffered(String key, long delta) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        if (delta == 0) {
+            return;
+        }
+        if (!getCounterBuffer().add(key, delta)) {
+            increment(key, delta);
         }
     }
 
     /**
-     * 检查键是否存在
+     * 立即把缓冲的增量写入Redis
+     * 
+     * @return 写入的键数
+     */
+    public static int flushCounters() {
+        RedisCounterBuffer buffer = counterBuffer;
+        return buffer == null ? 0 : buffer.flush();
+    }
+
+    /**
+     * 获取计数器缓冲中尚未写入Redis的增量
      * 
      * @param key 键
-     * @return 是否存在
+     * @return 增量
      */
-    public static boolean exists(String key) {
-        try (Jedis jedis = createConnection()) {
-            return jedis.exists(key);
-        } catch (Exception e) {
-            throw new RuntimeException("Redis exists operation failed: " + e.getMessage(), e);
+    public static long getPendingIncrement(String key) {
+        RedisCounterBuffer buffer = counterBuffer;
+        return buffer == null ? 0 : buffer.pending(key);
+    }
+
+    /**
+     * 获取计数器缓冲统计
+     * 
+     * @return keys、buffered、overflow、flushes、flushFailures、lastFlushError，未使用返回null
+     */
+    public static JSONObject getCounterBufferStats() {
+        RedisCounterBuffer buffer = counterBuffer;
+        return buffer == null ? null : buffer.stats();
+    }
+
+    private static RedisCounterBuffer getCounterBuffer() {
+        RedisCounterBuffer buffer = counterBuffer;
+        if (buffer == null) {
+            synchronized (RedisUtils.class) {
+                buffer = counterBuffer;
+                if (buffer == null) {
+                    buffer = new RedisCounterBuffer(DEFAULT_COUNTER_FLUSH_INTERVAL, DEFAULT_COUNTER_FLUSH_THRESHOLD,
+                            DEFAULT_COUNTER_MAX_KEYS, RedisUtils::writeCounterDeltas);
+                    counterBuffer = buffer;
+                }
+            }
         }
+        return buffer;
     }
 
-         /**
-      * 设置键的过期时间
-      * 
-      * @param key 键
-      * @param expireMillis 过期时间（毫秒）
-      * @return 是否设置成功
-      */
-     public static boolean expire(String key, long expireMillis) {
-         try (Jedis jedis = createConnection()) {
-             return jedis.pexpire(key, expireMillis) == 1;
-         } catch (Exception e) {
-             throw new RuntimeException("Redis expire operation failed: " + e.getMessage(), e);
-         }
-     }
+    /**
+     * 在一个管道中用INCRBY写入各键的增量
+     */
+    private static void writeCounterDeltas(Map<String, Long> deltas) {
+        Map<String, Long> failed = new LinkedHashMap<>();
+        String error = execute("incrby batch", false, jedis -> {
+            Pipeline pipeline = jedis.pipelined();
+            for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+                pipeline.incrBy(entry.getKey(), entry.getValue());
+            }
+            // sync()不会抛出单条命令的错误，逐条检查返回值
+            List<Object> replies = pipeline.syncAndReturnAll();
+            String firstError = null;
+            int i = 0;
+            for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+                Object reply = replies.get(i++);
+                if (reply instanceof JedisDataException) {
+                    failed.put(entry.getKey(), entry.getValue());
+                    if (firstError == null) {
+                        firstError = entry.getKey() + ": " + ((JedisDataException) reply).getMessage();
+                    }
+                }
+            }
+            return firstError;
+        });
+        invalidateNearCache(deltas.keySet());
+        if (!failed.isEmpty()) {
+            throw new RedisCounterBuffer.PartialFlushException("Redis incrby failed for " + failed.size()
+                    + " of " + deltas.size() + " counters, first error " + error, failed);
+        }
+    }
 
-    // ========== 连接管理 ==========
+    // ========== 缓存加载 ==========
 
     /**
-     * 关闭连接池（静默关闭，不抛出异常）
+     * 读取JSON对象，不存在时调用loader加载并写入Redis（防止缓存击穿）
+     * 同一进程内同一个键同时只有一个线程执行loader，其他线程等待其结果；
+     * 临近过期时按加载耗时随机提前刷新，由一个线程刷新，其他线程继续读取缓存
+     * 
+     * @param key 键
+     * @param ttlMillis 过期时间（毫秒）
+     * @param loader 加载函数（例如查询数据库），返回null时不写入缓存
+     * @return JSON对象，loader返回null时返回null
      */
-    public static void closePool() {
-        if (jedisPool != null && !jedisPool.isClosed()) {
+    public static JSONObject getOrLoad(String key, long ttlMillis, Supplier<JSONObject> loader) {
+        return getOrLoad(key, ttlMillis, 0L, false, loader);
+    }
+
+    /**
+     * 读取JSON对象，不存在时加载，过期后的旧值窗口内由一个线程刷新，其他线程直接返回旧值
+     * 
+     * @param key 键
+     * @param ttlMillis 过期时间（毫秒）
+     * @param staleMillis 过期后仍可返回旧值的时间（毫秒），Redis中的实际过期时间为ttlMillis + staleMillis
+     * @param loader 加载函数，返回null时不写入缓存
+     * @return JSON对象
+     */
+    public static JSONObject getOrLoad(String key, long ttlMillis, long staleMillis, Supplier<JSONObject> loader) {
+        return getOrLoad(key, ttlMillis, staleMillis, false, loader);
+    }
+
+    /**
+     * 读取JSON对象，不存在时加载（可选跨节点加载锁）
+     * distributedLock为true时加载前用SET NX PX获取键上的短时锁（键名为key + ":loading"），
+     * 未获取到锁的节点有旧值时返回旧值，没有旧值时等待其他节点写入，等待超时后自行加载
+     * 
+     * @param key 键
+     * @param ttlMillis 过期时间（毫秒）
+     * @param staleMillis 过期后仍可返回旧值的时间（毫秒）
+     * @param distributedLock 是否使用跨节点加载锁
+     * @param loader 加载函数，返回null时不写入缓存
+     * @return JSON对象
+     */
+    public static JSONObject getOrLoad(String key, long ttlMillis, long staleMillis, boolean distributedLock,
+                                       Supplier<JSONObject> loader) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("TTL must be greater than 0");
+        }
+        if (staleMillis < 0) {
+            throw new IllegalArgumentException("Stale window cannot be negative");
+        }
+        if (loader == null) {
+            throw new IllegalArgumentException("Loader cannot be null");
+        }
+        CachedJson cached = getJsonWithTtlQuietly(key);
+        if (cached == null) {
+            return singleFlight.load(key, () -> loadAndStore(key, ttlMillis, staleMillis, distributedLock, loader, null));
+        }
+        if (cached.ttlMillis == -1) {
+            // 没有过期时间（不是由getOrLoad写入的键）
+            singleFlight.recordHit();
+            return cached.value;
+        }
+        Supplier<JSONObject> load = () -> loadAndStore(key, ttlMillis, staleMillis, distributedLock, loader,
+                cached.value);
+        long remainingMillis = cached.ttlMillis - staleMillis;
+        if (remainingMillis <= 0) {
+            return singleFlight.refresh(key, load, cached.value, false);
+        }
+        if (singleFlight.shouldRefreshEarly(key, remainingMillis, earlyRefreshBeta)) {
+            return singleFlight.refresh(key, load, cached.value, true);
+        }
+        singleFlight.recordHit();
+        return cached.value;
+    }
+
+    /**
+     * 设置提前刷新系数（XFetch算法的beta，默认1.0）
+     * 
+     * @param beta 大于1时更早刷新，0表示不提前刷新
+     */
+    public static void setEarlyRefreshBeta(double beta) {
+        if (beta < 0) {
+            throw new IllegalArgumentException("Early refresh beta cannot be negative");
+        }
+        earlyRefreshBeta = beta;
+    }
+
+    /**
+     * 获取getOrLoad统计
+     * 
+     * @return hits、loads、joined、earlyRefreshes、staleServed、lockContended、refreshFailures、lastRefreshError、inFlight
+     */
+    public static JSONObject getLoaderStats() {
+        return singleFlight.stats();
+    }
+
+    /**
+     * 在一个管道中读取值和剩余过期时间（不经过近端缓存，需要PTTL判断是否提前刷新）
+     */
+    private static CachedJson getJsonWithTtl(String key) {
+        JsonCodec codec = jsonCodec;
+        Object[] result = execute("get with ttl", true, jedis -> {
+            Pipeline pipeline = jedis.pipelined();
+            Response<byte[]> value = pipeline.get(SafeEncoder.encode(key));
+            Response<Long> ttl = pipeline.pttl(key);
+            pipeline.sync();
+            return new Object[]{value.get(), ttl.get()};
+        });
+        byte[] bytes = (byte[]) result[0];
+        if (bytes == null) {
+            return null;
+        }
+        JSONObject value = codec == null ? parseJson(SafeEncoder.encode(bytes)) : decodeJson(codec, bytes);
+        if (value == null) {
+            return null;
+        }
+        // GET和PTTL之间键过期时PTTL为-2，按已过期处理
+        long ttlMillis = (Long) result[1];
+        return new CachedJson(value, ttlMillis == -2 ? 0 : ttlMillis);
+    }
+
+    /**
+     * 读取值和剩余过期时间，Redis不可用时记录错误并按未命中处理
+     */
+    private static CachedJson getJsonWithTtlQuietly(String key) {
+        try {
+            return getJsonWithTtl(key);
+        } catch (RuntimeException e) {
+            singleFlight.recordRedisError(e);
+            return null;
+        }
+    }
+
+    /**
+     * 执行loader并写入Redis；其他节点持有加载锁时返回旧值，没有旧值时等待其他节点写入
+     * Redis不可用时不加锁、不写入，仍返回loader的结果
+     */
+    private static JSONObject loadAndStore(String key, long ttlMillis, long staleMillis, boolean distributedLock,
+                                           Supplier<JSONObject> loader, JSONObject stale) {
+        String lockKey = key + LOAD_LOCK_SUFFIX;
+        String token = null;
+        if (distributedLock) {
+            token = UUID.randomUUID().toString();
+            String lockToken = token;
+            String reply;
             try {
-                jedisPool.close();
-            } catch (Exception e) {
-                // 静默处理关闭异常
+                reply = execute("set nx", false,
+                        jedis -> jedis.set(lockKey, lockToken, SetParams.setParams().nx().px(LOAD_LOCK_MILLIS)));
+            } catch (RuntimeException e) {
+                // Redis不可用时不加锁直接加载
+                singleFlight.recordRedisError(e);
+                reply = null;
+                token = null;
+            }
+            if (token != null && !"OK".equals(reply)) {
+                singleFlight.recordLockContended();
+                if (stale != null) {
+                    return stale;
+                }
+                JSONObject loaded = awaitLoadedByOtherNode(key);
+                if (loaded != null) {
+                    return loaded;
+                }
+                token = null;
+            }
+        }
+        try {
+            long start = System.nanoTime();
+            JSONObject value = loader.get();
+            singleFlight.recordLoad(key, (System.nanoTime() - start) / 1_000_000L);
+            if (value != null) {
+                try {
+                    setJson(key, value, ttlMillis + staleMillis);
+                } catch (RuntimeException e) {
+                    // 写入失败不影响本次结果，下次读取时重新加载
+                    singleFlight.recordRedisError(e);
+                }
+            }
+            return value;
+        } finally {
+            if (token != null) {
+                String lockToken = token;
+                try {
+                    evalScript("unlock", true, UNLOCK_SCRIPT, Collections.singletonList(lockKey),
+                            Collections.singletonList(lockToken));
+                } catch (RuntimeException e) {
+                    // 锁会在LOAD_LOCK_MILLIS后自动过期
+                }
             }
         }
     }
 
-    // ========== 辅助方法 ==========
+    /**
+     * 轮询等待持有加载锁的节点写入，超时返回null
+     */
+    private static JSONObject awaitLoadedByOtherNode(String key) {
+        long deadline = System.currentTimeMillis() + LOAD_LOCK_MILLIS;
+        while (true) {
+            CachedJson cached;
+            try {
+                cached = getJsonWithTtl(key);
+            } catch (RuntimeException e) {
+                // Redis不可用时不再等待，由本节点加载
+                singleFlight.recordRedisError(e);
+                return null;
+            }
+            if (cached != null) {
+                return cached.value;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                return null;
+            }
+            try {
+                Thread.sleep(LOAD_LOCK_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    // ========== 分布式锁 ==========
+
+    /**
+     * 获取分布式锁（同一名称返回的对象共享本JVM内的持有状态，可随时获取，不需要缓存）
+     * 
+     * @param name 锁名称（即Redis中的键）
+     * @return 分布式锁
+     */
+    public static RedisLock getLock(String name) {
+        return new RedisLock(name);
+    }
+
+    /**
+     * 获取分布式锁统计
+     * 
+     * @return acquired、contended、timeouts、renewals、leasesLost、held、listening
+     */
+    public static JSONObject getLockStats() {
+        return RedisLock.stats();
+    }
+
+    // ========== 限流 ==========
+
+    /**
+     * 创建固定窗口限流器（每个窗口最多limit个许可，窗口从第一次请求开始计时）
+     * 
+     * @param name 限流器名称（Redis键前缀）
+     * @param limit 每个窗口的许可数
+     * @param windowMillis 窗口长度（毫秒）
+     * @return 限流器
+     */
+    public static RedisRateLimiter fixedWindowLimiter(String name, int limit, long windowMillis) {
+        return RedisRateLimiter.fixedWindow(name, limit, windowMillis);
+    }
+
+    /**
+     * 创建滑动日志限流器（任意windowMillis内最多limit个许可，按有序集合记录每次请求，精确但占用内存与limit成正比）
+     * 
+     * @param name 限流器名称（Redis键前缀）
+     * @param limit 窗口内的许可数
+     * @param windowMillis 窗口长度（毫秒）
+     * @return 限流器
+     */
+    public static RedisRateLimiter slidingLogLimiter(String name, int limit, long windowMillis) {
+        return RedisRateLimiter.slidingLog(name, limit, windowMillis);
+    }
+
+    /**
+     * 创建GCRA限流器（令牌桶：每periodMillis补充limit个许可，最多累积burst个，每个键只存一个时间戳）
+     * 
+     * @param name 限流器名称（Redis键前缀）
+     * @param limit 每个周期的许可数
+     * @param periodMillis 周期（毫秒）
+     * @param burst 突发容量
+     * @return 限流器
+     */
+    public static RedisRateLimiter gcraLimiter(String name, int limit, long periodMillis, int burst) {
+        return RedisRateLimiter.gcra(name, limit, periodMillis, burst);
+    }
+
+    // ========== 批量操作 ==========
+
+    /**
+     * 批量获取字符串值（一次往返，超过批量大小时在同一管道中分多条MGET发送）
+     * 
+     * @param keys 键列表
+     * @return 值列表，与键顺序一致，不存在的键对应null
+     */
+    public static List<String> mget(List<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return execute("mget", true, jedis -> {
+            if (keys.size() <= BATCH_SIZE) {
+                return jedis.mget(keys.toArray(new String[0]));
+            }
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<List<String>>> responses = new ArrayList<>();
+            for (int start = 0; start < keys.size(); start += BATCH_SIZE) {
+                List<String> chunk = keys.subList(start, Math.min(start + BATCH_SIZE, keys.size()));
+                responses.add(pipeline.mget(chunk.toArray(new String[0])));
+            }
+            pipeline.sync();
+            List<String> values = new ArrayList<>(keys.size());
+            for (Response<List<String>> response : responses) {
+                values.addAll(response.get());
+            }
+            return values;
+        });
+    }
+
+    /**
+     * 批量获取字符串值
+     * 
+     * @param keys 键
+     * @return 值列表，与键顺序一致，不存在的键对应null
+     */
+    public static List<String> mget(String... keys) {
+        return mget(keys == null ? null : Arrays.asList(keys));
+    }
+
+    /**
+     * 批量设置字符串值（永不过期）
+     * 
+     * @param values 键值对
+     */
+    public static void mset(Map<String, String> values) {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        try {
+            execute("mset", true, jedis -> {
+                if (values.size() <= BATCH_SIZE) {
+                    return jedis.mset(toKeyValueArray(values.entrySet()));
+                }
+                Pipeline pipeline = jedis.pipelined();
+                List<Map.Entry<String, String>> entries = new ArrayList<>(values.entrySet());
+                for (int start = 0; start < entries.size(); start += BATCH_SIZE) {
+                    pipeline.mset(toKeyValueArray(entries.subList(start, Math.min(start + BATCH_SIZE, entries.size()))));
+                }
+                syncChecked(pipeline);
+                return null;
+            });
+        } finally {
+            invalidateNearCache(values.keySet());
+        }
+    }
+
+    /**
+     * 批量设置字符串值（指定过期时间），在一个管道中逐个发送PSETEX，一次往返
+     * 
+     * @param values 键值对
+     * @param expireMillis 过期时间（毫秒），必须大于0
+     */
+    public static void msetWithExpire(Map<String, String> values, long expireMillis) {
+        if (expireMillis <= 0) {
+            throw new IllegalArgumentException("Expire time must be greater than 0");
+        }
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        try {
+            execute("mset with expire", true, jedis -> {
+                Pipeline pipeline = jedis.pipelined();
+                for (Map.Entry<String, String> entry : values.entrySet()) {
+                    pipeline.psetex(entry.getKey(), expireMillis, entry.getValue());
+                }
+                syncChecked(pipeline);
+                return null;
+            });
+        } finally {
+            invalidateNearCache(values.keySet());
+        }
+    }
+
+    /**
+     * 批量获取JSON对象
+     * 
+     * @param keys 键列表
+     * @return JSON对象列表，与键顺序一致，不存在的键对应null
+     */
+    public static List<JSONObject> getJsonBatch(List<String> keys) {
+        List<JSONObject> result = new ArrayList<>();
+        JsonCodec codec = jsonCodec;
+        if (codec == null) {
+            for (String value : mget(keys)) {
+                result.add(parseJson(value));
+            }
+            return result;
+        }
+        if (keys == null || keys.isEmpty()) {
+            return result;
+        }
+        List<byte[]> values = execute("mget", true, jedis -> {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<List<byte[]>>> responses = new ArrayList<>();
+            for (int start = 0; start < keys.size(); start += BATCH_SIZE) {
+                List<String> chunk = keys.subList(start, Math.min(start + BATCH_SIZE, keys.size()));
+                byte[][] chunkKeys = new byte[chunk.size()][];
+                for (int i = 0; i < chunkKeys.length; i++) {
+                    chunkKeys[i] = SafeEncoder.encode(chunk.get(i));
+                }
+                responses.add(pipeline.mget(chunkKeys));
+            }
+            pipeline.sync();
+            List<byte[]> all = new ArrayList<>(keys.size());
+            for (Response<List<byte[]>> response : responses) {
+                all.addAll(response.get());
+            }
+            return all;
+        });
+        for (byte[] value : values) {
+            result.add(decodeJson(codec, value));
+        }
+        return result;
+    }
+
+    /**
+     * 批量设置JSON对象（指定过期时间，小于等于0表示永不过期）
+     * 
+     * @param values 键与JSON对象
+     * @param expireMillis 过期时间（毫秒）
+     */
+    public static void setJsonBatch(Map<String, JSONObject> values, long expireMillis) {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, JSONObject> entry : values.entrySet()) {
+            if (entry.getValue() == null) {
+                throw new IllegalArgumentException("JSON object cannot be null: " + entry.getKey());
+            }
+        }
+        JsonCodec codec = jsonCodec;
+        if (codec != null) {
+            List<byte[]> encoded = new ArrayList<>(values.size());
+            for (JSONObject value : values.values()) {
+                encoded.add(codec.encode(value));
+            }
+            try {
+                execute(expireMillis > 0 ? "mset with expire" : "mset", true, jedis -> {
+                    Pipeline pipeline = jedis.pipelined();
+                    int i = 0;
+                    for (String key : values.keySet()) {
+                        if (expireMillis > 0) {
+                            pipeline.psetex(SafeEncoder.encode(key), expireMillis, encoded.get(i++));
+                        } else {
+                            pipeline.set(SafeEncoder.encode(key), encoded.get(i++));
+                        }
+                    }
+                    syncChecked(pipeline);
+                    return null;
+                });
+            } finally {
+                invalidateNearCache(values.keySet());
+            }
+            return;
+        }
+        Map<String, String> serialized = new LinkedHashMap<>();
+        for (Map.Entry<String, JSONObject> entry : values.entrySet()) {
+            serialized.put(entry.getKey(), entry.getValue().toJSONString());
+        }
+        if (expireMillis > 0) {
+            msetWithExpire(serialized, expireMillis);
+        } else {
+            mset(serialized);
+        }
+    }
+
+    /**
+     * 在一个管道中执行多条命令（一次往返）
+     * 
+     * 示例：
+     * List&lt;Object&gt; results = RedisUtils.pipelined(p -&gt; {
+     *     p.incr("counter");
+     *     p.get("name");
+     * });
+     * 
+     * @param commands 向管道写入命令
+     * @return 每条命令的结果，与写入顺序一致；单条命令失败时对应位置为JedisDataException
+     */
+    public static List<Object> pipelined(Consumer<Pipeline> commands) {
+        if (commands == null) {
+            throw new IllegalArgumentException("Pipeline commands cannot be null");
+        }
+        return execute("pipeline", false, jedis -> {
+            Pipeline pipeline = jedis.pipelined();
+            commands.accept(pipeline);
+            return pipeline.syncAndReturnAll();
+        });
+    }
+
+    // ========== Hash操作 ==========
+
+    /**
+     * 设置Hash字段
+     * 
+     * @param key 键
+     * @param field 字段
+     * @param value 值
+     * @return 是否为新增字段（已有字段被覆盖时返回false）
+     */
+    public static boolean hset(String key, String field, String value) {
+        return execute("hset", true, jedis -> jedis.hset(key, field, value)) > 0;
+    }
+
+    /**
+     * 批量设置Hash字段（一条HSET命令）
+     * 
+     * @param key 键
+     * @param fields 字段与值
+     * @return 新增的字段数
+     */
+    public static long hset(String key, Map<String, String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return 0;
+        }
+        return execute("hset", true, jedis -> jedis.hset(key, fields));
+    }
+
+    /**
+     * 获取Hash字段
+     * 
+     * @param key 键
+     * @param field 字段
+     * @return 值，不存在返回null
+     */
+    public static String hget(String key, String field) {
+        return execute("hget", true, jedis -> jedis.hget(key, field));
+    }
+
+    /**
+     * 获取多个Hash字段
+     * 
+     * @param key 键
+     * @param fields 字段
+     * @return 值列表，与字段顺序一致，不存在的字段对应null
+     */
+    public static List<String> hmget(String key, String... fields) {
+        if (fields == null || fields.length == 0) {
+            return new ArrayList<>();
+        }
+        return execute("hmget", true, jedis -> jedis.hmget(key, fields));
+    }
+
+    /**
+     * 获取Hash全部字段
+     * 
+     * @param key 键
+     * @return 字段与值，键不存在返回空Map
+     */
+    public static Map<String, String> hgetAll(String key) {
+        return execute("hgetall", true, jedis -> jedis.hgetAll(key));
+    }
+
+    /**
+     * 以JSON对象的形式写入Hash字段（只更新给出的字段，其余字段不变）
+     * 字符串值原样存储，其他值存储为JSON文本，null值删除对应字段；
+     * HSET和HDEL在一个MULTI/EXEC中执行，其他客户端不会看到只更新了一部分的字段
+     * 
+     * @param key 键
+     * @param fields 要更新的字段
+     */
+    public static void hsetJson(String key, JSONObject fields) {
+        if (fields == null || fields.isEmpty()) {
+            return;
+        }
+        execute("hset json", true, jedis -> {
+            Transaction transaction = jedis.multi();
+            queueHashUpdate(transaction, key, fields);
+            checkReplies(transaction.exec());
+            return null;
+        });
+    }
+
+    /**
+     * 以JSON对象的形式读取Hash全部字段
+     * 以{或[开头的值按JSON解析，其余值保留为字符串（可用getInteger等方法转换类型）
+     * 
+     * @param key 键
+     * @return JSON对象，键不存在返回null
+     */
+    public static JSONObject hgetAllAsJson(String key) {
+        return hashToJson(hgetAll(key));
+    }
+
+    /**
+     * 以JSON对象的形式读取指定的Hash字段
+     * 
+     * @param key 键
+     * @param fields 字段
+     * @return 只包含存在字段的JSON对象，键不存在返回null
+     */
+    public static JSONObject hgetJson(String key, String... fields) {
+        List<String> values = hmget(key, fields);
+        JSONObject result = new JSONObject();
+        for (int i = 0; i < values.size(); i++) {
+            if (values.get(i) != null) {
+                result.put(fields[i], parseHashValue(values.get(i)));
+            }
+        }
+        return result.isEmpty() ? null : result;
+    }
+
+    /**
+     * 删除Hash字段
+     * 
+     * @param key 键
+     * @param fields 字段
+     * @return 删除的字段数
+     */
+    public static long hdel(String key, String... fields) {
+        if (fields == null || fields.length == 0) {
+            return 0;
+        }
+        return execute("hdel", true, jedis -> jedis.hdel(key, fields));
+    }
+
+    /**
+     * 检查Hash字段是否存在
+     * 
+     * @param key 键
+     * @param field 字段
+     * @return 是否存在
+     */
+    public static boolean hexists(String key, String field) {
+        return execute("hexists", true, jedis -> jedis.hexists(key, field));
+    }
+
+    /**
+     * Hash字段递增
+     * 
+     * @param key 键
+     * @param field 字段
+     * @param delta 递增步长（可为负数）
+     * @return 递增后的值
+     */
+    public static long hincrBy(String key, String field, long delta) {
+        return execute("hincrby", false, jedis -> jedis.hincrBy(key, field, delta));
+    }
+
+    /**
+     * 获取Hash字段数
+     * 
+     * @param key 键
+     * @return 字段数
+     */
+    public static long hlen(String key) {
+        return execute("hlen", true, jedis -> jedis.hlen(key));
+    }
+
+    /**
+     * 批量读取多个Hash的全部字段（一次往返）
+     * 
+     * @param keys 键列表
+     * @return JSON对象列表，与键顺序一致，不存在的键对应null
+     */
+    public static List<JSONObject> hgetAllAsJsonBatch(List<String> keys) {
+        List<JSONObject> result = new ArrayList<>();
+        if (keys == null || keys.isEmpty()) {
+            return result;
+        }
+        List<Map<String, String>> hashes = execute("hgetall batch", true, jedis -> {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<Map<String, String>>> responses = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                responses.add(pipeline.hgetAll(key));
+            }
+            pipeline.sync();
+            List<Map<String, String>> values = new ArrayList<>(keys.size());
+            for (Response<Map<String, String>> response : responses) {
+                values.add(response.get());
+            }
+            return values;
+        });
+        for (Map<String, String> hash : hashes) {
+            result.add(hashToJson(hash));
+        }
+        return result;
+    }
+
+    /**
+     * 批量更新多个Hash的字段（一次往返，所有键在同一个MULTI/EXEC中），规则同hsetJson
+     * 
+     * @param updates 键与要更新的字段
+     */
+    public static void hsetJsonBatch(Map<String, JSONObject> updates) {
+        if (updates == null || updates.isEmpty()) {
+            return;
+        }
+        execute("hset json batch", true, jedis -> {
+            Transaction transaction = jedis.multi();
+            for (Map.Entry<String, JSONObject> entry : updates.entrySet()) {
+                if (entry.getValue() != null && !entry.getValue().isEmpty()) {
+                    queueHashUpdate(transaction, entry.getKey(), entry.getValue());
+                }
+            }
+            checkReplies(transaction.exec());
+            return null;
+        });
+    }
+
+    // ========== List操作 ==========
+
+    /**
+     * 从列表左侧插入
+     * 
+     * @param key 键
+     * @param values 值（按参数顺序依次插入，最后一个值在最左侧）
+     * @return 插入后的列表长度
+     */
+    public static long lpush(String key, String... values) {
+        return execute("lpush", false, jedis -> jedis.lpush(key, values));
+    }
+
+    /**
+     * 从列表右侧插入
+     * 
+     * @param key 键
+     * @param values 值
+     * @return 插入后的列表长度
+     */
+    public static long rpush(String key, String... values) {
+        return execute("rpush", false, jedis -> jedis.rpush(key, values));
+    }
+
+    /**
+     * 从列表右侧批量插入（超过批量大小时在同一管道中拆分为多条RPUSH）
+     * 
+     * @param key 键
+     * @param values 值列表
+     * @return 插入后的列表长度
+     */
+    public static long rpushAll(String key, List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return execute("llen", true, jedis -> jedis.llen(key));
+        }
+        return execute("rpush", false, jedis -> {
+            Pipeline pipeline = jedis.pipelined();
+            Response<Long> length = null;
+            for (int start = 0; start < values.size(); start += BATCH_SIZE) {
+                List<String> chunk = values.subList(start, Math.min(start + BATCH_SIZE, values.size()));
+                length = pipeline.rpush(key, chunk.toArray(new String[0]));
+            }
+            pipeline.sync();
+            return length.get();
+        });
+    }
+
+    /**
+     * 从列表左侧弹出
+     * 
+     * @param key 键
+     * @return 值，列表为空返回null
+     */
+    public static String lpop(String key) {
+        return execute("lpop", false, jedis -> jedis.lpop(key));
+    }
+
+    /**
+     * 从列表左侧弹出多个值（Redis 6.2+）
+     * 
+     * @param key 键
+     * @param count 最多弹出个数
+     * @return 值列表，列表为空返回空列表
+     */
+    public static List<String> lpop(String key, int count) {
+        List<String> values = execute("lpop", false, jedis -> jedis.lpop(key, count));
+        return values == null ? new ArrayList<>() : values;
+    }
+
+    /**
+     * 从列表右侧弹出
+     * 
+     * @param key 键
+     * @return 值，列表为空返回null
+     */
+    public static String rpop(String key) {
+        return execute("rpop", false, jedis -> jedis.rpop(key));
+    }
+
+    /**
+     * 获取列表区间内的元素
+     * 
+     * @param key 键
+     * @param start 开始下标（负数表示从末尾倒数）
+     * @param stop 结束下标（包含，-1表示最后一个）
+     * @return 元素列表
+     */
+    public static List<String> lrange(String key, long start, long stop) {
+        return execute("lrange", true, jedis -> jedis.lrange(key, start, stop));
+    }
+
+    /**
+     * 获取列表长度
+     * 
+     * @param key 键
+     * @return 列表长度
+     */
+    public static long llen(String key) {
+        return execute("llen", true, jedis -> jedis.llen(key));
+    }
+
+    /**
+     * 只保留列表区间内的元素
+     * 
+     * @param key 键
+     * @param start 开始下标
+     * @param stop 结束下标（包含）
+     */
+    public static void ltrim(String key, long start, long stop) {
+        execute("ltrim", true, jedis -> jedis.ltrim(key, start, stop));
+    }
+
+    // ========== Set操作 ==========
+
+    /**
+     * 向集合添加成员
+     * 
+     * @param key 键
+     * @param members 成员
+     * @return 新增的成员数
+     */
+    public static long sadd(String key, String... members) {
+        if (members == null || members.length == 0) {
+            return 0;
+        }
+        return execute("sadd", true, jedis -> jedis.sadd(key, members));
+    }
+
+    /**
+     * 从集合删除成员
+     * 
+     * @param key 键
+     * @param members 成员
+     * @return 删除的成员数
+     */
+    public static long srem(String key, String... members) {
+        if (members == null || members.length == 0) {
+            return 0;
+        }
+        return execute("srem", true, jedis -> jedis.srem(key, members));
+    }
+
+    /**
+     * 获取集合全部成员
+     * 
+     * @param key 键
+     * @return 成员集合，键不存在返回空集合
+     */
+    public static Set<String> smembers(String key) {
+        return execute("smembers", true, jedis -> jedis.smembers(key));
+    }
+
+    /**
+     * 检查是否为集合成员
+     * 
+     * @param key 键
+     * @param member 成员
+     * @return 是否为成员
+     */
+    public static boolean sismember(String key, String member) {
+        return execute("sismember", true, jedis -> jedis.sismember(key, member));
+    }
+
+    /**
+     * 批量检查是否为集合成员（Redis 6.2+，一条SMISMEMBER命令）
+     * 
+     * @param key 键
+     * @param members 成员
+     * @return 检查结果，与成员顺序一致
+     */
+    public static List<Boolean> smismember(String key, String... members) {
+        if (members == null || members.length == 0) {
+            return new ArrayList<>();
+        }
+        return execute("smismember", true, jedis -> jedis.smismember(key, members));
+    }
+
+    /**
+     * 获取集合成员数
+     * 
+     * @param key 键
+     * @return 成员数
+     */
+    public static long scard(String key) {
+        return execute("scard", true, jedis -> jedis.scard(key));
+    }
+
+    // ========== ZSet操作 ==========
+
+    /**
+     * 向有序集合添加成员（已存在时更新分数）
+     * 
+     * @param key 键
+     * @param score 分数
+     * @param member 成员
+     * @return 是否为新增成员
+     */
+    public static boolean zadd(String key, double score, String member) {
+        return execute("zadd", true, jedis -> jedis.zadd(key, score, member)) > 0;
+    }
+
+    /**
+     * 向有序集合批量添加成员（一条ZADD命令）
+     * 
+     * @param key 键
+     * @param scoreMembers 成员与分数
+     * @return 新增的成员数
+     */
+    public static long zadd(String key, Map<String, Double> scoreMembers) {
+        if (scoreMembers == null || scoreMembers.isEmpty()) {
+            return 0;
+        }
+        return execute("zadd", true, jedis -> jedis.zadd(key, scoreMembers));
+    }
+
+    /**
+     * 有序集合成员分数递增
+     * 
+     * @param key 键
+     * @param delta 递增值（可为负数）
+     * @param member 成员
+     * @return 递增后的分数
+     */
+    public static double zincrby(String key, double delta, String member) {
+        return execute("zincrby", false, jedis -> jedis.zincrby(key, delta, member));
+    }
+
+    /**
+     * 获取成员分数
+     * 
+     * @param key 键
+     * @param member 成员
+     * @return 分数，成员不存在返回null
+     */
+    public static Double zscore(String key, String member) {
+        return execute("zscore", true, jedis -> jedis.zscore(key, member));
+    }
+
+    /**
+     * 批量获取成员分数（Redis 6.2+，一条ZMSCORE命令）
+     * 
+     * @param key 键
+     * @param members 成员
+     * @return 分数列表，与成员顺序一致，不存在的成员对应null
+     */
+    public static List<Double> zmscore(String key, String... members) {
+        if (members == null || members.length == 0) {
+            return new ArrayList<>();
+        }
+        return execute("zmscore", true, jedis -> jedis.zmscore(key, members));
+    }
+
+    /**
+     * 按分数从低到高获取排名区间内的成员
+     * 
+     * @param key 键
+     * @param start 开始排名（从0开始）
+     * @param stop 结束排名（包含，-1表示最后一个）
+     * @return 成员列表
+     */
+    public static List<String> zrange(String key, long start, long stop) {
+        return execute("zrange", true, jedis -> jedis.zrange(key, start, stop));
+    }
+
+    /**
+     * 按分数从高到低获取排名区间内的成员及分数（排行榜）
+     * 
+     * @param key 键
+     * @param start 开始排名（从0开始）
+     * @param stop 结束排名（包含）
+     * @return 成员与分数，按分数从高到低排列
+     */
+    public static LinkedHashMap<String, Double> zrevrangeWithScores(String key, long start, long stop) {
+        List<Tuple> tuples = execute("zrevrange", true, jedis -> jedis.zrevrangeWithScores(key, start, stop));
+        LinkedHashMap<String, Double> result = new LinkedHashMap<>();
+        for (Tuple tuple : tuples) {
+            result.put(tuple.getElement(), tuple.getScore());
+        }
+        return result;
+    }
+
+    /**
+     * 获取分数区间内的成员
+     * 
+     * @param key 键
+     * @param min 最小分数（包含）
+     * @param max 最大分数（包含）
+     * @return 成员列表，按分数从低到高排列
+     */
+    public static List<String> zrangeByScore(String key, double min, double max) {
+        return execute("zrangebyscore", true, jedis -> jedis.zrangeByScore(key, min, max));
+    }
+
+    /**
+     * 获取成员排名（按分数从低到高，从0开始）
+     * 
+     * @param key 键
+     * @param member 成员
+     * @return 排名，成员不存在返回null
+     */
+    public static Long zrank(String key, String member) {
+        return execute("zrank", true, jedis -> jedis.zrank(key, member));
+    }
+
+    /**
+     * 获取成员排名（按分数从高到低，从0开始）
+     * 
+     * @param key 键
+     * @param member 成员
+     * @return 排名，成员不存在返回null
+     */
+    public static Long zrevrank(String key, String member) {
+        return execute("zrevrank", true, jedis -> jedis.zrevrank(key, member));
+    }
+
+    /**
+     * 从有序集合删除成员
+     * 
+     * @param key 键
+     * @param members 成员
+     * @return 删除的成员数
+     */
+    public static long zrem(String key, String... members) {
+        if (members == null || members.length == 0) {
+            return 0;
+        }
+        return execute("zrem", true, jedis -> jedis.zrem(key, members));
+    }
+
+    /**
+     * 获取有序集合成员数
+     * 
+     * @param key 键
+     * @return 成员数
+     */
+    public static long zcard(String key) {
+        return execute("zcard", true, jedis -> jedis.zcard(key));
+    }
+
+    // ========== 通用操作 ==========
+
+    /**
+     * 删除键
+     * 
+     * @param key 键
+     * @return 是否删除成功
+     */
+    public static boolean delete(String key) {
+        try {
+            return execute("delete", true, jedis -> jedis.del(key) > 0);
+        } finally {
+            invalidateNearCache(key);
+        }
+    }
+
+    /**
+     * 检查键是否存在
+     * 
+     * @param key 键
+     * @return 是否存在
+     */
+    public static boolean exists(String key) {
+        return execute("exists", true, jedis -> jedis.exists(key));
+    }
+
+         /**
+      * 设置键的过期时间
+      * 
+      * @param key 键
+      * @param expireMillis 过期时间（毫秒）
+      * @return 是否设置成功
+      */
+     public static boolean expire(String key, long expireMillis) {
+         try {
+             return execute("expire", true, jedis -> jedis.pexpire(key, expireMillis) == 1);
+         } finally {
+             invalidateNearCache(key);
+         }
+     }
+
+    // ========== 近端缓存 ==========
+
+    /**
+     * 开启近端缓存（进程内一级缓存），替换已有的近端缓存
+     * get/getJson优先读取本地缓存，getJson缓存解析后的对象；
+     * 通过订阅Redis键空间通知删除被其他节点修改的键，需要服务端开启notify-keyspace-events（至少包含K和A）
+     * 
+     * @param maxEntries 最大条目数
+     * @param defaultTtlMillis 默认TTL（毫秒），0表示只缓存通过setNearCachePolicy配置了前缀的键
+     */
+    public static void enableNearCache(int maxEntries, long defaultTtlMillis) {
+        enableNearCache(maxEntries, defaultTtlMillis, false);
+    }
+
+    /**
+     * 开启近端缓存，替换已有的近端缓存
+     * 
+     * @param maxEntries 最大条目数
+     * @param defaultTtlMillis 默认TTL（毫秒），0表示只缓存通过setNearCachePolicy配置了前缀的键
+     * @param configureKeyspaceEvents 是否通过CONFIG SET开启服务端键空间通知（托管Redis可能禁用CONFIG命令）
+     */
+    public static void enableNearCache(int maxEntries, long defaultTtlMillis, boolean configureKeyspaceEvents) {
+        ensureInitialized();
+        RedisNearCache cache = new RedisNearCache(maxEntries, defaultTtlMillis, database,
+                RedisUtils::createSubscriberConnection, configureKeyspaceEvents);
+        RedisNearCache previous;
+        synchronized (RedisUtils.class) {
+            previous = nearCache;
+            nearCache = cache;
+        }
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * 按键前缀设置近端缓存TTL（最长前缀优先）
+     * 
+     * @param keyPrefix 键前缀
+     * @param ttlMillis TTL（毫秒），0表示该前缀的键不使用近端缓存
+     */
+    public static void setNearCachePolicy(String keyPrefix, long ttlMillis) {
+        RedisNearCache cache = nearCache;
+        if (cache == null) {
+            throw new IllegalStateException("Near cache is not enabled. Please call RedisUtils.enableNearCache() first.");
+        }
+        cache.setPolicy(keyPrefix, ttlMillis);
+    }
+
+    /**
+     * 关闭近端缓存
+     */
+    public static void disableNearCache() {
+        RedisNearCache previous;
+        synchronized (RedisUtils.class) {
+            previous = nearCache;
+            nearCache = null;
+        }
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * 获取近端缓存统计
+     * 
+     * @return hits、misses、invalidations、size、listening，未开启返回null
+     */
+    public static JSONObject getNearCacheStats() {
+        RedisNearCache cache = nearCache;
+        return cache == null ? null : cache.stats();
+    }
+
+    // ========== 连接管理 ==========
+
+    /**
+     * 获取连接池统计（可用于调整连接池参数）
+     * 
+     * @return active、idle、waiters、maxTotal、meanBorrowWaitMillis、maxBorrowWaitMillis、borrowed、created、destroyed、
+     *         destroyedByValidation、destroyedByEvictor、borrowFailures、connectionFailures、readTimeouts、retries，未初始化返回null
+     */
+    public static JSONObject getPoolStats() {
+        JedisPool pool = jedisPool;
+        if (pool == null) {
+            return null;
+        }
+        JSONObject stats = new JSONObject();
+        stats.put("active", pool.getNumActive());
+        stats.put("idle", pool.getNumIdle());
+        stats.put("waiters", pool.getNumWaiters());
+        stats.put("maxTotal", pool.getMaxTotal());
+        stats.put("meanBorrowWaitMillis", pool.getMeanBorrowWaitTimeMillis());
+        stats.put("maxBorrowWaitMillis", pool.getMaxBorrowWaitTimeMillis());
+        stats.put("borrowed", pool.getBorrowedCount());
+        stats.put("created", pool.getCreatedCount());
+        stats.put("destroyed", pool.getDestroyedCount());
+        stats.put("destroyedByValidation", pool.getDestroyedByBorrowValidationCount());
+        stats.put("destroyedByEvictor", pool.getDestroyedByEvictorCount());
+        stats.put("borrowFailures", borrowFailures.sum());
+        stats.put("connectionFailures", connectionFailures.sum());
+        stats.put("readTimeouts", readTimeouts.sum());
+        stats.put("retries", retries.sum());
+        return stats;
+    }
+
+    /**
+     * 关闭连接池（静默关闭，不抛出异常）
+     */
+    public static void closePool() {
+        // 先写入缓冲的计数再关闭连接池
+        RedisCounterBuffer buffer;
+        synchronized (RedisUtils.class) {
+            buffer = counterBuffer;
+            counterBuffer = null;
+        }
+        if (buffer != null) {
+            try {
+                buffer.close();
+            } catch (Exception e) {
+                // 静默处理刷新异常
+            }
+        }
+        RedisLock.shutdown();
+        disableNearCache();
+        if (jedisPool != null && !jedisPool.isClosed()) {
+            try {
+                jedisPool.close();
+            } catch (Exception e) {
+                // 静默处理关闭异常
+            }
+        }
+    }
+
+    // ========== 辅助方法 ==========
+
+    /**
+     * 把JSON对象的字段更新加入事务：null值删除字段，其余值写入（字符串原样，其他值为JSON文本）
+     */
+    private static void queueHashUpdate(PipelineCommands pipeline, String key, JSONObject fields) {
+        Map<String, String> values = new LinkedHashMap<>();
+        List<String> removed = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : fields.entrySet()) {
+            Object value = entry.getValue();
+            if (value == null) {
+                removed.add(entry.getKey());
+            } else {
+                values.put(entry.getKey(), value instanceof String ? (String) value : JSON.toJSONString(value));
+            }
+        }
+        if (!values.isEmpty()) {
+            pipeline.hset(key, values);
+        }
+        if (!removed.isEmpty()) {
+            pipeline.hdel(key, removed.toArray(new String[0]));
+        }
+    }
+
+    private static JSONObject hashToJson(Map<String, String> hash) {
+        if (hash == null || hash.isEmpty()) {
+            return null;
+        }
+        JSONObject result = new JSONObject(hash.size());
+        for (Map.Entry<String, String> entry : hash.entrySet()) {
+            result.put(entry.getKey(), parseHashValue(entry.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * 以{或[开头的Hash字段值按JSON解析，解析失败或其他值保留为字符串
+     */
+    private static Object parseHashValue(String value) {
+        if (value.isEmpty() || (value.charAt(0) != '{' && value.charAt(0) != '[')) {
+            return value;
+        }
+        try {
+            return JSON.parse(value);
+        } catch (Exception e) {
+            return value;
+        }
+    }
+
+    /**
+     * 借出连接执行命令
+     * 连接被拒绝、重置或断开时清理连接池中的空闲连接，可重试的命令换一个新连接重试一次；
+     * 读超时说明服务端慢而不是连接失效，不清理连接池也不重试（命令可能仍在执行，重试只会加重服务端负载）
+     * 
+     * @param operation 操作名称（用于异常信息）
+     * @param retryOnConnectionFailure 是否可以重试（非幂等命令如INCR不能重试，命令可能已执行）
+     * @param action 命令
+     * @param <T> 返回值类型
+     * @return 命令结果
+     */
+    private static <T> T execute(String operation, boolean retryOnConnectionFailure, Function<Jedis, T> action) {
+        try (Jedis jedis = createConnection()) {
+            return action.apply(jedis);
+        } catch (JedisConnectionException e) {
+            onConnectionFailure(e);
+            if (!retryOnConnectionFailure || isReadTimeout(e)) {
+                throw operationFailed(operation, e);
+            }
+            retries.increment();
+            try (Jedis jedis = createConnection()) {
+                return action.apply(jedis);
+            } catch (Exception retryEx) {
+                if (retryEx instanceof JedisConnectionException) {
+                    onConnectionFailure((JedisConnectionException) retryEx);
+                }
+                throw operationFailed(operation, retryEx);
+            }
+        } catch (Exception e) {
+            throw operationFailed(operation, e);
+        }
+    }
+
+    /**
+     * 执行Lua脚本（EVALSHA，服务端未缓存时改用EVAL）
+     * 
+     * @param operation 操作名称（用于异常信息）
+     * @param retryOnConnectionFailure 脚本是否可以重试
+     * @param script 脚本
+     * @param keys KEYS
+     * @param args ARGV
+     * @return 脚本返回值
+     */
+    static Object evalScript(String operation, boolean retryOnConnectionFailure, RedisScript script,
+                             List<String> keys, List<String> args) {
+        return execute(operation, retryOnConnectionFailure, jedis -> script.eval(jedis, keys, args));
+    }
+
+    /**
+     * 在一个管道中多次执行Lua脚本（不重试，脚本可能已执行）
+     * 
+     * @param operation 操作名称（用于异常信息）
+     * @param script 脚本
+     * @param keys 每次调用的KEYS
+     * @param args 每次调用的ARGV
+     * @return 各次调用的返回值（脚本错误时为对应的异常对象）
+     */
+    static List<Object> evalScriptBatch(String operation, RedisScript script, List<List<String>> keys,
+                                        List<List<String>> args) {
+        return execute(operation, false, jedis -> script.evalBatch(jedis, keys, args));
+    }
+
+    /**
+     * 执行管道并检查每条命令的返回值；sync()不会抛出单条命令的错误（如WRONGTYPE、OOM），这里抛出第一个错误
+     */
+    private static List<Object> syncChecked(Pipeline pipeline) {
+        return checkReplies(pipeline.syncAndReturnAll());
+    }
+
+    /**
+     * 检查管道或事务（EXEC）的返回值，抛出第一个命令错误
+     */
+    private static List<Object> checkReplies(List<Object> replies) {
+        for (Object reply : replies) {
+            if (reply instanceof JedisDataException) {
+                throw (JedisDataException) reply;
+            }
+        }
+        return replies;
+    }
+
+    private static RuntimeException operationFailed(String operation, Exception e) {
+        return new RuntimeException("Redis " + operation + " operation failed: " + e.getMessage(), e);
+    }
+
+    /**
+     * 连接被拒绝、重置或断开后销毁空闲连接（它们很可能同样已失效），后续借出时重新建立连接；
+     * 读超时只计数，空闲连接仍然可用
+     */
+    private static void onConnectionFailure(JedisConnectionException e) {
+        connectionFailures.increment();
+        if (isReadTimeout(e)) {
+            readTimeouts.increment();
+            return;
+        }
+        if (!isBrokenConnection(e)) {
+            return;
+        }
+        JedisPool pool = jedisPool;
+        if (pool != null && !pool.isClosed()) {
+            try {
+                pool.clear();
+            } catch (Exception clearEx) {
+                // 静默处理清理异常
+            }
+        }
+    }
+
+    private static boolean isReadTimeout(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SocketTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否为连接级故障：连接被拒绝、连接被重置、管道断开，或服务端关闭了连接（读到流末尾）
+     */
+    private static boolean isBrokenConnection(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConnectException) {
+                return true;
+            }
+            if (t instanceof SocketTimeoutException) {
+                return false;
+            }
+            String message = t.getMessage();
+            if (message == null) {
+                continue;
+            }
+            if (t instanceof SocketException
+                    && (message.contains("reset") || message.contains("Broken pipe") || message.contains("refused"))) {
+                return true;
+            }
+            if (t instanceof JedisConnectionException && message.startsWith("Unexpected end of stream")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 删除近端缓存中的键（本节点写入后立即生效，不等待键空间通知）
+     */
+    private static void invalidateNearCache(String key) {
+        RedisNearCache cache = nearCache;
+        if (cache != null) {
+            cache.invalidate(key);
+        }
+    }
+
+    private static void invalidateNearCache(Collection<String> keys) {
+        RedisNearCache cache = nearCache;
+        if (cache != null) {
+            for (String key : keys) {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    /**
+     * 创建订阅专用连接（不放入连接池，读超时为0以便长时间阻塞等待消息）
+     */
+    static Jedis createSubscriberConnection() {
+        return new Jedis(new HostAndPort(host, port), DefaultJedisClientConfig.builder()
+                .connectionTimeoutMillis(timeout)
+                .socketTimeoutMillis(0)
+                .password(password != null && !password.trim().isEmpty() ? password : null)
+                .database(database)
+                .build());
+    }
+
+    /**
+     * 键值对展开为MSET参数
+     */
+    private static String[] toKeyValueArray(Collection<Map.Entry<String, String>> entries) {
+        String[] keysValues = new String[entries.size() * 2];
+        int i = 0;
+        for (Map.Entry<String, String> entry : entries) {
+            keysValues[i++] = entry.getKey();
+            keysValues[i++] = entry.getValue();
+        }
+        return keysValues;
+    }
+
+    /**
+     * getOrLoad读取到的值和剩余过期时间（-1表示没有过期时间）
+     */
+    private static final class CachedJson {
+        final JSONObject value;
+        final long ttlMillis;
+
+        CachedJson(JSONObject value, long ttlMillis) {
+            this.value = value;
+            this.ttlMillis = ttlMillis;
+        }
+    }
 
         /**
      * 确保Redis连接已初始化（懒加载）